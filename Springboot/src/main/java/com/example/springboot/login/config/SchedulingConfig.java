@@ -0,0 +1,10 @@
+package com.example.springboot.login.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// 开启定时任务（导出产物清理等）
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
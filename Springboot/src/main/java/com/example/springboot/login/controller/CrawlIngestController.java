@@ -0,0 +1,72 @@
+package com.example.springboot.login.controller;
+
+import com.example.springboot.login.dto.IngestRequest;
+import com.example.springboot.login.dto.IngestResultDTO;
+import com.example.springboot.login.dto.ResponseDTO;
+import com.example.springboot.login.service.CrawlIngestService;
+import com.example.springboot.login.service.StreamIngestService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+// 爬虫写入爬取结果（价格与排名、评论）
+@RestController
+@RequestMapping("/api/crawler/tasks/{id}/ingest")
+public class CrawlIngestController {
+
+    private final CrawlIngestService crawlIngestService;
+    private final StreamIngestService streamIngestService;
+
+    @Autowired
+    public CrawlIngestController(CrawlIngestService crawlIngestService,
+                                 StreamIngestService streamIngestService) {
+        this.crawlIngestService = crawlIngestService;
+        this.streamIngestService = streamIngestService;
+    }
+
+    // 批量写入：一次请求可包含数千条价格和评论记录，整批在同一事务中写入
+    @PostMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<IngestResultDTO>> ingest(@PathVariable Long id,
+                                                               @RequestBody IngestRequest request) {
+        IngestResultDTO result = crawlIngestService.ingest(id, request);
+        return ResponseEntity.ok(ResponseDTO.success("数据写入成功", result));
+    }
+
+    // 缓冲写入：记录放入写缓冲后返回202，由后台批量写入数据库；缓冲区满时返回503
+    @PostMapping("/buffered")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<IngestResultDTO>> ingestBuffered(@PathVariable Long id,
+                                                                       @RequestBody IngestRequest request) {
+        IngestResultDTO result = crawlIngestService.ingestBuffered(id, request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ResponseDTO.success("数据已接收", result));
+    }
+
+    // 流式写入：请求体为NDJSON（每行一条记录，type 为 price 或 review），边读边按批提交，
+    // 响应为NDJSON，每提交一批输出一行 ack；streamId 由客户端指定，断开后以相同 streamId 从 offset 继续发送
+    @PostMapping(value = "/stream", consumes = {"application/x-ndjson", "application/json"})
+    @PreAuthorize("hasRole('USER')")
+    public void ingestStream(@PathVariable Long id,
+                             @RequestParam("streamId") String streamId,
+                             @RequestParam(value = "offset", defaultValue = "0") long offset,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        long committed = streamIngestService.open(id, streamId, offset);
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        streamIngestService.ingest(id, streamId, offset, committed, request.getInputStream(), response.getOutputStream());
+    }
+
+    // 查询写入流已提交的偏移量（断开后从该偏移量继续发送）
+    @GetMapping("/stream/{streamId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<Long>> getStreamCheckpoint(@PathVariable Long id, @PathVariable String streamId) {
+        return ResponseEntity.ok(ResponseDTO.success("查询检查点成功", streamIngestService.getCommittedOffset(id, streamId)));
+    }
+}
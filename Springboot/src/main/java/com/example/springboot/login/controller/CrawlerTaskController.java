@@ -1,24 +1,47 @@
 package com.example.springboot.login.controller;
 
+import com.example.springboot.login.dto.AnalysisJobDTO;
+import com.example.springboot.login.dto.AsinPriceDailyDTO;
 import com.example.springboot.login.dto.AsinPriceRankDTO;
 import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.dto.AsinReviewListDTO;
+import com.example.springboot.login.dto.BulkExportRequest;
 import com.example.springboot.login.dto.CrawlerTaskDTO;
+import com.example.springboot.login.dto.CursorPageData;
+import com.example.springboot.login.dto.PriceSeriesDTO;
 import com.example.springboot.login.dto.ResponseDTO;
-import com.example.springboot.login.entity.AsinPriceRank;
+import com.example.springboot.login.dto.ReviewSearchHitDTO;
+import com.example.springboot.login.entity.AnalysisJob;
 import com.example.springboot.login.entity.AsinReview;
 import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.exception.JobNotFoundException;
+import com.example.springboot.login.export.ExportDataType;
+import com.example.springboot.login.export.ExportFormat;
+import com.example.springboot.login.report.ReportArtifactStore;
+import com.example.springboot.login.repository.PriceRankPageQuery;
+import com.example.springboot.login.repository.PriceRankSort;
+import com.example.springboot.login.repository.ReviewPageQuery;
+import com.example.springboot.login.service.AnalysisJobService;
+import com.example.springboot.login.service.BulkExportService;
+import com.example.springboot.login.service.CombinedExportService;
 import com.example.springboot.login.service.CrawlerTaskService;
+import com.example.springboot.login.service.ExportCacheService;
+import com.example.springboot.login.service.PriceRollupService;
+import com.example.springboot.login.service.PriceSeriesService;
+import com.example.springboot.login.service.ReviewSearchService;
+import com.example.springboot.login.service.TaskExportService;
+import com.example.springboot.login.util.FileTransferUtils;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -27,27 +50,57 @@ import org.springframework.data.domain.Sort;
 import java.io.*;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
-import java.time.LocalDateTime;
-import java.time.LocalDate;
-import java.time.ZoneId;
 
 @RestController
 @RequestMapping("/api/crawler/tasks")
 public class CrawlerTaskController {
 
+    private static final int MAX_PAGE_LIMIT = 1000; // 游标分页每页最大条数
+    private static final int MAX_SEARCH_LIMIT = 100; // 评论全文搜索最大返回条数
+    private static final int MAX_SERIES_ASINS = 20; // 时间序列一次最多查询的ASIN数
+    private static final int MAX_SERIES_POINTS = 5000; // 时间序列每条序列最多返回的点数
+
     private final CrawlerTaskService crawlerTaskService;
-    private Map<Long, String> analyzeStatusMap = new ConcurrentHashMap<>(); // 线程安全的Map
+    private final TaskExportService taskExportService;
+    private final BulkExportService bulkExportService;
+    private final CombinedExportService combinedExportService;
+    private final ExportCacheService exportCacheService;
+    private final AnalysisJobService analysisJobService;
+    private final ReportArtifactStore reportArtifactStore;
+    private final PriceRollupService priceRollupService;
+    private final ReviewSearchService reviewSearchService;
+    private final PriceSeriesService priceSeriesService;
 
     @Autowired
-    public CrawlerTaskController(CrawlerTaskService crawlerTaskService) {
+    public CrawlerTaskController(CrawlerTaskService crawlerTaskService,
+                                 TaskExportService taskExportService,
+                                 BulkExportService bulkExportService,
+                                 CombinedExportService combinedExportService,
+                                 ExportCacheService exportCacheService,
+                                 AnalysisJobService analysisJobService,
+                                 ReportArtifactStore reportArtifactStore,
+                                 PriceRollupService priceRollupService,
+                                 ReviewSearchService reviewSearchService,
+                                 PriceSeriesService priceSeriesService) {
         this.crawlerTaskService = crawlerTaskService;
+        this.taskExportService = taskExportService;
+        this.bulkExportService = bulkExportService;
+        this.combinedExportService = combinedExportService;
+        this.exportCacheService = exportCacheService;
+        this.analysisJobService = analysisJobService;
+        this.reportArtifactStore = reportArtifactStore;
+        this.priceRollupService = priceRollupService;
+        this.reviewSearchService = reviewSearchService;
+        this.priceSeriesService = priceSeriesService;
     }
 
     // 创建新任务
@@ -109,6 +162,18 @@ public class CrawlerTaskController {
         );
     }
 
+    // 查询跟踪指定ASIN的任务（按 task_asin 索引精确匹配，新任务在前）
+    @GetMapping("/by-asin/{asin}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<List<CrawlerTaskDTO>>> getTasksByAsin(@PathVariable String asin) {
+        List<CrawlerTaskDTO> tasks = crawlerTaskService.getTasksByAsin(asin).stream()
+                .map(CrawlerTaskDTO::fromEntity)
+                .toList();
+        return ResponseEntity.ok(
+                ResponseDTO.success("任务列表获取成功", tasks)
+        );
+    }
+
     // 更新任务
 //    @PutMapping("/{id}")
 //    @PreAuthorize("hasRole('USER')")
@@ -158,15 +223,17 @@ public class CrawlerTaskController {
         );
     }
 
-    // 获取任务价格数据
+    // 获取任务价格数据，expand=true 时将连续相同观测的行展开为观测点
     @GetMapping("/{id}/price-ranks")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<ResponseDTO<List<AsinPriceRankDTO>>> getTaskPriceRanks(@PathVariable Long id) {
+    public ResponseEntity<ResponseDTO<List<AsinPriceRankDTO>>> getTaskPriceRanks(
+            @PathVariable Long id,
+            @RequestParam(value = "expand", defaultValue = "false") boolean expand) {
         try {
-            List<AsinPriceRank> priceRanks = crawlerTaskService.getAsinPriceRanksByTaskId(id);
-            List<AsinPriceRankDTO> priceRankDTOs = priceRanks.stream()
-                    .map(AsinPriceRankDTO::fromEntity)
-                    .collect(Collectors.toList());
+            List<AsinPriceRankDTO> priceRankDTOs = crawlerTaskService.getAsinPriceRanksByTaskId(id);
+            if (expand) {
+                priceRankDTOs = priceRankDTOs.stream().flatMap(AsinPriceRankDTO::expand).collect(Collectors.toList());
+            }
 
             return ResponseEntity.ok(
                     ResponseDTO.success("价格数据获取成功", priceRankDTOs)
@@ -178,6 +245,84 @@ public class CrawlerTaskController {
         }
     }
 
+    // 游标分页获取任务价格数据：sort=crawlTime（默认）/ price（非会员最终价）/ rank（小类目排名），
+    // order=asc/desc，排序字段为空的记录排在最后；asin、from/to（爬取时间，含from不含to）为可选筛选条件。
+    // 首次请求不传cursor，之后传入上一页返回的 nextCursor，直到 hasMore 为 false
+    @GetMapping("/{id}/price-ranks/page")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<CursorPageData<AsinPriceRankDTO>>> getTaskPriceRankPage(
+            @PathVariable Long id,
+            @RequestParam(value = "asin", required = false) String asin,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "sort", defaultValue = "crawlTime") String sort,
+            @RequestParam(value = "order", defaultValue = "asc") String order,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (!"asc".equalsIgnoreCase(order) && !"desc".equalsIgnoreCase(order)) {
+            throw new IllegalArgumentException("不支持的排序方向: " + order);
+        }
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new IllegalArgumentException("每页条数需在 1-" + MAX_PAGE_LIMIT + " 之间");
+        }
+
+        PriceRankPageQuery query = new PriceRankPageQuery();
+        query.setTaskId(id);
+        query.setAsin(asin == null || asin.isEmpty() ? null : asin);
+        query.setFrom(from);
+        query.setTo(to);
+        query.setSort(PriceRankSort.fromParam(sort));
+        query.setDescending("desc".equalsIgnoreCase(order));
+        query.setLimit(limit);
+        CursorPageData<AsinPriceRankDTO> page = crawlerTaskService.getAsinPriceRankPage(query, cursor);
+        return ResponseEntity.ok(ResponseDTO.success("价格数据获取成功", page));
+    }
+
+    // 获取任务当前价格快照：每个ASIN的最新一条价格数据（按爬取时间），读取最新价格表，每个ASIN一行
+    @GetMapping("/{id}/price-latest")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<List<AsinPriceRankDTO>>> getTaskPriceLatest(@PathVariable Long id) {
+        crawlerTaskService.getTaskById(id);
+        List<AsinPriceRankDTO> latest = priceRollupService.getLatest(id);
+        return ResponseEntity.ok(ResponseDTO.success("当前价格获取成功", latest));
+    }
+
+    // 获取任务价格日汇总（每个ASIN每天的价格最小/最大/平均值及最好/最差小类目排名），
+    // 读取预聚合表，耗时与原始价格数据量无关；asin为空时返回全部ASIN，from/to为日期范围（含）
+    @GetMapping("/{id}/price-daily")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<List<AsinPriceDailyDTO>>> getTaskPriceDaily(
+            @PathVariable Long id,
+            @RequestParam(value = "asin", required = false) String asin,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        crawlerTaskService.getTaskById(id);
+        List<AsinPriceDailyDTO> daily = priceRollupService.getDaily(id, asin, from, to);
+        return ResponseEntity.ok(ResponseDTO.success("价格日汇总获取成功", daily));
+    }
+
+    // 获取一个或多个ASIN的价格/排名时间序列（图表用），服务端按LTTB降采样到 points 个点以内；
+    // asin 为逗号分隔的ASIN列表，from/to 为爬取时间范围（含from不含to）
+    @GetMapping("/{id}/price-series")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<List<PriceSeriesDTO>>> getTaskPriceSeries(
+            @PathVariable Long id,
+            @RequestParam("asin") List<String> asins,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "points", defaultValue = "500") int points) {
+        List<String> asinList = asins.stream().map(String::trim).filter(asin -> !asin.isEmpty()).distinct().toList();
+        if (asinList.isEmpty() || asinList.size() > MAX_SERIES_ASINS) {
+            throw new IllegalArgumentException("ASIN数量需在 1-" + MAX_SERIES_ASINS + " 之间");
+        }
+        if (points < 3 || points > MAX_SERIES_POINTS) {
+            throw new IllegalArgumentException("点数需在 3-" + MAX_SERIES_POINTS + " 之间");
+        }
+        crawlerTaskService.getTaskById(id);
+        List<PriceSeriesDTO> series = priceSeriesService.getSeries(id, asinList, from, to, points);
+        return ResponseEntity.ok(ResponseDTO.success("价格时间序列获取成功", series));
+    }
+
     // 获取任务评论数据
     @GetMapping("/{id}/reviews")
     @PreAuthorize("hasRole('USER')")
@@ -192,451 +337,246 @@ public class CrawlerTaskController {
         );
     }
 
-    // 导出任务数据
-    @GetMapping("/{id}/export")
+    // 游标分页获取任务评论列表（不含评论正文和图片），按爬取时间排序，order=desc（默认，最新在前）/ asc；
+    // asin、minRating/maxRating（评分范围，含）、from/to（爬取时间，含from不含to）为可选筛选条件
+    @GetMapping("/{id}/reviews/page")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<InputStreamResource> exportTaskData(
+    public ResponseEntity<ResponseDTO<CursorPageData<AsinReviewListDTO>>> getTaskReviewPage(
             @PathVariable Long id,
-            @RequestParam("type") String dataType) throws IOException {
-
-        try {
-            // 生成文件名（包含任务名称和时间戳）
-            CrawlerTask task = crawlerTaskService.getTaskById(id);
-            String fileName = task.getProcessName() + "_" +
-                    (dataType.equals("price-rank") ? "价格与排名" : "评论") +
-                    "数据_" + new SimpleDateFormat("yyyyMMdd").format(new Date()) + ".xlsx";
-
-            // 创建工作簿
-            Workbook workbook = new XSSFWorkbook();
-            Sheet sheet = workbook.createSheet(dataType.equals("price-rank") ? "价格与排名数据" : "评论数据");
-
-            // 创建表头
-            Row headerRow = sheet.createRow(0);
-
-            if (dataType.equals("price-rank")) {
-                // 价格与排名数据导出
-                String[] headers = {"ASIN", "品牌", "原价", "LD折扣", "BD折扣", "优惠券", "直降%",
-                        "会员价", "会员最终价", "非会员最终价",
-                        "大类目", "大类目排名", "小类目", "小类目排名", "爬取时间"};
-
-                // 设置表头样式
-                CellStyle headerStyle = workbook.createCellStyle();
-                Font headerFont = workbook.createFont();
-                headerFont.setBold(true);
-                headerStyle.setFont(headerFont);
-
-                // 创建表头单元格
-                for (int i = 0; i < headers.length; i++) {
-                    Cell cell = headerRow.createCell(i);
-                    cell.setCellValue(headers[i]);
-                    cell.setCellStyle(headerStyle);
-                }
-
-                // 获取数据
-                List<AsinPriceRank> priceRanks = crawlerTaskService.getAsinPriceRanksByTaskId(id);
-
-                // 填充数据行
-                for (int i = 0; i < priceRanks.size(); i++) {
-                    AsinPriceRank rank = priceRanks.get(i);
-                    Row dataRow = sheet.createRow(i + 1);
-
-                    // 处理ASIN（字符串类型）
-                    setCellValue(dataRow.createCell(0), rank.getAsin());
-
-                    // 处理品牌（字符串类型）
-                    setCellValue(dataRow.createCell(1), rank.getBrand());
-
-                    // 处理原价（double类型）
-                    setCellValue(dataRow.createCell(2), rank.getOriginalPrice() != null ? rank.getOriginalPrice() : 0.0);
-
-                    // 处理LD折扣（double类型）
-                    setCellValue(dataRow.createCell(3), rank.getLdDiscount() != null ? rank.getLdDiscount() : 0.0);
-
-                    // 处理BD折扣（double类型）
-                    setCellValue(dataRow.createCell(4), rank.getBdDiscount() != null ? rank.getBdDiscount() : 0.0);
-
-                    // 处理优惠券（字符串类型）
-                    setCellValue(dataRow.createCell(5), rank.getCoupon());
-
-                    // 处理直降%（double类型）
-                    setCellValue(dataRow.createCell(6), rank.getDirectDiscount() != null ? rank.getDirectDiscount() : 0.0);
-
-                    // 处理会员价（double类型）
-                    setCellValue(dataRow.createCell(7), rank.getMemberPrice() != null ? rank.getMemberPrice() : 0.0);
-
-                    // 处理会员最终价（double类型）
-                    setCellValue(dataRow.createCell(8), rank.getMemberFinalPrice() != null ? rank.getMemberFinalPrice() : 0.0);
-
-                    // 处理非会员最终价（double类型）
-                    setCellValue(dataRow.createCell(9), rank.getNonMemberFinalPrice() != null ? rank.getNonMemberFinalPrice() : 0.0);
-
-                    // 处理大类目（字符串类型）
-                    setCellValue(dataRow.createCell(10), rank.getMainCategory());
-
-                    // 处理大类目排名（整数类型）
-                    setCellValue(dataRow.createCell(11), rank.getMainCategoryRank() != null ? rank.getMainCategoryRank() : 0);
-
-                    // 处理小类目（字符串类型）
-                    setCellValue(dataRow.createCell(12), rank.getSubCategory());
-
-                    // 处理小类目排名（整数类型）
-                    setCellValue(dataRow.createCell(13), rank.getSubCategoryRank() != null ? rank.getSubCategoryRank() : 0);
-
-                    // 处理爬取时间（日期类型，支持Date/LocalDateTime/LocalDate）
-                    setCellValue(dataRow.createCell(14), rank.getCrawlTime(), workbook);
-                }
-
-                // 自动调整列宽
-                for (int i = 0; i < headers.length; i++) {
-                    sheet.autoSizeColumn(i);
-                }
-
-            } else {
-                // 评论数据导出
-                String[] headers = {"ASIN", "品牌", "评论者", "评论日期", "评论内容", "爬取时间"};
-
-                // 设置表头样式
-                CellStyle headerStyle = workbook.createCellStyle();
-                Font headerFont = workbook.createFont();
-                headerFont.setBold(true);
-                headerStyle.setFont(headerFont);
-
-                // 创建表头单元格
-                for (int i = 0; i < headers.length; i++) {
-                    Cell cell = headerRow.createCell(i);
-                    cell.setCellValue(headers[i]);
-                    cell.setCellStyle(headerStyle);
-                }
-
-                // 获取数据
-                List<AsinReview> reviews = crawlerTaskService.getAsinReviewsByTaskId(id);
-
-                // 填充数据
-                for (int i = 0; i < reviews.size(); i++) {
-                    AsinReview review = reviews.get(i);
-                    Row dataRow = sheet.createRow(i + 1);
-
-                    // 处理ASIN（字符串类型）
-                    setCellValue(dataRow.createCell(0), review.getAsin());
+            @RequestParam(value = "asin", required = false) String asin,
+            @RequestParam(value = "minRating", required = false) Double minRating,
+            @RequestParam(value = "maxRating", required = false) Double maxRating,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "order", defaultValue = "desc") String order,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        if (!"asc".equalsIgnoreCase(order) && !"desc".equalsIgnoreCase(order)) {
+            throw new IllegalArgumentException("不支持的排序方向: " + order);
+        }
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new IllegalArgumentException("每页条数需在 1-" + MAX_PAGE_LIMIT + " 之间");
+        }
 
-                    // 处理品牌（字符串类型）
-                    setCellValue(dataRow.createCell(1), review.getBrand());
+        ReviewPageQuery query = new ReviewPageQuery();
+        query.setTaskId(id);
+        query.setAsin(asin == null || asin.isEmpty() ? null : asin);
+        query.setMinRating(minRating);
+        query.setMaxRating(maxRating);
+        query.setFrom(from);
+        query.setTo(to);
+        query.setDescending("desc".equalsIgnoreCase(order));
+        query.setLimit(limit);
+        CursorPageData<AsinReviewListDTO> page = crawlerTaskService.getAsinReviewPage(query, cursor);
+        return ResponseEntity.ok(ResponseDTO.success("评论数据获取成功", page));
+    }
 
-                    // 处理评论者（字符串类型）
-                    setCellValue(dataRow.createCell(2), review.getReviewerName());
+    // 在任务内全文搜索评论标题和正文，按相关度排序并返回高亮片段；asin为可选筛选条件
+    @GetMapping("/{id}/reviews/search")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<List<ReviewSearchHitDTO>>> searchTaskReviews(
+            @PathVariable Long id,
+            @RequestParam("q") String keywords,
+            @RequestParam(value = "asin", required = false) String asin,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) throws IOException {
+        if (keywords.isBlank()) {
+            throw new IllegalArgumentException("搜索关键词不能为空");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("返回条数需在 1-" + MAX_SEARCH_LIMIT + " 之间");
+        }
+        crawlerTaskService.getTaskById(id);
+        List<ReviewSearchHitDTO> hits = reviewSearchService.search(id, keywords, asin, limit);
+        return ResponseEntity.ok(ResponseDTO.success("评论搜索成功", hits));
+    }
 
-                    // 处理评论日期（日期类型，支持Date/LocalDateTime/LocalDate）
-                    setCellValue(dataRow.createCell(3), review.getReviewDate(), workbook);
+    // 从数据库重建任务的评论全文索引
+    @PostMapping("/{id}/reviews/search/rebuild")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<Long>> rebuildReviewIndex(@PathVariable Long id) throws IOException {
+        crawlerTaskService.getTaskById(id);
+        long indexed = reviewSearchService.sync(id, true);
+        return ResponseEntity.ok(ResponseDTO.success("评论索引已重建", indexed));
+    }
 
-                    // 处理评论内容（字符串类型）
-                    setCellValue(dataRow.createCell(4), review.getReviewContent());
+    // 获取单条评论详情（含评论正文和图片）
+    @GetMapping("/{id}/reviews/{reviewId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<AsinReviewDTO>> getTaskReview(@PathVariable Long id, @PathVariable Long reviewId) {
+        AsinReview review = crawlerTaskService.getAsinReview(id, reviewId);
+        return ResponseEntity.ok(ResponseDTO.success("评论详情获取成功", AsinReviewDTO.fromEntity(review)));
+    }
 
-                    // 处理爬取时间（日期类型，支持Date/LocalDateTime/LocalDate）
-                    setCellValue(dataRow.createCell(5), review.getCrawlTime(), workbook);
-                }
+    // 导出任务数据（流式写出，不在内存中缓存整个文件）
+    // format: xlsx（默认）/ csv / ndjson；gzip=true 时输出 .gz 压缩文件；expand=true 时价格数据按观测点导出
+    // 数据水位未变化时直接返回缓存文件（带 ETag，支持 304 与 Range）
+    @GetMapping("/{id}/export")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<StreamingResponseBody> exportTaskData(
+            @PathVariable Long id,
+            @RequestParam("type") String dataType,
+            @RequestParam(value = "format", defaultValue = "xlsx") String format,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+            @RequestParam(value = "expand", defaultValue = "false") boolean expand,
+            HttpServletRequest request,
+            HttpServletResponse response) {
 
-                // 自动调整列宽
-                for (int i = 0; i < headers.length; i++) {
-                    sheet.autoSizeColumn(i);
-                }
+        try {
+            CrawlerTask task = crawlerTaskService.getTaskById(id);
+            ExportDataType exportType = ExportDataType.fromParam(dataType);
+            ExportFormat exportFormat = ExportFormat.fromParam(format);
+            // 生成文件名（包含任务名称和时间戳）
+            String fileName = taskExportService.buildFileName(task, exportType, exportFormat, gzip);
+            String contentType = taskExportService.contentType(exportFormat, gzip);
+
+            String cacheKey = exportCacheService.cacheKey(task, exportType, exportFormat, gzip, expand);
+            Path cached = exportCacheService.lookup(cacheKey);
+            if (cached != null) {
+                FileTransferUtils.sendFile(request, response, cached, fileName, contentType,
+                        exportCacheService.etag(cacheKey, cached));
+                return null; // 响应已直接写出
             }
 
-            // 将工作簿转换为输入流
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            workbook.write(baos);
-            baos.flush();
-            InputStream inputStream = new ByteArrayInputStream(baos.toByteArray());
+            // 行数据在响应写出时从数据库游标逐行读取，同时写入缓存
+            StreamingResponseBody body = out -> exportCacheService.exportAndCache(
+                    cacheKey, task, exportType, exportFormat, gzip, expand, out);
 
             // 设置响应头
             HttpHeaders headers = new HttpHeaders();
             headers.add("Content-Disposition", "attachment; filename=" +
                     URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20"));
-            headers.add("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            headers.add("Content-Type", contentType);
 
             return ResponseEntity
                     .ok()
                     .headers(headers)
-                    .body(new InputStreamResource(inputStream));
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            String message = "导出参数错误: " + e.getMessage();
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
         } catch (Exception e) {
             e.printStackTrace();
             // 返回错误响应
+            String message = "导出数据失败: " + e.getMessage();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new InputStreamResource(new ByteArrayInputStream(
-                            ("导出数据失败: " + e.getMessage()).getBytes(StandardCharsets.UTF_8))));
+                    .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
         }
     }
 
-    // 处理数据分析，更新Excel和PPT
-    @PostMapping("/{id}/analyze")
-    @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<ResponseDTO<String>> analyzeTaskData(@PathVariable Long id) {
-        analyzeStatusMap.put(id, "PROCESSING"); // 开始时设为“处理中”
-
-        // 异步执行数据分析逻辑（关键：避免接口阻塞）
-        CompletableFuture.runAsync(() -> {
-            try {
-                // 调用Excel更新和PPT处理逻辑
-                CrawlerTask task = crawlerTaskService.getTaskById(id);
-                List<AsinPriceRank> priceRanks = crawlerTaskService.getAsinPriceRanksByTaskId(id);
-                List<AsinReview> reviews = crawlerTaskService.getAsinReviewsByTaskId(id);
-
-                String excelPath = "D:\\工作记录\\test_python（爬虫）\\ppt_updates\\数据分析报告底表.xlsx";
-                updateExcelFile(excelPath, priceRanks, reviews);
-
-                String pptPath = "D:\\工作记录\\test_python（爬虫）\\ppt_updates\\数据分析报告模板.pptx";
-                executePythonScript(pptPath, excelPath);
-
-                analyzeStatusMap.put(id, "COMPLETED"); // 成功后设为“完成”
-            } catch (Exception e) {
-                analyzeStatusMap.put(id, "FAILED"); // 失败设为“失败”
-                e.printStackTrace();
-            }
-        });
-
-        return ResponseEntity.ok(ResponseDTO.success("数据分析已启动"));
-    }
-
-    // 下载分析后的PPT
-    @GetMapping("/{id}/analyze/ppt")
+    // 合并导出：一个xlsx中包含汇总、价格与排名数据、评论数据三个工作表；expand=true 时价格数据按观测点导出
+    @GetMapping("/{id}/export/combined")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<InputStreamResource> downloadAnalyzedPPT(@PathVariable Long id) throws IOException {
+    public ResponseEntity<StreamingResponseBody> exportCombinedTaskData(
+            @PathVariable Long id,
+            @RequestParam(value = "expand", defaultValue = "false") boolean expand) {
         try {
-            String pptPath = "D:\\工作记录\\test_python（爬虫）\\ppt_updates\\数据分析报告模板.pptx";
-
-            // 检查文件是否存在
-            File pptFile = new File(pptPath);
-            if (!pptFile.exists()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(new InputStreamResource(new ByteArrayInputStream(
-                                "PPT文件不存在".getBytes(StandardCharsets.UTF_8))));
-            }
+            CrawlerTask task = crawlerTaskService.getTaskById(id);
+            String fileName = combinedExportService.buildFileName(task,
+                    new SimpleDateFormat("yyyyMMdd").format(new Date()));
 
-            // 读取文件内容
-            InputStream inputStream = new FileInputStream(pptFile);
+            StreamingResponseBody body = out -> combinedExportService.writeCombined(task, expand, out);
 
-            // 设置响应头
             HttpHeaders headers = new HttpHeaders();
-            String fileName = "数据分析报告_" + id + "_" + new SimpleDateFormat("yyyyMMdd").format(new Date()) + ".pptx";
             headers.add("Content-Disposition", "attachment; filename=" +
                     URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20"));
-            headers.add("Content-Type", "application/vnd.openxmlformats-officedocument.presentationml.presentation");
+            headers.add("Content-Type", ExportFormat.XLSX.getContentType());
 
             return ResponseEntity
                     .ok()
                     .headers(headers)
-                    .body(new InputStreamResource(inputStream));
+                    .body(body);
         } catch (Exception e) {
             e.printStackTrace();
+            String message = "导出数据失败: " + e.getMessage();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new InputStreamResource(new ByteArrayInputStream(
-                            ("下载PPT失败: " + e.getMessage()).getBytes(StandardCharsets.UTF_8))));
+                    .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
         }
     }
 
-    // 查询数据分析状态
-    @GetMapping("/{id}/analyze/status")
+    // 批量导出多个任务的数据，打包为ZIP流式返回（每个任务/数据类型一个条目）
+    @PostMapping("/export/bulk")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<ResponseDTO<String>> getAnalyzeStatus(@PathVariable Long id) {
-        // 实际项目中应使用Redis或数据库存储状态（如"PROCESSING"、"COMPLETED"、"FAILED"）
-        // 这里简化处理，假设用内存Map存储（生产环境需替换为分布式存储）
-        String status = analyzeStatusMap.getOrDefault(id, "PROCESSING"); // 需在Controller中定义Map作为临时存储
-        return ResponseEntity.ok(ResponseDTO.success("查询状态成功", status));
-    }
-
-    // 智能设置单元格值（处理不同数据类型，支持null值）
-    private void setCellValue(Cell cell, Object value) {
-        if (value == null) {
-            cell.setCellValue("");
-            return;
-        }
+    public ResponseEntity<StreamingResponseBody> bulkExportTaskData(@Valid @RequestBody BulkExportRequest request) {
+        try {
+            // 去重并保持请求顺序，保证ZIP条目顺序固定
+            List<Long> taskIds = new ArrayList<>(new LinkedHashSet<>(request.getTaskIds()));
+            List<ExportDataType> dataTypes = request.getTypes().stream()
+                    .map(ExportDataType::fromParam)
+                    .distinct()
+                    .collect(Collectors.toList());
+            ExportFormat exportFormat = ExportFormat.fromParam(request.getFormat());
+            List<CrawlerTask> tasks = crawlerTaskService.getTasksByIds(taskIds);
 
-        if (value instanceof String) {
-            cell.setCellValue((String) value);
-        } else if (value instanceof Double) {
-            cell.setCellValue((Double) value);
-        } else if (value instanceof Integer) {
-            cell.setCellValue((Integer) value);
-        } else {
-            cell.setCellValue(value.toString());
-        }
-    }
+            StreamingResponseBody body = out -> bulkExportService.writeZip(tasks, dataTypes, exportFormat,
+                    request.isExpand(), out);
 
-    // 处理日期类型并设置日期格式（支持Date/LocalDateTime/LocalDate）
-    private void setCellValue(Cell cell, Object dateObj, Workbook workbook) {
-        if (dateObj == null) {
-            cell.setCellValue("");
-            return;
-        }
+            String fileName = "批量导出_" + new SimpleDateFormat("yyyyMMddHHmmss").format(new Date()) + ".zip";
+            HttpHeaders headers = new HttpHeaders();
+            headers.add("Content-Disposition", "attachment; filename=" +
+                    URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20"));
+            headers.add("Content-Type", "application/zip");
 
-        Date date;
-        if (dateObj instanceof LocalDateTime) {
-            // LocalDateTime转换为Date
-            LocalDateTime localDateTime = (LocalDateTime) dateObj;
-            date = Date.from(localDateTime.atZone(ZoneId.systemDefault()).toInstant());
-        } else if (dateObj instanceof LocalDate) {
-            // LocalDate转换为Date
-            LocalDate localDate = (LocalDate) dateObj;
-            date = Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
-        } else if (dateObj instanceof Date) {
-            // 直接使用Date
-            date = (Date) dateObj;
-        } else {
-            // 无法识别的日期类型，转为字符串
-            cell.setCellValue(dateObj.toString());
-            return;
+            return ResponseEntity
+                    .ok()
+                    .headers(headers)
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            String message = "导出参数错误: " + e.getMessage();
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            e.printStackTrace();
+            String message = "批量导出失败: " + e.getMessage();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
         }
-
-        // 设置日期值和格式
-        cell.setCellValue(date);
-        CellStyle dateStyle = workbook.createCellStyle();
-        CreationHelper createHelper = workbook.getCreationHelper();
-        dateStyle.setDataFormat(createHelper.createDataFormat().getFormat("yyyy-MM-dd HH:mm:ss"));
-        cell.setCellStyle(dateStyle);
     }
 
-    // 更新Excel文件，先清除原有数据再写入新数据
-    private void updateExcelFile(String filePath, List<AsinPriceRank> priceRanks, List<AsinReview> reviews) throws IOException {
-        File file = new File(filePath);
-        if (!file.exists()) {
-            throw new FileNotFoundException("Excel文件不存在: " + filePath);
-        }
-
-        // 读取Excel文件
-        Workbook workbook = WorkbookFactory.create(new FileInputStream(file));
-
-        // 处理"价格与排名数据"sheet
-        Sheet priceSheet = workbook.getSheet("价格与排名数据");
-        if (priceSheet == null) {
-            priceSheet = workbook.createSheet("价格与排名数据");
-        } else {
-            // 清除原有数据（保留表头）
-            int lastRowNum = priceSheet.getLastRowNum();
-            for (int i = priceSheet.getFirstRowNum() + 1; i <= lastRowNum; i++) {
-                Row row = priceSheet.getRow(i);
-                if (row != null) {
-                    priceSheet.removeRow(row);
-                }
-            }
-        }
-
-        // 写入价格与排名数据的表头
-        String[] priceHeaders = {"ASIN", "品牌", "原价", "LD折扣", "BD折扣", "优惠券", "直降%",
-                "会员价", "会员最终价", "非会员最终价", "大类目", "大类目排名", "小类目", "小类目排名", "爬取时间"};
-        Row priceHeaderRow = priceSheet.createRow(0);
-        for (int i = 0; i < priceHeaders.length; i++) {
-            Cell cell = priceHeaderRow.createCell(i);
-            cell.setCellValue(priceHeaders[i]);
-        }
-
-        // 写入价格与排名数据
-        for (int i = 0; i < priceRanks.size(); i++) {
-            AsinPriceRank rank = priceRanks.get(i);
-            Row dataRow = priceSheet.createRow(i + 1);
-
-            setCellValue(dataRow.createCell(0), rank.getAsin());
-            setCellValue(dataRow.createCell(1), rank.getBrand());
-            setCellValue(dataRow.createCell(2), rank.getOriginalPrice());
-            setCellValue(dataRow.createCell(3), rank.getLdDiscount());
-            setCellValue(dataRow.createCell(4), rank.getBdDiscount());
-            setCellValue(dataRow.createCell(5), rank.getCoupon());
-            setCellValue(dataRow.createCell(6), rank.getDirectDiscount());
-            setCellValue(dataRow.createCell(7), rank.getMemberPrice());
-            setCellValue(dataRow.createCell(8), rank.getMemberFinalPrice());
-            setCellValue(dataRow.createCell(9), rank.getNonMemberFinalPrice());
-            setCellValue(dataRow.createCell(10), rank.getMainCategory());
-            setCellValue(dataRow.createCell(11), rank.getMainCategoryRank());
-            setCellValue(dataRow.createCell(12), rank.getSubCategory());
-            setCellValue(dataRow.createCell(13), rank.getSubCategoryRank());
-            setCellValue(dataRow.createCell(14), rank.getCrawlTime(), workbook);
-        }
-
-        // 处理"评论数据"sheet
-        Sheet reviewSheet = workbook.getSheet("评论数据");
-        if (reviewSheet == null) {
-            reviewSheet = workbook.createSheet("评论数据");
-        } else {
-            // 清除原有数据（保留表头）
-            int lastRowNum = reviewSheet.getLastRowNum();
-            for (int i = reviewSheet.getFirstRowNum() + 1; i <= lastRowNum; i++) {
-                Row row = reviewSheet.getRow(i);
-                if (row != null) {
-                    reviewSheet.removeRow(row);
-                }
-            }
-        }
-
-        // 写入评论数据的表头
-        String[] reviewHeaders = {"ASIN", "品牌", "评论者", "评论日期", "评论内容", "爬取时间"};
-        Row reviewHeaderRow = reviewSheet.createRow(0);
-        for (int i = 0; i < reviewHeaders.length; i++) {
-            Cell cell = reviewHeaderRow.createCell(i);
-            cell.setCellValue(reviewHeaders[i]);
-        }
-
-        // 写入评论数据
-        for (int i = 0; i < reviews.size(); i++) {
-            AsinReview review = reviews.get(i);
-            Row dataRow = reviewSheet.createRow(i + 1);
-
-            setCellValue(dataRow.createCell(0), review.getAsin());
-            setCellValue(dataRow.createCell(1), review.getBrand());
-            setCellValue(dataRow.createCell(2), review.getReviewerName());
-            setCellValue(dataRow.createCell(3), review.getReviewDate(), workbook);
-            setCellValue(dataRow.createCell(4), review.getReviewContent());
-            setCellValue(dataRow.createCell(5), review.getCrawlTime(), workbook);
-        }
-
-        // 自动调整列宽
-        for (int i = 0; i < priceHeaders.length; i++) {
-            priceSheet.autoSizeColumn(i);
-        }
-        for (int i = 0; i < reviewHeaders.length; i++) {
-            reviewSheet.autoSizeColumn(i);
-        }
-
-        // 保存文件
-        try (FileOutputStream fileOut = new FileOutputStream(filePath)) {
-            workbook.write(fileOut);
+    // 提交数据分析任务（更新Excel和PPT），同一任务已有分析在进行时返回已有的分析任务；
+    // mode=incremental（默认）只并入上次分析之后的新数据，mode=full 全量重建
+    @PostMapping("/{id}/analyze")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<AnalysisJobDTO>> analyzeTaskData(
+            @PathVariable Long id,
+            @RequestParam(value = "mode", defaultValue = "incremental") String mode) {
+        if (!"incremental".equalsIgnoreCase(mode) && !"full".equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("不支持的分析方式: " + mode);
         }
-
-        // 关闭工作簿
-        workbook.close();
+        AnalysisJob job = analysisJobService.submit(id, "full".equalsIgnoreCase(mode));
+        return ResponseEntity.ok(ResponseDTO.success("数据分析已启动", AnalysisJobDTO.fromEntity(job)));
     }
 
-    // 执行Python脚本更新PPT
-    private void executePythonScript(String pptPath, String excelPath) throws IOException, InterruptedException {
-        // 指定Python脚本文件路径
-        String pythonScriptPath = "D:\\工作记录\\test_python（爬虫）\\ppt_updates\\update_ppt.py";
-
-        // 检查脚本文件是否存在
-        File scriptFile = new File(pythonScriptPath);
-        if (!scriptFile.exists()) {
-            throw new FileNotFoundException("Python脚本文件不存在: " + pythonScriptPath);
+    // 下载分析后的PPT，version 为空时返回最新版本（支持 ETag/Last-Modified 条件请求与断点续传）
+    @GetMapping("/{id}/analyze/ppt")
+    @PreAuthorize("hasRole('USER')")
+    public void downloadAnalyzedPPT(@PathVariable Long id,
+                                    @RequestParam(value = "version", required = false) Long version,
+                                    HttpServletRequest request,
+                                    HttpServletResponse response) throws IOException {
+        Path report = reportArtifactStore.find(id, version);
+        if (report == null) {
+            throw new JobNotFoundException("该任务没有可下载的分析报告");
         }
+        Long reportVersion = reportArtifactStore.versionOf(report);
+        String fileName = "数据分析报告_" + id + "_" + reportVersion + ".pptx";
+        FileTransferUtils.sendFile(request, response, report, fileName,
+                "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+                "\"report-" + id + "-" + reportVersion + "\"");
+    }
 
-        // 执行Python脚本，传递PPT和Excel路径作为参数
-        ProcessBuilder pb = new ProcessBuilder(
-                "python",
-                pythonScriptPath,
-                pptPath,  // 第一个参数：PPT文件路径
-                excelPath // 第二个参数：Excel文件路径
-        );
-
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
-
-        // 读取输出
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                System.out.println("Python输出: " + line);
-            }
-        }
+    // 查询数据分析状态：QUEUED / RUNNING / COMPLETED / FAILED，没有分析记录时为 NOT_STARTED
+    @GetMapping("/{id}/analyze/status")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<String>> getAnalyzeStatus(@PathVariable Long id) {
+        return ResponseEntity.ok(ResponseDTO.success("查询状态成功", analysisJobService.getStatus(id)));
+    }
 
-        // 等待脚本执行完成
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new RuntimeException("Python脚本执行失败，退出码: " + exitCode);
-        }
+    // 查询最近一次数据分析任务详情（含进度）
+    @GetMapping("/{id}/analyze/job")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<AnalysisJobDTO>> getAnalyzeJob(@PathVariable Long id) {
+        AnalysisJob job = analysisJobService.getLatestJob(id);
+        return ResponseEntity.ok(ResponseDTO.success("查询分析任务成功", AnalysisJobDTO.fromEntity(job)));
     }
-}
\ No newline at end of file
+}
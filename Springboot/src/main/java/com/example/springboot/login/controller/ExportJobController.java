@@ -0,0 +1,71 @@
+package com.example.springboot.login.controller;
+
+import com.example.springboot.login.dto.ExportJobDTO;
+import com.example.springboot.login.dto.ExportJobRequest;
+import com.example.springboot.login.dto.ResponseDTO;
+import com.example.springboot.login.entity.ExportJob;
+import com.example.springboot.login.export.ExportDataType;
+import com.example.springboot.login.export.ExportFormat;
+import com.example.springboot.login.service.ExportJobService;
+import com.example.springboot.login.util.FileTransferUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/crawler/export-jobs")
+public class ExportJobController {
+
+    private final ExportJobService exportJobService;
+
+    @Autowired
+    public ExportJobController(ExportJobService exportJobService) {
+        this.exportJobService = exportJobService;
+    }
+
+    // 提交异步导出任务
+    @PostMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<ExportJobDTO>> submitExportJob(@Valid @RequestBody ExportJobRequest request) {
+        ExportJob job = exportJobService.submit(
+                request.getTaskId(),
+                ExportDataType.fromParam(request.getType()),
+                ExportFormat.fromParam(request.getFormat()),
+                request.isGzip(),
+                request.isExpand());
+
+        return ResponseEntity.accepted().body(
+                ResponseDTO.success("导出任务已提交", ExportJobDTO.fromEntity(job))
+        );
+    }
+
+    // 查询导出任务状态
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ResponseDTO<ExportJobDTO>> getExportJob(@PathVariable Long jobId) {
+        ExportJob job = exportJobService.getJob(jobId);
+        return ResponseEntity.ok(
+                ResponseDTO.success("导出任务获取成功", ExportJobDTO.fromEntity(job))
+        );
+    }
+
+    // 下载导出文件（支持 Range 断点续传）
+    @GetMapping("/{jobId}/file")
+    @PreAuthorize("hasRole('USER')")
+    public void downloadExportFile(@PathVariable Long jobId,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        ExportJob job = exportJobService.getJob(jobId);
+        FileTransferUtils.sendFile(request, response,
+                exportJobService.getArtifact(job),
+                job.getFileName(),
+                exportJobService.contentType(job),
+                exportJobService.etag(job));
+    }
+}
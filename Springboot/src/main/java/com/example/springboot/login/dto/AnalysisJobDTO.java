@@ -0,0 +1,45 @@
+package com.example.springboot.login.dto;
+
+import com.example.springboot.login.entity.AnalysisJob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalysisJobDTO {
+
+    private Long id;
+    private Long taskId;
+    private String status;
+    private int progress;
+    private String mode;
+    private String errorMessage;
+    private LocalDateTime createTime;
+    private LocalDateTime startTime;
+    private LocalDateTime finishTime;
+    private String reportUrl; // 分析完成后该版本报告的下载地址
+
+    // 从实体类转换为DTO
+    public static AnalysisJobDTO fromEntity(AnalysisJob job) {
+        AnalysisJobDTO dto = new AnalysisJobDTO();
+        dto.setId(job.getId());
+        dto.setTaskId(job.getTaskId());
+        dto.setStatus(job.getStatus());
+        dto.setProgress(job.getProgress());
+        dto.setMode(job.getMode());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setCreateTime(job.getCreateTime());
+        dto.setStartTime(job.getStartTime());
+        dto.setFinishTime(job.getFinishTime());
+
+        if ("COMPLETED".equals(job.getStatus())) {
+            dto.setReportUrl("/api/crawler/tasks/" + job.getTaskId() + "/analyze/ppt?version=" + job.getId());
+        }
+
+        return dto;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.springboot.login.dto;
+
+import com.example.springboot.login.entity.AsinPriceDaily;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AsinPriceDailyDTO {
+
+    private String asin;
+    private LocalDate statDate;
+    private long sampleCount;
+    private Double memberPriceMin;
+    private Double memberPriceMax;
+    private Double memberPriceAvg;
+    private Double nonMemberPriceMin;
+    private Double nonMemberPriceMax;
+    private Double nonMemberPriceAvg;
+    private Integer bestSubCategoryRank;
+    private Integer worstSubCategoryRank;
+
+    // 从实体类转换为DTO，平均值由合计与非空记录数计算
+    public static AsinPriceDailyDTO fromEntity(AsinPriceDaily entity) {
+        AsinPriceDailyDTO dto = new AsinPriceDailyDTO();
+        dto.setAsin(entity.getAsin());
+        dto.setStatDate(entity.getStatDate());
+        dto.setSampleCount(entity.getSampleCount());
+        dto.setMemberPriceMin(entity.getMemberPriceMin());
+        dto.setMemberPriceMax(entity.getMemberPriceMax());
+        dto.setMemberPriceAvg(entity.getMemberPriceCount() == 0 ? null
+                : entity.getMemberPriceSum() / entity.getMemberPriceCount());
+        dto.setNonMemberPriceMin(entity.getNonMemberPriceMin());
+        dto.setNonMemberPriceMax(entity.getNonMemberPriceMax());
+        dto.setNonMemberPriceAvg(entity.getNonMemberPriceCount() == 0 ? null
+                : entity.getNonMemberPriceSum() / entity.getNonMemberPriceCount());
+        dto.setBestSubCategoryRank(entity.getBestSubCategoryRank());
+        dto.setWorstSubCategoryRank(entity.getWorstSubCategoryRank());
+        return dto;
+    }
+}
@@ -6,8 +6,13 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+// 全参构造函数用于JPQL构造函数投影（见 AsinPriceRankRepository.SELECT_DTO），调整字段顺序时需同步修改查询
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,6 +35,70 @@ public class AsinPriceRankDTO {
     private Integer subCategoryRank;
     private LocalDateTime crawlTime;
     private Long taskId; // 任务ID
+    private LocalDateTime lastSeenTime; // 连续相同观测的最后一次观测时间，只有一次观测时为空
+    private Integer seenCount; // 本行代表的观测次数
+
+    // 不含连续观测字段的投影（如最新价格表）
+    public AsinPriceRankDTO(Long id, String asin, String brand, Double originalPrice, Double ldDiscount,
+                            Double bdDiscount, Double memberPrice, Double memberFinalPrice,
+                            Double nonMemberFinalPrice, Double coupon, Double directDiscount, String mainCategory,
+                            Integer mainCategoryRank, String subCategory, Integer subCategoryRank,
+                            LocalDateTime crawlTime, Long taskId) {
+        this(id, asin, brand, originalPrice, ldDiscount, bdDiscount, memberPrice, memberFinalPrice,
+                nonMemberFinalPrice, coupon, directDiscount, mainCategory, mainCategoryRank, subCategory,
+                subCategoryRank, crawlTime, taskId, null, 1);
+    }
+
+    // 展开为观测点：多次观测的行展开为 seenCount 个点，与逐次保存时的行数一致，时间见 observationTime
+    public Stream<AsinPriceRankDTO> expand() {
+        if (seenCount == null || seenCount <= 1) {
+            return Stream.of(this);
+        }
+        int points = seenCount;
+        return IntStream.range(0, points).mapToObj(i -> {
+            AsinPriceRankDTO point = copy();
+            point.setCrawlTime(observationTime(crawlTime, lastSeenTime, points, i));
+            point.setLastSeenTime(null);
+            point.setSeenCount(1);
+            return point;
+        });
+    }
+
+    // 多次观测的行中第 index 次（从0开始）观测的时间，导出展开与价格序列（PriceSeriesService）共用。
+    // 中间观测的时间未单独保存，按定时爬取在第一次与最后一次观测之间均匀分布
+    public static LocalDateTime observationTime(LocalDateTime crawlTime, LocalDateTime lastSeenTime,
+                                                int seenCount, int index) {
+        if (crawlTime == null || seenCount <= 1 || index == 0) {
+            return crawlTime;
+        }
+        long spanNanos = lastSeenTime == null || lastSeenTime.isBefore(crawlTime)
+                ? 0 : Duration.between(crawlTime, lastSeenTime).toNanos();
+        return index == seenCount - 1 && spanNanos > 0 ? lastSeenTime
+                : crawlTime.plusNanos(spanNanos / (seenCount - 1) * index);
+    }
+
+    public AsinPriceRankDTO copy() {
+        return new AsinPriceRankDTO(id, asin, brand, originalPrice, ldDiscount, bdDiscount, memberPrice,
+                memberFinalPrice, nonMemberFinalPrice, coupon, directDiscount, mainCategory, mainCategoryRank,
+                subCategory, subCategoryRank, crawlTime, taskId, lastSeenTime, seenCount);
+    }
+
+    // 与另一次观测相比，除爬取时间外的取值是否完全相同
+    public boolean sameValues(AsinPriceRankDTO other) {
+        return Objects.equals(brand, other.brand)
+                && Objects.equals(originalPrice, other.originalPrice)
+                && Objects.equals(ldDiscount, other.ldDiscount)
+                && Objects.equals(bdDiscount, other.bdDiscount)
+                && Objects.equals(memberPrice, other.memberPrice)
+                && Objects.equals(memberFinalPrice, other.memberFinalPrice)
+                && Objects.equals(nonMemberFinalPrice, other.nonMemberFinalPrice)
+                && Objects.equals(coupon, other.coupon)
+                && Objects.equals(directDiscount, other.directDiscount)
+                && Objects.equals(mainCategory, other.mainCategory)
+                && Objects.equals(mainCategoryRank, other.mainCategoryRank)
+                && Objects.equals(subCategory, other.subCategory)
+                && Objects.equals(subCategoryRank, other.subCategoryRank);
+    }
 
     // 从实体类转换为DTO
     public static AsinPriceRankDTO fromEntity(AsinPriceRank entity) {
@@ -50,6 +119,8 @@ public class AsinPriceRankDTO {
         dto.setSubCategory(entity.getSubCategory());
         dto.setSubCategoryRank(entity.getSubCategoryRank());
         dto.setCrawlTime(entity.getCrawlTime());
+        dto.setLastSeenTime(entity.getLastSeenTime());
+        dto.setSeenCount(entity.getSeenCount());
 
         // 提取任务ID
         if (entity.getTask() != null) {
@@ -78,6 +149,8 @@ public class AsinPriceRankDTO {
         entity.setSubCategory(this.getSubCategory());
         entity.setSubCategoryRank(this.getSubCategoryRank());
         entity.setCrawlTime(this.getCrawlTime());
+        entity.setLastSeenTime(this.getLastSeenTime());
+        entity.setSeenCount(this.getSeenCount() == null ? 1 : this.getSeenCount());
 
         // 设置任务关联
         entity.setTask(task);
@@ -0,0 +1,26 @@
+package com.example.springboot.login.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// 评论列表项：不包含评论正文和图片（大字段），需要时通过评论详情接口获取
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AsinReviewListDTO {
+
+    private Long id;
+    private String asin;
+    private String brand;
+    private String reviewId;
+    private String reviewerName;
+    private String reviewTitle;
+    private Double reviewRating;
+    private String reviewDate;
+    private Integer helpfulVotes;
+    private LocalDateTime crawlTime;
+    private Long taskId; // 任务ID
+}
@@ -0,0 +1,22 @@
+package com.example.springboot.login.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkExportRequest {
+
+    @NotEmpty(message = "请至少选择一个任务")
+    @Size(max = 200, message = "单次最多导出200个任务")
+    private List<Long> taskIds;
+
+    @NotEmpty(message = "请至少选择一种导出数据类型")
+    private List<String> types; // price-rank / reviews
+
+    private String format = "xlsx"; // xlsx / csv / ndjson
+
+    private boolean expand; // 价格数据是否展开为观测点
+}
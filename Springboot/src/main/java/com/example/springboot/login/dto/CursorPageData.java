@@ -0,0 +1,18 @@
+package com.example.springboot.login.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// 游标分页结果：不返回总数，通过 nextCursor 获取下一页
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageData<T> {
+    private List<T> records;     // 当前页数据
+    private int pageSize;        // 每页大小
+    private boolean hasMore;     // 是否还有下一页
+    private String nextCursor;   // 下一页游标，没有下一页时为null
+}
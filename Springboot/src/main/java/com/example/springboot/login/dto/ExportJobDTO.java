@@ -0,0 +1,55 @@
+package com.example.springboot.login.dto;
+
+import com.example.springboot.login.entity.ExportJob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobDTO {
+
+    private Long id;
+    private Long taskId;
+    private String dataType;
+    private String format;
+    private boolean gzip;
+    private boolean expand;
+    private String status;
+    private String fileName;
+    private Long fileSize;
+    private Long rowCount;
+    private String errorMessage;
+    private LocalDateTime createTime;
+    private LocalDateTime startTime;
+    private LocalDateTime finishTime;
+    private String downloadUrl; // 导出完成后的下载地址
+
+    // 从实体类转换为DTO
+    public static ExportJobDTO fromEntity(ExportJob job) {
+        ExportJobDTO dto = new ExportJobDTO();
+        dto.setId(job.getId());
+        dto.setTaskId(job.getTaskId());
+        dto.setDataType(job.getDataType());
+        dto.setFormat(job.getFormat());
+        dto.setGzip(job.isGzip());
+        dto.setExpand(job.isExpand());
+        dto.setStatus(job.getStatus());
+        dto.setFileName(job.getFileName());
+        dto.setFileSize(job.getFileSize());
+        dto.setRowCount(job.getRowCount());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setCreateTime(job.getCreateTime());
+        dto.setStartTime(job.getStartTime());
+        dto.setFinishTime(job.getFinishTime());
+
+        if ("COMPLETED".equals(job.getStatus())) {
+            dto.setDownloadUrl("/api/crawler/export-jobs/" + job.getId() + "/file");
+        }
+
+        return dto;
+    }
+}
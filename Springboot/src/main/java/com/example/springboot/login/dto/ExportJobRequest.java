@@ -0,0 +1,21 @@
+package com.example.springboot.login.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class ExportJobRequest {
+
+    @NotNull(message = "任务ID不能为空")
+    private Long taskId;
+
+    @NotBlank(message = "导出数据类型不能为空")
+    private String type; // price-rank / reviews
+
+    private String format = "xlsx"; // xlsx / csv / ndjson
+
+    private boolean gzip;
+
+    private boolean expand; // 价格数据是否展开为观测点
+}
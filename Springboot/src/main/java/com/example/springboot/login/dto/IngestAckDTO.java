@@ -0,0 +1,37 @@
+package com.example.springboot.login.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 流式写入的响应行：每提交一批输出一行 ack，结束时输出一行 done 或 error
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestAckDTO {
+
+    public static final String TYPE_ACK = "ack";
+    public static final String TYPE_DONE = "done";
+    public static final String TYPE_ERROR = "error";
+
+    private String type;
+    private Integer batch;            // 批次序号（从1开始），仅 ack
+    private long committedOffset;     // 已提交的记录数，断开后从该偏移量继续发送
+    private Integer priceRankCount;   // 本批写入的价格记录数，仅 ack
+    private Integer reviewCount;      // 本批写入的评论数，仅 ack
+    private String message;           // 错误原因，仅 error
+
+    public static IngestAckDTO ack(int batch, long committedOffset, int priceRankCount, int reviewCount) {
+        return new IngestAckDTO(TYPE_ACK, batch, committedOffset, priceRankCount, reviewCount, null);
+    }
+
+    public static IngestAckDTO done(long committedOffset) {
+        return new IngestAckDTO(TYPE_DONE, null, committedOffset, null, null, null);
+    }
+
+    public static IngestAckDTO error(long committedOffset, String message) {
+        return new IngestAckDTO(TYPE_ERROR, null, committedOffset, null, null, message);
+    }
+}
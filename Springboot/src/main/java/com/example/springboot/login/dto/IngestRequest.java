@@ -0,0 +1,13 @@
+package com.example.springboot.login.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 批量写入爬取结果：同一请求中的数据都属于路径中的任务，记录中的 id、taskId 字段忽略
+@Data
+public class IngestRequest {
+    private List<AsinPriceRankDTO> priceRanks = new ArrayList<>();
+    private List<AsinReviewDTO> reviews = new ArrayList<>();
+}
@@ -0,0 +1,13 @@
+package com.example.springboot.login.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestResultDTO {
+    private int priceRankCount; // 写入的价格记录数
+    private int reviewCount;    // 写入的评论数
+}
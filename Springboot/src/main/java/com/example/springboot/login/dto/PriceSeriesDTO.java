@@ -0,0 +1,27 @@
+package com.example.springboot.login.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 单个ASIN的价格/排名时间序列（已降采样），时间为爬取时间按UTC换算的毫秒时间戳
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceSeriesDTO {
+
+    private String asin;
+    private long rawCount;              // 时间范围内的原始价格记录数
+    private Series nonMemberFinalPrice; // 非会员最终价
+    private Series memberFinalPrice;    // 会员最终价
+    private Series subCategoryRank;     // 小类目排名
+
+    // times 与 values 一一对应，按时间递增；原始值为空的记录不计入该序列
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Series {
+        private long[] times;
+        private double[] values;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.springboot.login.dto;
+
+import lombok.Data;
+
+// 评论全文搜索的单条命中，完整评论通过评论详情接口获取
+@Data
+public class ReviewSearchHitDTO {
+    private Long id;               // 评论记录ID
+    private String asin;
+    private Double reviewRating;
+    private float score;           // 相关度得分，结果按得分从高到低排列
+    private String titleHighlight;   // 标题，命中词用 <em> 标记
+    private String contentHighlight; // 正文中最相关的片段，命中词用 <em> 标记
+}
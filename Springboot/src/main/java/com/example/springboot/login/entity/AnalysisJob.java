@@ -0,0 +1,50 @@
+package com.example.springboot.login.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "analysis_job", indexes = {
+        @Index(name = "idx_analysis_job_task", columnList = "task_id"),
+        @Index(name = "idx_analysis_job_status_finish", columnList = "status, finish_time")
+})
+public class AnalysisJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long taskId;
+
+    @Column(nullable = false)
+    private Long userId; // 发起分析的用户
+
+    @Column(nullable = false)
+    private String status; // 任务状态：QUEUED, RUNNING, COMPLETED, FAILED
+
+    private int progress; // 进度百分比（0-100）
+
+    @Column(length = 16)
+    private String mode; // 分析方式：INCREMENTAL（增量）, FULL（全量重建）
+
+    @Column(length = 64)
+    private String owner; // 执行该任务的服务实例
+
+    @Column(length = 1024)
+    private String errorMessage;
+
+    @Column(nullable = false)
+    private LocalDateTime createTime;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime finishTime;
+}
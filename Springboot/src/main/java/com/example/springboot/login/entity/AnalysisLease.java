@@ -0,0 +1,32 @@
+package com.example.springboot.login.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// 分析任务租约：每个爬虫任务同一时间只能有一条有效租约，多实例部署时用于防止重复分析
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "analysis_lease", indexes = {
+        @Index(name = "idx_analysis_lease_job", columnList = "job_id"),
+        @Index(name = "idx_analysis_lease_owner", columnList = "owner")
+})
+public class AnalysisLease {
+
+    @Id
+    private Long taskId;
+
+    @Column(nullable = false)
+    private Long jobId; // 持有租约的分析任务
+
+    @Column(nullable = false, length = 64)
+    private String owner; // 持有租约的服务实例
+
+    @Column(nullable = false)
+    private LocalDateTime expireTime; // 到期时间（数据库时间），持有方定期续约
+}
@@ -0,0 +1,51 @@
+package com.example.springboot.login.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// 每个任务中每个ASIN的最新一条价格数据（按爬取时间，相同时取ID较大者），与日汇总一起随价格数据写入增量维护，
+// 查询当前价格时每个ASIN只读一行，无需在原始价格数据上按ASIN取最大爬取时间
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "asin_latest_price", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_asin_latest_price", columnNames = {"task_id", "asin"})
+})
+public class AsinLatestPrice {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long taskId;
+
+    @Column(nullable = false)
+    private String asin;
+
+    @Column(nullable = false)
+    private Long priceRankId; // 对应的原始价格记录ID
+
+    private String brand;
+    private Double originalPrice;
+    private Double ldDiscount;
+    private Double bdDiscount;
+    private Double memberPrice;
+    private Double memberFinalPrice;
+    private Double nonMemberFinalPrice;
+    private Double coupon;
+    private Double directDiscount;
+    private String mainCategory;
+    private Integer mainCategoryRank;
+    private String subCategory;
+    private Integer subCategoryRank;
+
+    private LocalDateTime crawlTime;
+
+    private LocalDateTime updateTime;
+}
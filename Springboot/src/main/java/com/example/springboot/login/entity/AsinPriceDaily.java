@@ -0,0 +1,53 @@
+package com.example.springboot.login.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 价格与排名按 (任务, ASIN, 爬取日期) 预聚合的日汇总，新价格数据写入后增量累加，
+// 图表查询直接读取本表，无需扫描原始价格数据
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "asin_price_daily", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_asin_price_daily", columnNames = {"task_id", "asin", "stat_date"})
+})
+public class AsinPriceDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long taskId;
+
+    @Column(nullable = false)
+    private String asin;
+
+    @Column(nullable = false)
+    private LocalDate statDate; // 爬取日期
+
+    private long sampleCount; // 当日价格记录数
+
+    // 会员最终价：最小、最大、合计及非空记录数（平均值 = 合计 / 记录数）
+    private Double memberPriceMin;
+    private Double memberPriceMax;
+    private double memberPriceSum;
+    private long memberPriceCount;
+
+    // 非会员最终价
+    private Double nonMemberPriceMin;
+    private Double nonMemberPriceMax;
+    private double nonMemberPriceSum;
+    private long nonMemberPriceCount;
+
+    private Integer bestSubCategoryRank; // 当日最好（数值最小）的小类目排名
+    private Integer worstSubCategoryRank; // 当日最差（数值最大）的小类目排名
+
+    private LocalDateTime updateTime;
+}
@@ -1,5 +1,6 @@
 package com.example.springboot.login.entity;
 
+import com.example.springboot.login.event.CrawlDataEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -11,7 +12,16 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "asin_price_rank")
+@Table(name = "asin_price_rank", indexes = {
+        // 游标分页：按爬取时间、价格、排名排序及按ASIN筛选
+        @Index(name = "idx_price_rank_task_crawl_time", columnList = "task_id, crawl_time, id"),
+        @Index(name = "idx_price_rank_task_asin_crawl_time", columnList = "task_id, asin, crawl_time, id"),
+        @Index(name = "idx_price_rank_task_price", columnList = "task_id, non_member_final_price, id"),
+        @Index(name = "idx_price_rank_task_rank", columnList = "task_id, sub_category_rank, id"),
+        // 按ID水位增量读取（日汇总、增量分析）
+        @Index(name = "idx_price_rank_task_id", columnList = "task_id, id")
+})
+@EntityListeners(CrawlDataEntityListener.class)
 public class AsinPriceRank {
 
     @Id
@@ -37,6 +47,13 @@ public class AsinPriceRank {
 
     private LocalDateTime crawlTime;
 
+    // 仅记录变化模式下，取值与上一次完全相同的观测不再新增行，而是延长本行：
+    // lastSeenTime 为最后一次观测时间（只有一次观测时为空），seenCount 为观测次数
+    private LocalDateTime lastSeenTime;
+
+    @Column(columnDefinition = "INT NOT NULL DEFAULT 1")
+    private Integer seenCount = 1;
+
     @ManyToOne
     @JoinColumn(name = "task_id", nullable = false)
     private CrawlerTask task;
@@ -1,5 +1,6 @@
 package com.example.springboot.login.entity;
 
+import com.example.springboot.login.event.CrawlDataEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -11,7 +12,17 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "asin_review")
+@Table(name = "asin_review", uniqueConstraints = {
+        // 同一任务内评论按 (asin, reviewId) 去重，reviewId 为空的不受约束
+        @UniqueConstraint(name = "uk_review_task_asin_review", columnNames = {"task_id", "asin", "review_id"})
+}, indexes = {
+        // 按任务查询评论及游标分页（按ASIN筛选 / 全部ASIN）
+        @Index(name = "idx_review_task_asin_crawl_time", columnList = "task_id, asin, crawl_time, id"),
+        @Index(name = "idx_review_task_crawl_time", columnList = "task_id, crawl_time, id"),
+        // 按ID水位增量读取（索引、分析）
+        @Index(name = "idx_review_task_id", columnList = "task_id, id")
+})
+@EntityListeners(CrawlDataEntityListener.class)
 public class AsinReview {
 
     @Id
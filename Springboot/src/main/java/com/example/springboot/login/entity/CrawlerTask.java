@@ -22,8 +22,8 @@ public class CrawlerTask {
     @Column(nullable = false)
     private String processName; // 流程名称
 
-    @Column(nullable = false, length = 4096)
-    private String asinList; // ASIN列表，逗号分隔
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String asinList; // ASIN列表，逗号分隔；按ASIN查询使用拆分后的 task_asin 表
 
     @ElementCollection
     @CollectionTable(name = "crawler_task_required_info", joinColumns = @JoinColumn(name = "task_id"))
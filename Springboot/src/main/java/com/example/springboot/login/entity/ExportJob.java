@@ -0,0 +1,62 @@
+package com.example.springboot.login.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "export_job", indexes = {
+        @Index(name = "idx_export_job_status_finish", columnList = "status, finish_time")
+})
+public class ExportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long taskId;
+
+    @Column(nullable = false)
+    private Long userId; // 提交导出的用户
+
+    @Column(nullable = false)
+    private String dataType; // price-rank / reviews
+
+    @Column(nullable = false)
+    private String format; // xlsx / csv / ndjson
+
+    private boolean gzip;
+
+    private boolean expand; // 价格数据是否展开为观测点
+
+    @Column(nullable = false)
+    private String status; // 任务状态：QUEUED, RUNNING, COMPLETED, FAILED
+
+    @Column(length = 64)
+    private String owner; // 执行该任务的服务实例
+
+    private String fileName; // 下载时使用的文件名
+
+    private String filePath; // 导出文件在本地产物目录中的路径
+
+    private Long fileSize;
+
+    private Long rowCount;
+
+    @Column(length = 1024)
+    private String errorMessage;
+
+    @Column(nullable = false)
+    private LocalDateTime createTime;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime finishTime;
+}
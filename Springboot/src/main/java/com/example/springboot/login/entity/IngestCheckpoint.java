@@ -0,0 +1,35 @@
+package com.example.springboot.login.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// 流式写入的检查点：记录每个写入流（客户端指定的 streamId）已提交的记录数，与每批数据在同一事务中推进，
+// 客户端断开后从 committedOffset 继续发送即可，不会重复写入
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "ingest_checkpoint", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_ingest_checkpoint", columnNames = {"task_id", "stream_id"})
+})
+public class IngestCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long taskId;
+
+    @Column(nullable = false, length = 64)
+    private String streamId;
+
+    @Column(nullable = false)
+    private long committedOffset; // 已提交的记录数（下一条记录的偏移量）
+
+    private LocalDateTime updateTime;
+}
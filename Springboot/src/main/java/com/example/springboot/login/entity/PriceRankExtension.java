@@ -0,0 +1,30 @@
+package com.example.springboot.login.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 仅记录变化时已有价格行被延长后增加的观测次数，日汇总与增量分析各自按差量并入后扣减，两者都为0时删除。
+// 与延长已有行在同一事务中写入，已并入的行无需因延长而重建
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "price_rank_extension", indexes = {
+        @Index(name = "idx_price_rank_extension_task", columnList = "task_id, price_rank_id")
+})
+public class PriceRankExtension {
+
+    @Id
+    private Long priceRankId; // 被延长的价格记录ID
+
+    @Column(nullable = false)
+    private Long taskId;
+
+    @Column(nullable = false)
+    private int rollupCount; // 尚未累加到日汇总的观测次数
+
+    @Column(nullable = false)
+    private int analysisCount; // 尚未并入分析统计的观测次数
+}
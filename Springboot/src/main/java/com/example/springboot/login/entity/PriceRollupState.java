@@ -0,0 +1,35 @@
+package com.example.springboot.login.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// 任务价格日汇总的维护进度：已汇总的最大价格记录ID、水位附近已汇总的ID及记录数
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "price_rollup_state")
+public class PriceRollupState {
+
+    @Id
+    private Long taskId;
+
+    private long lastPriceRankId; // 已汇总的最大价格记录ID
+
+    @Column(columnDefinition = "LONGTEXT")
+    private String recentPriceRankIds; // 水位之前窗口内已汇总的价格记录ID（IdWindow），用于识别晚提交的数据
+
+    private long rowCount; // 已汇总的价格记录数（累计值）
+
+    @Column(nullable = false)
+    private boolean stale; // 已汇总的数据被修改或删除，下次维护时重建该任务的日汇总
+
+    @Column(columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long dataVersion; // 延长已有价格行时递增，新增行之外的数据变化据此反映到导出缓存键
+
+    private LocalDateTime updateTime;
+}
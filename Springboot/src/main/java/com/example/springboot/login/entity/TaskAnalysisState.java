@@ -0,0 +1,42 @@
+package com.example.springboot.login.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// 任务的增量分析状态：已累计的统计结果及已处理数据的水位（最大ID），下次分析只读取水位之后的数据
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "task_analysis_state")
+public class TaskAnalysisState {
+
+    @Id
+    private Long taskId;
+
+    @Version
+    private Long version; // 数据被修改或删除时通过批量更新标记失效，同时递增版本，避免并发分析写回过期结果
+
+    private Long lastPriceRankId; // 已并入的最大价格记录ID
+    private Long lastReviewId; // 已并入的最大评论ID
+
+    @Column(columnDefinition = "LONGTEXT")
+    private String recentPriceRankIds; // 水位之前窗口内已并入的价格记录ID（IdWindow），用于识别晚提交的数据
+
+    @Column(columnDefinition = "LONGTEXT")
+    private String recentReviewIds; // 水位之前窗口内已并入的评论ID（IdWindow）
+    private LocalDateTime lastCrawlTime; // 已并入价格数据的最新爬取时间
+
+    @Lob
+    @Column(columnDefinition = "LONGTEXT")
+    private String aggregates; // ReportAggregates 的JSON
+
+    @Column(nullable = false)
+    private boolean stale; // 已并入的数据被修改或删除，下次分析需全量重建
+
+    private LocalDateTime updateTime;
+}
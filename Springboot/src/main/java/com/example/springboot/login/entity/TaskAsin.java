@@ -0,0 +1,35 @@
+package com.example.springboot.login.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 任务与ASIN的对应关系，由 CrawlerTask.asinList 拆分维护：
+// 唯一键 (task_id, asin) 用于按任务读取，索引 (asin, task_id) 用于按ASIN反查任务及ASIN前缀搜索
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "task_asin", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_task_asin", columnNames = {"task_id", "asin"})
+}, indexes = {
+        @Index(name = "idx_task_asin_asin", columnList = "asin, task_id")
+})
+public class TaskAsin {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long taskId;
+
+    @Column(nullable = false, length = 32)
+    private String asin;
+
+    public TaskAsin(Long taskId, String asin) {
+        this.taskId = taskId;
+        this.asin = asin;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.springboot.login.event;
+
+import com.example.springboot.login.export.ExportDataType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 任务的爬取数据（价格与排名 / 评论）发生写入、修改或删除
+@Getter
+@AllArgsConstructor
+public class CrawlDataChangedEvent {
+
+    private Long taskId;
+    private ExportDataType dataType;
+    private boolean appendOnly; // 仅新增行；为false时表示已有行被修改或删除，增量结果需要重建
+}
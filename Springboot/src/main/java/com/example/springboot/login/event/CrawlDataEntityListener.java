@@ -0,0 +1,45 @@
+package com.example.springboot.login.event;
+
+import com.example.springboot.login.entity.AsinPriceRank;
+import com.example.springboot.login.entity.AsinReview;
+import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.export.ExportDataType;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+// 价格与评论实体的JPA监听器：数据变化时发布 CrawlDataChangedEvent，供缓存失效等逻辑订阅
+@Component
+public class CrawlDataEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void onInsert(Object entity) {
+        publish(entity, true);
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        publish(entity, false);
+    }
+
+    private void publish(Object entity, boolean appendOnly) {
+        if (entity instanceof AsinPriceRank priceRank) {
+            publish(priceRank.getTask(), ExportDataType.PRICE_RANK, appendOnly);
+        } else if (entity instanceof AsinReview review) {
+            publish(review.getTask(), ExportDataType.REVIEWS, appendOnly);
+        }
+    }
+
+    private void publish(CrawlerTask task, ExportDataType dataType, boolean appendOnly) {
+        if (task != null && task.getId() != null) {
+            eventPublisher.publishEvent(new CrawlDataChangedEvent(task.getId(), dataType, appendOnly));
+        }
+    }
+}
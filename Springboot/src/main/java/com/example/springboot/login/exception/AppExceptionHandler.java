@@ -94,6 +94,49 @@ public class AppExceptionHandler {
                 .body(ResponseDTO.error(ex.getMessage()));
     }
 
+    // 处理后台任务不存在异常
+    @ExceptionHandler(JobNotFoundException.class)
+    public ResponseEntity<ResponseDTO<String>> handleJobNotFoundException(JobNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ResponseDTO.error(ex.getMessage()));
+    }
+
+    // 处理评论不存在异常
+    @ExceptionHandler(ReviewNotFoundException.class)
+    public ResponseEntity<ResponseDTO<String>> handleReviewNotFoundException(ReviewNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ResponseDTO.error(ex.getMessage()));
+    }
+
+    // 处理爬虫任务不存在异常
+    @ExceptionHandler(TaskNotFoundException.class)
+    public ResponseEntity<ResponseDTO<String>> handleTaskNotFoundException(TaskNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ResponseDTO.error(ex.getMessage()));
+    }
+
+    // 处理无权操作任务异常
+    @ExceptionHandler(TaskAccessDeniedException.class)
+    public ResponseEntity<ResponseDTO<String>> handleTaskAccessDeniedException(TaskAccessDeniedException ex) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(ResponseDTO.error(ex.getMessage()));
+    }
+
+    // 处理后台任务状态冲突异常
+    @ExceptionHandler(JobStateException.class)
+    public ResponseEntity<ResponseDTO<String>> handleJobStateException(JobStateException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ResponseDTO.error(ex.getMessage()));
+    }
+
+    // 处理任务队列已满异常
+    @ExceptionHandler(QueueFullException.class)
+    public ResponseEntity<ResponseDTO<String>> handleQueueFullException(QueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "30")
+                .body(ResponseDTO.error(ex.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ResponseDTO<Map<String, String>>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         BindingResult bindingResult = ex.getBindingResult();
@@ -0,0 +1,8 @@
+package com.example.springboot.login.exception;
+
+// 后台任务当前状态不允许该操作（如导出尚未完成时下载）
+public class JobStateException extends RuntimeException {
+    public JobStateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.springboot.login.exception;
+
+// 后台任务队列已满，客户端应稍后重试
+public class QueueFullException extends RuntimeException {
+    public QueueFullException(String message) {
+        super(message);
+    }
+}
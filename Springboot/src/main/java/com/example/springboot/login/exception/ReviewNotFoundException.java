@@ -0,0 +1,7 @@
+package com.example.springboot.login.exception;
+
+public class ReviewNotFoundException extends RuntimeException {
+    public ReviewNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.springboot.login.exception;
+
+public class TaskAccessDeniedException extends RuntimeException {
+    public TaskAccessDeniedException(String message) {
+        super(message);
+    }
+}
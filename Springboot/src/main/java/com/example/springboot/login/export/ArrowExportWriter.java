@@ -0,0 +1,377 @@
+package com.example.springboot.login.export;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.repository.AsinPriceRankRepository;
+import com.example.springboot.login.repository.AsinReviewRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+// Arrow IPC 文件格式写出（pandas.read_feather / polars.read_ipc 可直接读取）。
+// 数值列使用原生定长向量（空值保留为null），asin/品牌/类目做字典编码，
+// 行数据从数据库游标按批（record batch）写出，内存占用与总行数无关。
+// 运行时需要 JVM 参数 --add-opens=java.base/java.nio=ALL-UNNAMED（已配置在打包清单与 spring-boot:run 中）
+@Component
+public class ArrowExportWriter implements TaskDataWriter {
+
+    private static final int BATCH_SIZE = 64 * 1024;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private static final ArrowType.Int INDEX_TYPE = new ArrowType.Int(32, true);
+    private static final ArrowType FLOAT8_TYPE = new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+
+    // 字典编码的列（与各 findDistinctDictionaryValuesByTaskId 返回的列名一致）
+    private static final String[] PRICE_DICTIONARY_COLUMNS = {"asin", "brand", "mainCategory", "subCategory"};
+    private static final String[] REVIEW_DICTIONARY_COLUMNS = {"asin", "brand"};
+
+    // 价格列，顺序与其他导出格式一致
+    private static final String[] PRICE_COLUMNS = {"originalPrice", "ldDiscount", "bdDiscount", "coupon",
+            "directDiscount", "memberPrice", "memberFinalPrice", "nonMemberFinalPrice"};
+
+    // 评论的文本列
+    private static final String[] REVIEW_TEXT_COLUMNS = {"reviewId", "reviewerName", "reviewTitle", "reviewContent",
+            "reviewDate", "images"};
+
+    @Autowired
+    private AsinPriceRankRepository priceRankRepository;
+
+    @Autowired
+    private AsinReviewRepository reviewRepository;
+
+    private final BufferAllocator rootAllocator = new RootAllocator();
+
+    // 把一行数据写入当前批次的第 row 行；每个批次根对象创建一次，向量在创建时取出
+    private interface RowWriter<T> {
+        void write(int row, T item);
+    }
+
+    @PreDestroy
+    public void close() {
+        rootAllocator.close();
+    }
+
+    @Override
+    public ExportFormat format() {
+        return ExportFormat.ARROW;
+    }
+
+    // 必须与 rows 在同一只读事务内调用，字典取值与游标读取的是同一数据快照
+    @Override
+    public long writePriceRanks(CrawlerTask task, Stream<AsinPriceRankDTO> rows, OutputStream out) throws IOException {
+        List<Field> valueFields = new ArrayList<>();
+        for (String column : PRICE_COLUMNS) {
+            valueFields.add(new Field(column, FieldType.nullable(FLOAT8_TYPE), null));
+        }
+        valueFields.add(new Field("mainCategoryRank", FieldType.nullable(new ArrowType.Int(32, true)), null));
+        valueFields.add(new Field("subCategoryRank", FieldType.nullable(new ArrowType.Int(32, true)), null));
+        valueFields.add(new Field("crawlTime", FieldType.nullable(new ArrowType.Timestamp(TimeUnit.MILLISECOND, null)), null));
+        valueFields.add(new Field("taskId", FieldType.nullable(new ArrowType.Int(64, true)), null));
+
+        return writeFile(task, PRICE_DICTIONARY_COLUMNS, priceRankRepository.findDistinctDictionaryValuesByTaskId(task.getId()),
+                valueFields, rows.iterator(), this::priceRankWriter, out);
+    }
+
+    // 必须与 rows 在同一只读事务内调用，字典取值与游标读取的是同一数据快照
+    @Override
+    public long writeReviews(CrawlerTask task, Stream<AsinReviewDTO> rows, OutputStream out) throws IOException {
+        List<Field> valueFields = new ArrayList<>();
+        for (String column : REVIEW_TEXT_COLUMNS) {
+            valueFields.add(new Field(column, FieldType.nullable(ArrowType.Utf8.INSTANCE), null));
+        }
+        valueFields.add(new Field("reviewRating", FieldType.nullable(FLOAT8_TYPE), null));
+        valueFields.add(new Field("helpfulVotes", FieldType.nullable(new ArrowType.Int(32, true)), null));
+        valueFields.add(new Field("crawlTime", FieldType.nullable(new ArrowType.Timestamp(TimeUnit.MILLISECOND, null)), null));
+        valueFields.add(new Field("taskId", FieldType.nullable(new ArrowType.Int(64, true)), null));
+
+        return writeFile(task, REVIEW_DICTIONARY_COLUMNS, reviewRepository.findDistinctDictionaryValuesByTaskId(task.getId()),
+                valueFields, rows.iterator(), this::reviewWriter, out);
+    }
+
+    // 列顺序：id、字典编码列、valueFields
+    private <T> long writeFile(CrawlerTask task, String[] dictionaryColumns, List<Object[]> dictionaryRows,
+                               List<Field> valueFields, Iterator<T> iterator,
+                               BiFunction<VectorSchemaRoot, Map<String, Map<String, Integer>>, RowWriter<T>> rowWriterFactory,
+                               OutputStream out) throws IOException {
+        Map<String, List<String>> dictionaryValues = loadDictionaryValues(dictionaryRows);
+
+        try (BufferAllocator allocator = rootAllocator.newChildAllocator("arrow-export-" + task.getId(), 0, Long.MAX_VALUE)) {
+            List<VarCharVector> dictionaryVectors = new ArrayList<>();
+            try {
+                DictionaryProvider.MapDictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider();
+                Map<String, Map<String, Integer>> dictionaryIndexes = new HashMap<>();
+
+                List<Field> fields = new ArrayList<>();
+                fields.add(new Field("id", FieldType.nullable(new ArrowType.Int(64, true)), null));
+                for (int i = 0; i < dictionaryColumns.length; i++) {
+                    String column = dictionaryColumns[i];
+                    List<String> values = dictionaryValues.getOrDefault(column, List.of());
+                    VarCharVector dictionaryVector = buildDictionaryVector(column, values, allocator);
+                    dictionaryVectors.add(dictionaryVector);
+
+                    Dictionary dictionary = new Dictionary(dictionaryVector, new DictionaryEncoding(i, false, INDEX_TYPE));
+                    provider.put(dictionary);
+                    dictionaryIndexes.put(column, indexOf(values));
+                    // 内存中为 int32 下标向量，写出时按字典的 utf8 类型记录在 schema 中
+                    fields.add(new Field(column, new FieldType(true, INDEX_TYPE, dictionary.getEncoding()), null));
+                }
+                fields.addAll(valueFields);
+
+                OutputStream bufferedOut = new BufferedOutputStream(out, OUTPUT_BUFFER_SIZE);
+                long count;
+                try (VectorSchemaRoot root = VectorSchemaRoot.create(new Schema(fields), allocator);
+                     ArrowFileWriter writer = new ArrowFileWriter(root, provider, new NonClosingChannel(bufferedOut))) {
+                    writer.start();
+                    count = writeBatches(root, writer, iterator, rowWriterFactory.apply(root, dictionaryIndexes));
+                    writer.end();
+                }
+                bufferedOut.flush();
+                return count;
+            } finally {
+                dictionaryVectors.forEach(VarCharVector::close);
+            }
+        }
+    }
+
+    private <T> long writeBatches(VectorSchemaRoot root, ArrowFileWriter writer, Iterator<T> iterator,
+                                  RowWriter<T> rowWriter) throws IOException {
+        long count = 0;
+        int batchRows = 0;
+        root.allocateNew();
+        while (iterator.hasNext()) {
+            rowWriter.write(batchRows, iterator.next());
+            batchRows++;
+            count++;
+            if (batchRows == BATCH_SIZE) {
+                root.setRowCount(batchRows);
+                writer.writeBatch();
+                root.allocateNew();
+                batchRows = 0;
+            }
+        }
+        if (batchRows > 0) {
+            root.setRowCount(batchRows);
+            writer.writeBatch();
+        }
+        return count;
+    }
+
+    private RowWriter<AsinPriceRankDTO> priceRankWriter(VectorSchemaRoot root,
+                                                        Map<String, Map<String, Integer>> dictionaryIndexes) {
+        BigIntVector idVector = (BigIntVector) root.getVector("id");
+        IntVector[] dictionaryVectors = dictionaryVectors(root, PRICE_DICTIONARY_COLUMNS);
+        Float8Vector[] priceVectors = new Float8Vector[PRICE_COLUMNS.length];
+        for (int i = 0; i < PRICE_COLUMNS.length; i++) {
+            priceVectors[i] = (Float8Vector) root.getVector(PRICE_COLUMNS[i]);
+        }
+        IntVector mainRankVector = (IntVector) root.getVector("mainCategoryRank");
+        IntVector subRankVector = (IntVector) root.getVector("subCategoryRank");
+        TimeStampMilliVector crawlTimeVector = (TimeStampMilliVector) root.getVector("crawlTime");
+        BigIntVector taskIdVector = (BigIntVector) root.getVector("taskId");
+
+        return (row, rank) -> {
+            setLong(idVector, row, rank.getId());
+
+            String[] texts = {rank.getAsin(), rank.getBrand(), rank.getMainCategory(), rank.getSubCategory()};
+            for (int i = 0; i < texts.length; i++) {
+                setDictionaryIndex(dictionaryVectors[i], row, texts[i], dictionaryIndexes.get(PRICE_DICTIONARY_COLUMNS[i]));
+            }
+
+            Double[] prices = {rank.getOriginalPrice(), rank.getLdDiscount(), rank.getBdDiscount(), rank.getCoupon(),
+                    rank.getDirectDiscount(), rank.getMemberPrice(), rank.getMemberFinalPrice(), rank.getNonMemberFinalPrice()};
+            for (int i = 0; i < prices.length; i++) {
+                setDouble(priceVectors[i], row, prices[i]);
+            }
+
+            setInt(mainRankVector, row, rank.getMainCategoryRank());
+            setInt(subRankVector, row, rank.getSubCategoryRank());
+            setTimestamp(crawlTimeVector, row, rank.getCrawlTime());
+            setLong(taskIdVector, row, rank.getTaskId());
+        };
+    }
+
+    private RowWriter<AsinReviewDTO> reviewWriter(VectorSchemaRoot root,
+                                                  Map<String, Map<String, Integer>> dictionaryIndexes) {
+        BigIntVector idVector = (BigIntVector) root.getVector("id");
+        IntVector[] dictionaryVectors = dictionaryVectors(root, REVIEW_DICTIONARY_COLUMNS);
+        VarCharVector[] textVectors = new VarCharVector[REVIEW_TEXT_COLUMNS.length];
+        for (int i = 0; i < REVIEW_TEXT_COLUMNS.length; i++) {
+            textVectors[i] = (VarCharVector) root.getVector(REVIEW_TEXT_COLUMNS[i]);
+        }
+        Float8Vector ratingVector = (Float8Vector) root.getVector("reviewRating");
+        IntVector helpfulVotesVector = (IntVector) root.getVector("helpfulVotes");
+        TimeStampMilliVector crawlTimeVector = (TimeStampMilliVector) root.getVector("crawlTime");
+        BigIntVector taskIdVector = (BigIntVector) root.getVector("taskId");
+
+        return (row, review) -> {
+            setLong(idVector, row, review.getId());
+
+            String[] keys = {review.getAsin(), review.getBrand()};
+            for (int i = 0; i < keys.length; i++) {
+                setDictionaryIndex(dictionaryVectors[i], row, keys[i], dictionaryIndexes.get(REVIEW_DICTIONARY_COLUMNS[i]));
+            }
+
+            String[] texts = {review.getReviewId(), review.getReviewerName(), review.getReviewTitle(),
+                    review.getReviewContent(), review.getReviewDate(), review.getImages()};
+            for (int i = 0; i < texts.length; i++) {
+                setText(textVectors[i], row, texts[i]);
+            }
+
+            setDouble(ratingVector, row, review.getReviewRating());
+            setInt(helpfulVotesVector, row, review.getHelpfulVotes());
+            setTimestamp(crawlTimeVector, row, review.getCrawlTime());
+            setLong(taskIdVector, row, review.getTaskId());
+        };
+    }
+
+    private IntVector[] dictionaryVectors(VectorSchemaRoot root, String[] columns) {
+        IntVector[] vectors = new IntVector[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            vectors[i] = (IntVector) root.getVector(columns[i]);
+        }
+        return vectors;
+    }
+
+    // 按列名分组的去重取值，列表顺序即字典下标
+    private Map<String, List<String>> loadDictionaryValues(List<Object[]> rows) {
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            String column = String.valueOf(row[0]);
+            String value = row[1] instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : String.valueOf(row[1]);
+            values.computeIfAbsent(column, key -> new ArrayList<>()).add(value);
+        }
+        return values;
+    }
+
+    private VarCharVector buildDictionaryVector(String column, List<String> values, BufferAllocator allocator) {
+        VarCharVector vector = new VarCharVector(column + "_dictionary", allocator);
+        vector.allocateNew(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            vector.setSafe(i, values.get(i).getBytes(StandardCharsets.UTF_8));
+        }
+        vector.setValueCount(values.size());
+        return vector;
+    }
+
+    private Map<String, Integer> indexOf(List<String> values) {
+        Map<String, Integer> index = new HashMap<>(values.size() * 2);
+        for (int i = 0; i < values.size(); i++) {
+            index.put(values.get(i), i);
+        }
+        return index;
+    }
+
+    private void setDictionaryIndex(IntVector vector, int row, String value, Map<String, Integer> index) {
+        if (value == null) {
+            vector.setNull(row);
+            return;
+        }
+        Integer position = index.get(value);
+        if (position == null) {
+            // 字典与行数据来自同一事务快照，正常情况下不会出现
+            throw new IllegalStateException("Arrow字典中缺少取值: " + value);
+        }
+        vector.setSafe(row, position);
+    }
+
+    private void setLong(BigIntVector vector, int row, Long value) {
+        if (value == null) {
+            vector.setNull(row);
+        } else {
+            vector.setSafe(row, value);
+        }
+    }
+
+    private void setDouble(Float8Vector vector, int row, Double value) {
+        if (value == null) {
+            vector.setNull(row);
+        } else {
+            vector.setSafe(row, value);
+        }
+    }
+
+    private void setText(VarCharVector vector, int row, String value) {
+        if (value == null) {
+            vector.setNull(row);
+        } else {
+            vector.setSafe(row, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void setInt(IntVector vector, int row, Integer value) {
+        if (value == null) {
+            vector.setNull(row);
+        } else {
+            vector.setSafe(row, value);
+        }
+    }
+
+    // 不带时区的时间戳，按本地时间的字面值存储
+    private void setTimestamp(TimeStampMilliVector vector, int row, LocalDateTime value) {
+        if (value == null) {
+            vector.setNull(row);
+        } else {
+            vector.setSafe(row, value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    // ArrowFileWriter 关闭时会关闭通道，底层输出流由调用方负责关闭
+    private static class NonClosingChannel implements WritableByteChannel {
+        private final WritableByteChannel delegate;
+
+        NonClosingChannel(OutputStream out) {
+            this.delegate = Channels.newChannel(out);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.springboot.login.export;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.entity.CrawlerTask;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// CSV写出（RFC 4180），直接写入输出流，不经过POI
+@Component
+public class CsvExportWriter implements TaskDataWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(ExcelCellUtils.DATE_FORMAT);
+
+    @Override
+    public ExportFormat format() {
+        return ExportFormat.CSV;
+    }
+
+    @Override
+    public long writePriceRanks(CrawlerTask task, Stream<AsinPriceRankDTO> rows, OutputStream out) throws IOException {
+        Writer writer = newWriter(out);
+        writeHeader(writer, ExportDataType.PRICE_RANK);
+
+        long count = 0;
+        Iterator<AsinPriceRankDTO> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            AsinPriceRankDTO rank = iterator.next();
+            writeField(writer, rank.getAsin(), true);
+            writeField(writer, rank.getBrand(), false);
+            writeField(writer, rank.getOriginalPrice(), false);
+            writeField(writer, rank.getLdDiscount(), false);
+            writeField(writer, rank.getBdDiscount(), false);
+            writeField(writer, rank.getCoupon(), false);
+            writeField(writer, rank.getDirectDiscount(), false);
+            writeField(writer, rank.getMemberPrice(), false);
+            writeField(writer, rank.getMemberFinalPrice(), false);
+            writeField(writer, rank.getNonMemberFinalPrice(), false);
+            writeField(writer, rank.getMainCategory(), false);
+            writeField(writer, rank.getMainCategoryRank(), false);
+            writeField(writer, rank.getSubCategory(), false);
+            writeField(writer, rank.getSubCategoryRank(), false);
+            writeField(writer, rank.getCrawlTime(), false);
+            writer.write("\r\n");
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    @Override
+    public long writeReviews(CrawlerTask task, Stream<AsinReviewDTO> rows, OutputStream out) throws IOException {
+        Writer writer = newWriter(out);
+        writeHeader(writer, ExportDataType.REVIEWS);
+
+        long count = 0;
+        Iterator<AsinReviewDTO> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            AsinReviewDTO review = iterator.next();
+            writeField(writer, review.getAsin(), true);
+            writeField(writer, review.getBrand(), false);
+            writeField(writer, review.getReviewerName(), false);
+            writeField(writer, review.getReviewDate(), false);
+            writeField(writer, review.getReviewContent(), false);
+            writeField(writer, review.getCrawlTime(), false);
+            writer.write("\r\n");
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    // 不关闭底层输出流，由调用方负责
+    private Writer newWriter(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private void writeHeader(Writer writer, ExportDataType dataType) throws IOException {
+        String[] headers = dataType.getHeaders();
+        for (int i = 0; i < headers.length; i++) {
+            writeField(writer, headers[i], i == 0);
+        }
+        writer.write("\r\n");
+    }
+
+    // null写为空字段；包含分隔符、引号或换行的文本加双引号并转义
+    private void writeField(Writer writer, Object value, boolean first) throws IOException {
+        if (!first) {
+            writer.write(',');
+        }
+        if (value == null) {
+            return;
+        }
+        if (value instanceof LocalDateTime) {
+            writer.write(DATE_FORMATTER.format((LocalDateTime) value));
+            return;
+        }
+        if (!(value instanceof String)) {
+            writer.write(value.toString());
+            return;
+        }
+
+        String text = (String) value;
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
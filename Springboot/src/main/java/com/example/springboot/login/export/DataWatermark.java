@@ -0,0 +1,32 @@
+package com.example.springboot.login.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// 导出数据的水位：最新爬取时间 + 行数 + 数据版本（价格数据延长已有行时递增），都未变化时导出结果不变
+@Getter
+@AllArgsConstructor
+public class DataWatermark {
+
+    private LocalDateTime maxCrawlTime;
+    private Long rowCount;
+    private long dataVersion;
+
+    // 查询投影使用，数据版本另行读取
+    public DataWatermark(LocalDateTime maxCrawlTime, Long rowCount) {
+        this(maxCrawlTime, rowCount, 0);
+    }
+
+    public DataWatermark withDataVersion(long dataVersion) {
+        return new DataWatermark(maxCrawlTime, rowCount, dataVersion);
+    }
+
+    // 用于拼接缓存键，无数据时最新爬取时间记为0
+    public String toKeyPart() {
+        long crawlEpoch = maxCrawlTime == null ? 0 : maxCrawlTime.toEpochSecond(ZoneOffset.UTC);
+        return crawlEpoch + "_" + (rowCount == null ? 0 : rowCount) + "_" + dataVersion;
+    }
+}
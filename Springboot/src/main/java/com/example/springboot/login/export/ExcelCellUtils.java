@@ -0,0 +1,81 @@
+package com.example.springboot.login.export;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+// Excel单元格写入工具，供数据导出与分析底表共用
+public final class ExcelCellUtils {
+
+    public static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    // 单元格文本最大长度，超出时POI会抛异常
+    private static final int MAX_TEXT_LENGTH = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+
+    private ExcelCellUtils() {
+    }
+
+    // 创建加粗表头样式（每个工作簿创建一次）
+    public static CellStyle createHeaderStyle(Workbook workbook) {
+        CellStyle headerStyle = workbook.createCellStyle();
+        Font headerFont = workbook.createFont();
+        headerFont.setBold(true);
+        headerStyle.setFont(headerFont);
+        return headerStyle;
+    }
+
+    // 创建日期样式（每个工作簿创建一次，所有日期单元格复用）
+    public static CellStyle createDateStyle(Workbook workbook) {
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat(DATE_FORMAT));
+        return dateStyle;
+    }
+
+    // 智能设置单元格值（处理不同数据类型，支持null值）
+    public static void setCellValue(Cell cell, Object value) {
+        if (value == null) {
+            cell.setCellValue("");
+            return;
+        }
+
+        if (value instanceof String) {
+            String text = (String) value;
+            cell.setCellValue(text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text);
+        } else if (value instanceof Double) {
+            cell.setCellValue((Double) value);
+        } else if (value instanceof Integer) {
+            cell.setCellValue((Integer) value);
+        } else if (value instanceof Long) {
+            cell.setCellValue((Long) value);
+        } else {
+            cell.setCellValue(value.toString());
+        }
+    }
+
+    // 处理日期类型并设置日期格式（支持Date/LocalDateTime/LocalDate），dateStyle 由调用方预先创建
+    public static void setDateCellValue(Cell cell, Object dateObj, CellStyle dateStyle) {
+        if (dateObj == null) {
+            cell.setCellValue("");
+            return;
+        }
+
+        if (dateObj instanceof LocalDateTime) {
+            cell.setCellValue((LocalDateTime) dateObj);
+        } else if (dateObj instanceof LocalDate) {
+            cell.setCellValue((LocalDate) dateObj);
+        } else if (dateObj instanceof Date) {
+            cell.setCellValue((Date) dateObj);
+        } else {
+            // 无法识别的日期类型，转为字符串
+            setCellValue(cell, dateObj.toString());
+            return;
+        }
+        cell.setCellStyle(dateStyle);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.springboot.login.export;
+
+// 导出数据类型：价格与排名 / 评论
+public enum ExportDataType {
+
+    PRICE_RANK("price-rank", "价格与排名", "价格与排名数据",
+            new String[]{"ASIN", "品牌", "原价", "LD折扣", "BD折扣", "优惠券", "直降%",
+                    "会员价", "会员最终价", "非会员最终价",
+                    "大类目", "大类目排名", "小类目", "小类目排名", "爬取时间"}),
+
+    REVIEWS("reviews", "评论", "评论数据",
+            new String[]{"ASIN", "品牌", "评论者", "评论日期", "评论内容", "爬取时间"});
+
+    private final String param;     // 接口参数值
+    private final String label;     // 文件名中使用的名称
+    private final String sheetName; // Excel工作表名称
+    private final String[] headers; // 表头
+
+    ExportDataType(String param, String label, String sheetName, String[] headers) {
+        this.param = param;
+        this.label = label;
+        this.sheetName = sheetName;
+        this.headers = headers;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    public String[] getHeaders() {
+        return headers.clone();
+    }
+
+    // 解析接口参数，与原有逻辑保持一致：非 price-rank 均视为评论数据
+    public static ExportDataType fromParam(String param) {
+        return PRICE_RANK.param.equals(param) ? PRICE_RANK : REVIEWS;
+    }
+}
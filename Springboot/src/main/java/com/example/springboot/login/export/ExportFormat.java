@@ -0,0 +1,47 @@
+package com.example.springboot.login.export;
+
+// 导出文件格式
+public enum ExportFormat {
+
+    XLSX("xlsx", "xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    CSV("csv", "csv", "text/csv; charset=UTF-8"),
+    NDJSON("ndjson", "ndjson", "application/x-ndjson; charset=UTF-8"),
+    ARROW("arrow", "arrow", "application/vnd.apache.arrow.file");
+
+    public static final String GZIP_CONTENT_TYPE = "application/gzip";
+
+    private final String param;       // 接口参数值
+    private final String extension;   // 文件扩展名
+    private final String contentType; // 响应Content-Type
+
+    ExportFormat(String param, String extension, String contentType) {
+        this.param = param;
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    // 解析接口参数，未指定时默认xlsx
+    public static ExportFormat fromParam(String param) {
+        if (param == null || param.isEmpty()) {
+            return XLSX;
+        }
+        for (ExportFormat format : values()) {
+            if (format.param.equalsIgnoreCase(param)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("不支持的导出格式: " + param);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.springboot.login.export;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.entity.CrawlerTask;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// NDJSON写出：每行一个JSON对象，字段与价格/评论接口返回的DTO一致
+@Component
+public class NdjsonExportWriter implements TaskDataWriter {
+
+    private final ObjectWriter priceRankWriter;
+    private final ObjectWriter reviewWriter;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public NdjsonExportWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.priceRankWriter = lineWriter(objectMapper, AsinPriceRankDTO.class);
+        this.reviewWriter = lineWriter(objectMapper, AsinReviewDTO.class);
+    }
+
+    @Override
+    public ExportFormat format() {
+        return ExportFormat.NDJSON;
+    }
+
+    @Override
+    public long writePriceRanks(CrawlerTask task, Stream<AsinPriceRankDTO> rows, OutputStream out) throws IOException {
+        return writeLines(rows.iterator(), priceRankWriter, out);
+    }
+
+    @Override
+    public long writeReviews(CrawlerTask task, Stream<AsinReviewDTO> rows, OutputStream out) throws IOException {
+        return writeLines(rows.iterator(), reviewWriter, out);
+    }
+
+    // 根级对象之间以换行分隔；关闭逐条flush，由生成器缓冲批量写出
+    private static ObjectWriter lineWriter(ObjectMapper objectMapper, Class<?> type) {
+        return objectMapper.writerFor(type)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    private <T> long writeLines(Iterator<T> iterator, ObjectWriter writer, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // 不关闭底层输出流，由调用方负责
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                count++;
+            }
+            if (count > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.springboot.login.export;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+// 单个工作表的数据统计（行数、ASIN数、爬取时间范围），用于生成汇总页
+public class SheetStats {
+
+    private long rowCount;
+    private final Set<String> asins = new HashSet<>();
+    private LocalDateTime firstCrawlTime;
+    private LocalDateTime lastCrawlTime;
+
+    public void accept(String asin, LocalDateTime crawlTime) {
+        rowCount++;
+        if (asin != null) {
+            asins.add(asin);
+        }
+        if (crawlTime != null) {
+            if (firstCrawlTime == null || crawlTime.isBefore(firstCrawlTime)) {
+                firstCrawlTime = crawlTime;
+            }
+            if (lastCrawlTime == null || crawlTime.isAfter(lastCrawlTime)) {
+                lastCrawlTime = crawlTime;
+            }
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getAsinCount() {
+        return asins.size();
+    }
+
+    public LocalDateTime getFirstCrawlTime() {
+        return firstCrawlTime;
+    }
+
+    public LocalDateTime getLastCrawlTime() {
+        return lastCrawlTime;
+    }
+}
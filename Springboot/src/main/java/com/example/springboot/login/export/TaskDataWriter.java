@@ -0,0 +1,20 @@
+package com.example.springboot.login.export;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.entity.CrawlerTask;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+// 任务数据写出器：每种导出格式一个实现，逐行消费Stream并写入输出流，返回写出的数据行数
+public interface TaskDataWriter {
+
+    ExportFormat format();
+
+    // task 为当前导出的任务，需要在同一事务内额外查询（如Arrow字典）的写出器使用
+    long writePriceRanks(CrawlerTask task, Stream<AsinPriceRankDTO> rows, OutputStream out) throws IOException;
+
+    long writeReviews(CrawlerTask task, Stream<AsinReviewDTO> rows, OutputStream out) throws IOException;
+}
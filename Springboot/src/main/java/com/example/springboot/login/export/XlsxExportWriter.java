@@ -0,0 +1,142 @@
+package com.example.springboot.login.export;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.entity.CrawlerTask;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.ToLongBiFunction;
+import java.util.stream.Stream;
+
+// 基于SXSSF的流式Excel写出：内存中只保留窗口内的行，其余行刷写到压缩临时文件
+@Component
+public class XlsxExportWriter implements TaskDataWriter {
+
+    // 内存中保留的行数
+    private static final int ROW_ACCESS_WINDOW = 200;
+
+    // 预设列宽（字符数），替代逐行扫描的 autoSizeColumn
+    private static final int[] PRICE_RANK_WIDTHS = {14, 20, 10, 10, 10, 10, 10, 10, 12, 12, 28, 12, 28, 12, 20};
+    private static final int[] REVIEW_WIDTHS = {14, 20, 18, 14, 80, 20};
+
+    @Override
+    public ExportFormat format() {
+        return ExportFormat.XLSX;
+    }
+
+    // 价格与排名数据导出为单工作表的xlsx，返回数据行数
+    @Override
+    public long writePriceRanks(CrawlerTask task, Stream<AsinPriceRankDTO> rows, OutputStream out) throws IOException {
+        return writeSingleSheet(ExportDataType.PRICE_RANK,
+                (sheet, dateStyle) -> appendPriceRanks(sheet, rows, dateStyle), out);
+    }
+
+    // 评论数据导出为单工作表的xlsx，返回数据行数
+    @Override
+    public long writeReviews(CrawlerTask task, Stream<AsinReviewDTO> rows, OutputStream out) throws IOException {
+        return writeSingleSheet(ExportDataType.REVIEWS,
+                (sheet, dateStyle) -> appendReviews(sheet, rows, dateStyle), out);
+    }
+
+    private long writeSingleSheet(ExportDataType dataType,
+                                  ToLongBiFunction<Sheet, CellStyle> filler,
+                                  OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = createWorkbook();
+        try {
+            CellStyle headerStyle = ExcelCellUtils.createHeaderStyle(workbook);
+            CellStyle dateStyle = ExcelCellUtils.createDateStyle(workbook);
+            Sheet sheet = createSheet(workbook, dataType, headerStyle);
+            long rowCount = filler.applyAsLong(sheet, dateStyle);
+
+            workbook.write(out);
+            return rowCount;
+        } finally {
+            // 删除SXSSF产生的临时文件
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    public SXSSFWorkbook createWorkbook() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    // 创建工作表：设置列宽并写入表头
+    public Sheet createSheet(SXSSFWorkbook workbook, ExportDataType dataType, CellStyle headerStyle) {
+        Sheet sheet = workbook.createSheet(dataType.getSheetName());
+        String[] headers = dataType.getHeaders();
+        int[] widths = dataType == ExportDataType.PRICE_RANK ? PRICE_RANK_WIDTHS : REVIEW_WIDTHS;
+
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            sheet.setColumnWidth(i, widths[i] * 256);
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(headerStyle);
+        }
+        return sheet;
+    }
+
+    // 追加价格与排名数据行，返回写入行数
+    public long appendPriceRanks(Sheet sheet, Stream<AsinPriceRankDTO> rows, CellStyle dateStyle) {
+        int rowIndex = sheet.getLastRowNum() + 1;
+        Iterator<AsinPriceRankDTO> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            AsinPriceRankDTO rank = iterator.next();
+            Row dataRow = sheet.createRow(rowIndex++);
+
+            ExcelCellUtils.setCellValue(dataRow.createCell(0), rank.getAsin());
+            ExcelCellUtils.setCellValue(dataRow.createCell(1), rank.getBrand());
+            ExcelCellUtils.setCellValue(dataRow.createCell(2), orZero(rank.getOriginalPrice()));
+            ExcelCellUtils.setCellValue(dataRow.createCell(3), orZero(rank.getLdDiscount()));
+            ExcelCellUtils.setCellValue(dataRow.createCell(4), orZero(rank.getBdDiscount()));
+            ExcelCellUtils.setCellValue(dataRow.createCell(5), rank.getCoupon());
+            ExcelCellUtils.setCellValue(dataRow.createCell(6), orZero(rank.getDirectDiscount()));
+            ExcelCellUtils.setCellValue(dataRow.createCell(7), orZero(rank.getMemberPrice()));
+            ExcelCellUtils.setCellValue(dataRow.createCell(8), orZero(rank.getMemberFinalPrice()));
+            ExcelCellUtils.setCellValue(dataRow.createCell(9), orZero(rank.getNonMemberFinalPrice()));
+            ExcelCellUtils.setCellValue(dataRow.createCell(10), rank.getMainCategory());
+            ExcelCellUtils.setCellValue(dataRow.createCell(11), orZero(rank.getMainCategoryRank()));
+            ExcelCellUtils.setCellValue(dataRow.createCell(12), rank.getSubCategory());
+            ExcelCellUtils.setCellValue(dataRow.createCell(13), orZero(rank.getSubCategoryRank()));
+            ExcelCellUtils.setDateCellValue(dataRow.createCell(14), rank.getCrawlTime(), dateStyle);
+        }
+        return rowIndex - 1L;
+    }
+
+    // 追加评论数据行，返回写入行数
+    public long appendReviews(Sheet sheet, Stream<AsinReviewDTO> rows, CellStyle dateStyle) {
+        int rowIndex = sheet.getLastRowNum() + 1;
+        Iterator<AsinReviewDTO> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            AsinReviewDTO review = iterator.next();
+            Row dataRow = sheet.createRow(rowIndex++);
+
+            ExcelCellUtils.setCellValue(dataRow.createCell(0), review.getAsin());
+            ExcelCellUtils.setCellValue(dataRow.createCell(1), review.getBrand());
+            ExcelCellUtils.setCellValue(dataRow.createCell(2), review.getReviewerName());
+            ExcelCellUtils.setDateCellValue(dataRow.createCell(3), review.getReviewDate(), dateStyle);
+            ExcelCellUtils.setCellValue(dataRow.createCell(4), review.getReviewContent());
+            ExcelCellUtils.setDateCellValue(dataRow.createCell(5), review.getCrawlTime(), dateStyle);
+        }
+        return rowIndex - 1L;
+    }
+
+    private static Double orZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    private static Integer orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
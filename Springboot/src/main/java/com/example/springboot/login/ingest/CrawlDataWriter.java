@@ -0,0 +1,187 @@
+package com.example.springboot.login.ingest;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.event.CrawlDataChangedEvent;
+import com.example.springboot.login.export.ExportDataType;
+import com.example.springboot.login.repository.PriceRollupStateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 爬取结果批量写入：绕过JPA直接用JDBC批量插入（连接参数 rewriteBatchedStatements=true 时驱动改写为多行INSERT），
+// 主键仍由数据库自增生成且不回读。不经过实体监听器，因此每批写入后按任务和数据类型发布一次数据变化事件
+@Component
+public class CrawlDataWriter {
+
+    private static final String INSERT_PRICE_RANK = "INSERT INTO asin_price_rank (task_id, asin, brand, original_price, " +
+            "ld_discount, bd_discount, member_price, member_final_price, non_member_final_price, coupon, direct_discount, " +
+            "main_category, main_category_rank, sub_category, sub_category_rank, crawl_time, last_seen_time, seen_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // 延长连续相同观测的行（同一ASIN同一爬取时间有多行时取最后写入的一行）
+    private static final String EXTEND_PRICE_RANK = "UPDATE asin_price_rank " +
+            "SET last_seen_time = GREATEST(COALESCE(last_seen_time, crawl_time), ?), seen_count = seen_count + ? " +
+            "WHERE task_id = ? AND asin = ? AND crawl_time = ? ORDER BY id DESC LIMIT 1";
+
+    // 记录被延长的行增加的观测次数（定位方式与延长相同），日汇总与增量分析据此按差量并入，无需重建
+    private static final String RECORD_EXTENSION = "INSERT INTO price_rank_extension " +
+            "(price_rank_id, task_id, rollup_count, analysis_count) " +
+            "SELECT id, task_id, ?, ? FROM asin_price_rank " +
+            "WHERE task_id = ? AND asin = ? AND crawl_time = ? ORDER BY id DESC LIMIT 1 " +
+            "ON DUPLICATE KEY UPDATE rollup_count = rollup_count + ?, analysis_count = analysis_count + ?";
+
+    // 唯一键 (task_id, asin, review_id) 冲突时保留已有行（不用 INSERT IGNORE，以免其他错误也被忽略）。
+    // 每批拼成一条多行INSERT执行，返回值即实际新增的行数：连接参数 useAffectedRows=true 时冲突行不计数，
+    // 而驱动改写批量语句后每行只返回 SUCCESS_NO_INFO，无法区分新增与冲突
+    private static final String INSERT_REVIEW = "INSERT INTO asin_review (task_id, asin, brand, review_id, reviewer_name, " +
+            "review_title, review_content, review_rating, review_date, helpful_votes, images, crawl_time) VALUES ";
+    private static final String REVIEW_VALUES = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String ON_DUPLICATE_REVIEW = " ON DUPLICATE KEY UPDATE id = id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ReviewDedupFilter reviewDedupFilter;
+
+    @Autowired
+    private PriceChangeDetector priceChangeDetector;
+
+    @Autowired
+    private PriceRollupStateRepository rollupStateRepository;
+
+    @Value("${ingest.batch-size:1000}")
+    private int batchSize;
+
+    // 写入任务的价格数据，调用方需保证 crawlTime 已填写，返回写入的观测数。
+    // 开启仅记录变化（ingest.price-change-only.enabled）时，与上一次取值相同的观测只延长已有行
+    @Transactional
+    public int insertPriceRanks(Long taskId, List<AsinPriceRankDTO> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<AsinPriceRankDTO> inserts = rows;
+        if (priceChangeDetector.isEnabled()) {
+            PriceChangeDetector.Plan plan = priceChangeDetector.plan(taskId, rows);
+            inserts = new ArrayList<>(plan.inserts());
+            List<PriceChangeDetector.Extension> extensions = plan.extensions();
+            if (!extensions.isEmpty()) {
+                // 延长已有行不改变导出水位中的最新爬取时间和行数，递增数据版本使导出缓存失效
+                rollupStateRepository.insertIfAbsent(taskId);
+                rollupStateRepository.incrementDataVersion(taskId);
+            }
+            int[][] counts = jdbcTemplate.batchUpdate(EXTEND_PRICE_RANK, extensions, batchSize, (ps, extension) -> {
+                ps.setObject(1, extension.lastSeen());
+                ps.setInt(2, extension.count());
+                ps.setLong(3, taskId);
+                ps.setString(4, extension.asin());
+                ps.setObject(5, extension.start());
+            });
+            // 已有行不存在（被删除或内存状态与数据库不一致）时改为新增一行，观测不丢失
+            List<PriceChangeDetector.Extension> extended = new ArrayList<>(extensions.size());
+            int index = 0;
+            for (int[] chunk : counts) {
+                for (int count : chunk) {
+                    PriceChangeDetector.Extension extension = extensions.get(index++);
+                    if (count == 0) {
+                        inserts.add(extension.toRow());
+                        plan.reload().add(extension.asin());
+                    } else {
+                        extended.add(extension);
+                    }
+                }
+            }
+            jdbcTemplate.batchUpdate(RECORD_EXTENSION, extended, batchSize, (ps, extension) -> {
+                ps.setInt(1, extension.count());
+                ps.setInt(2, extension.count());
+                ps.setLong(3, taskId);
+                ps.setString(4, extension.asin());
+                ps.setObject(5, extension.start());
+                ps.setInt(6, extension.count());
+                ps.setInt(7, extension.count());
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_PRICE_RANK, inserts, batchSize, (ps, row) -> {
+            ps.setLong(1, taskId);
+            ps.setString(2, row.getAsin());
+            ps.setString(3, row.getBrand());
+            ps.setObject(4, row.getOriginalPrice());
+            ps.setObject(5, row.getLdDiscount());
+            ps.setObject(6, row.getBdDiscount());
+            ps.setObject(7, row.getMemberPrice());
+            ps.setObject(8, row.getMemberFinalPrice());
+            ps.setObject(9, row.getNonMemberFinalPrice());
+            ps.setObject(10, row.getCoupon());
+            ps.setObject(11, row.getDirectDiscount());
+            ps.setString(12, row.getMainCategory());
+            ps.setObject(13, row.getMainCategoryRank());
+            ps.setString(14, row.getSubCategory());
+            ps.setObject(15, row.getSubCategoryRank());
+            ps.setObject(16, row.getCrawlTime());
+            ps.setObject(17, row.getLastSeenTime());
+            ps.setInt(18, row.getSeenCount() == null ? 1 : row.getSeenCount());
+        });
+        // 延长已有行的增量已记录在 price_rank_extension 中，增量结果不需要重建
+        eventPublisher.publishEvent(new CrawlDataChangedEvent(taskId, ExportDataType.PRICE_RANK, true));
+        return rows.size();
+    }
+
+    // 写入任务的评论数据，调用方需保证 crawlTime 已填写；已存在的评论（同一任务内 asin + reviewId 相同）跳过，
+    // 返回数据库实际新增的条数
+    @Transactional
+    public int insertReviews(Long taskId, List<AsinReviewDTO> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<AsinReviewDTO> fresh = reviewDedupFilter.filterNew(taskId, rows);
+        int inserted = 0;
+        for (int from = 0; from < fresh.size(); from += batchSize) {
+            List<AsinReviewDTO> chunk = fresh.subList(from, Math.min(fresh.size(), from + batchSize));
+            int count = insertReviewChunk(taskId, chunk);
+            inserted += count;
+            if (count == chunk.size()) {
+                reviewDedupFilter.record(taskId, chunk);
+            } else {
+                // 部分评论已由并发写入的其他批次插入，不知道是哪几条：丢弃相关ASIN的过滤器，下次用到时从数据库重新加载
+                reviewDedupFilter.forget(taskId, chunk);
+            }
+        }
+        if (inserted > 0) {
+            eventPublisher.publishEvent(new CrawlDataChangedEvent(taskId, ExportDataType.REVIEWS, true));
+        }
+        return inserted;
+    }
+
+    private int insertReviewChunk(Long taskId, List<AsinReviewDTO> chunk) {
+        StringBuilder sql = new StringBuilder(INSERT_REVIEW);
+        List<Object> args = new ArrayList<>(chunk.size() * 12);
+        for (int i = 0; i < chunk.size(); i++) {
+            AsinReviewDTO row = chunk.get(i);
+            sql.append(i == 0 ? REVIEW_VALUES : ", " + REVIEW_VALUES);
+            args.add(taskId);
+            args.add(row.getAsin());
+            args.add(row.getBrand());
+            args.add(row.getReviewId());
+            args.add(row.getReviewerName());
+            args.add(row.getReviewTitle());
+            args.add(row.getReviewContent());
+            args.add(row.getReviewRating());
+            args.add(row.getReviewDate());
+            args.add(row.getHelpfulVotes());
+            args.add(row.getImages());
+            args.add(row.getCrawlTime());
+        }
+        sql.append(ON_DUPLICATE_REVIEW);
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.springboot.login.ingest;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+
+// 写缓冲中的一条爬取结果：价格与评论二选一
+public record CrawlRecord(Long taskId, AsinPriceRankDTO priceRank, AsinReviewDTO review) {
+
+    public static CrawlRecord of(Long taskId, AsinPriceRankDTO priceRank) {
+        return new CrawlRecord(taskId, priceRank, null);
+    }
+
+    public static CrawlRecord of(Long taskId, AsinReviewDTO review) {
+        return new CrawlRecord(taskId, null, review);
+    }
+}
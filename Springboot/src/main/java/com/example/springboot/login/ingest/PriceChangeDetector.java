@@ -0,0 +1,236 @@
+package com.example.springboot.login.ingest;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 仅记录变化：每个任务的每个ASIN在内存中保存最近一行价格数据（按最近使用淘汰，未命中时从数据库读取），
+// 新观测与其相比除爬取时间外完全相同、且在同一天内时不新增行，只延长该行的 lastSeenTime 和 seenCount。
+// 行不跨天；早于已知最后观测时间的乱序数据照常新增行。每批的状态变化先在副本上计算，写入事务提交后才生效
+@Component
+public class PriceChangeDetector {
+
+    private static final int LOAD_CHUNK = 500;
+
+    private static final String SELECT_LATEST = "SELECT asin, brand, original_price, ld_discount, bd_discount, " +
+            "member_price, member_final_price, non_member_final_price, coupon, direct_discount, main_category, " +
+            "main_category_rank, sub_category, sub_category_rank, crawl_time, last_seen_time FROM (" +
+            "SELECT p.*, ROW_NUMBER() OVER (PARTITION BY asin ORDER BY crawl_time DESC, id DESC) AS rn " +
+            "FROM asin_price_rank p WHERE task_id = ? AND asin IN (%s) AND crawl_time IS NOT NULL) t WHERE rn = 1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${ingest.price-change-only.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ingest.price-change-only.max-entries:100000}")
+    private int maxEntries;
+
+    // 一个ASIN最近一行的取值与观测时间范围
+    private static final class RunState {
+        private final AsinPriceRankDTO values;
+        private final LocalDateTime start;
+        private LocalDateTime lastSeen;
+        // 本批新增、尚未写入的行，后续相同观测直接累加到这一行
+        private AsinPriceRankDTO pending;
+
+        RunState(AsinPriceRankDTO values, LocalDateTime start, LocalDateTime lastSeen) {
+            this.values = values;
+            this.start = start;
+            this.lastSeen = lastSeen;
+        }
+
+        RunState copy() {
+            return new RunState(values, start, lastSeen);
+        }
+    }
+
+    // 延长已有行：按 (asin, crawl_time = start) 定位，观测次数增加 count；
+    // firstSeen 为本批第一次相同观测的时间，values 为行的取值，已有行不存在时据此新增一行
+    public record Extension(String asin, LocalDateTime start, LocalDateTime firstSeen, LocalDateTime lastSeen,
+                            int count, AsinPriceRankDTO values) {
+
+        // 已有行不存在时代替延长新增的行
+        public AsinPriceRankDTO toRow() {
+            AsinPriceRankDTO row = values.copy();
+            row.setCrawlTime(firstSeen);
+            row.setLastSeenTime(count > 1 ? lastSeen : null);
+            row.setSeenCount(count);
+            return row;
+        }
+    }
+
+    // 需要新增的行与需要延长的已有行；写入时发现已有行不存在的ASIN由调用方加入 reload，
+    // 提交后不保存其状态，下次从数据库重新读取
+    public record Plan(List<AsinPriceRankDTO> inserts, List<Extension> extensions, Set<String> reload) {
+    }
+
+    // key 为 taskId:asin，按访问顺序淘汰最久未用的条目
+    private final Map<String, RunState> states = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RunState> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 拆分一批价格数据（调用方已补全 crawlTime），需在写入事务中调用：本批的状态在事务提交后才保存，
+    // 回滚时直接丢弃，不影响其他批次
+    public Plan plan(Long taskId, List<AsinPriceRankDTO> rows) {
+        Set<String> asins = new HashSet<>();
+        for (AsinPriceRankDTO row : rows) {
+            asins.add(row.getAsin());
+        }
+        Map<String, RunState> loaded = loadMissing(taskId, asins);
+
+        List<AsinPriceRankDTO> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(AsinPriceRankDTO::getCrawlTime));
+        List<AsinPriceRankDTO> inserts = new ArrayList<>();
+        Map<String, Extension> extensions = new LinkedHashMap<>();
+
+        // 本批涉及的ASIN的状态副本，计划只修改副本
+        Map<String, RunState> staged = new HashMap<>(loaded);
+        synchronized (states) {
+            for (String asin : asins) {
+                RunState state = states.get(key(taskId, asin));
+                if (state != null) {
+                    staged.put(asin, state.copy());
+                }
+            }
+        }
+
+        for (AsinPriceRankDTO row : sorted) {
+            RunState state = staged.get(row.getAsin());
+            LocalDateTime crawlTime = row.getCrawlTime();
+            if (state != null && !crawlTime.isBefore(state.lastSeen)
+                    && crawlTime.toLocalDate().equals(state.start.toLocalDate())
+                    && state.values.sameValues(row)) {
+                state.lastSeen = crawlTime;
+                if (state.pending != null) {
+                    state.pending.setLastSeenTime(crawlTime);
+                    state.pending.setSeenCount(state.pending.getSeenCount() + 1);
+                } else {
+                    Extension previous = extensions.get(row.getAsin());
+                    extensions.put(row.getAsin(), previous == null
+                            ? new Extension(row.getAsin(), state.start, crawlTime, crawlTime, 1, state.values)
+                            : new Extension(row.getAsin(), state.start, previous.firstSeen(), crawlTime,
+                                    previous.count() + 1, state.values));
+                }
+                continue;
+            }
+
+            row.setLastSeenTime(null);
+            row.setSeenCount(1);
+            inserts.add(row);
+            if (state == null || !crawlTime.isBefore(state.lastSeen)) {
+                RunState next = new RunState(row, crawlTime, crawlTime);
+                next.pending = row;
+                staged.put(row.getAsin(), next);
+            }
+        }
+        // 本批新增的行写入后不再修改，之后的相同观测通过延长已有行记录
+        for (RunState state : staged.values()) {
+            state.pending = null;
+        }
+
+        Plan plan = new Plan(inserts, new ArrayList<>(extensions.values()), new HashSet<>());
+        publishOnCommit(taskId, staged, plan.reload());
+        return plan;
+    }
+
+    // 读取缓存中没有的ASIN的最近一行；数据库中也没有的不返回
+    private Map<String, RunState> loadMissing(Long taskId, Collection<String> asins) {
+        List<String> missing = new ArrayList<>();
+        synchronized (states) {
+            for (String asin : asins) {
+                if (!states.containsKey(key(taskId, asin))) {
+                    missing.add(asin);
+                }
+            }
+        }
+        Map<String, RunState> loaded = new HashMap<>();
+        for (int from = 0; from < missing.size(); from += LOAD_CHUNK) {
+            List<String> chunk = missing.subList(from, Math.min(missing.size(), from + LOAD_CHUNK));
+            List<Object> args = new ArrayList<>(chunk.size() + 1);
+            args.add(taskId);
+            args.addAll(chunk);
+            String sql = String.format(SELECT_LATEST, String.join(", ", Collections.nCopies(chunk.size(), "?")));
+            jdbcTemplate.query(sql, rs -> {
+                AsinPriceRankDTO values = new AsinPriceRankDTO();
+                values.setAsin(rs.getString(1));
+                values.setBrand(rs.getString(2));
+                values.setOriginalPrice(rs.getObject(3, Double.class));
+                values.setLdDiscount(rs.getObject(4, Double.class));
+                values.setBdDiscount(rs.getObject(5, Double.class));
+                values.setMemberPrice(rs.getObject(6, Double.class));
+                values.setMemberFinalPrice(rs.getObject(7, Double.class));
+                values.setNonMemberFinalPrice(rs.getObject(8, Double.class));
+                values.setCoupon(rs.getObject(9, Double.class));
+                values.setDirectDiscount(rs.getObject(10, Double.class));
+                values.setMainCategory(rs.getString(11));
+                values.setMainCategoryRank(rs.getObject(12, Integer.class));
+                values.setSubCategory(rs.getString(13));
+                values.setSubCategoryRank(rs.getObject(14, Integer.class));
+                LocalDateTime start = rs.getObject(15, LocalDateTime.class);
+                LocalDateTime lastSeen = rs.getObject(16, LocalDateTime.class);
+                loaded.put(values.getAsin(), new RunState(values, start, lastSeen == null ? start : lastSeen));
+            }, args.toArray());
+        }
+        return loaded;
+    }
+
+    // 事务提交后保存本批的状态；没有事务时立即保存
+    private void publishOnCommit(Long taskId, Map<String, RunState> staged, Set<String> reload) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(taskId, staged, reload);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(taskId, staged, reload);
+            }
+        });
+    }
+
+    // 并发写入同一ASIN时保留最后观测时间较晚的状态
+    private void publish(Long taskId, Map<String, RunState> staged, Set<String> reload) {
+        synchronized (states) {
+            staged.forEach((asin, state) -> {
+                String key = key(taskId, asin);
+                if (reload.contains(asin)) {
+                    states.remove(key);
+                    return;
+                }
+                RunState current = states.get(key);
+                if (current == null || !state.lastSeen.isBefore(current.lastSeen)) {
+                    states.put(key, state);
+                }
+            });
+        }
+    }
+
+    private static String key(Long taskId, String asin) {
+        return taskId + ":" + asin;
+    }
+}
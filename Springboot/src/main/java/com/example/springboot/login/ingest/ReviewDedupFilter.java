@@ -0,0 +1,209 @@
+package com.example.springboot.login.ingest;
+
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.event.CrawlDataChangedEvent;
+import com.example.springboot.login.export.ExportDataType;
+import com.example.springboot.login.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 评论去重：同一任务内 (asin, reviewId) 唯一，重复爬取的评论不再写入。
+// 每个任务的每个ASIN在内存中维护一个布隆过滤器（首次用到时从数据库加载已有 reviewId），
+// 过滤器判定不存在的评论一定是新评论，直接写入；判定可能存在的用一次查询确认，误判的仍会写入。
+// 过滤器只用于减少查询，插入时由唯一键保证不重复；过滤器按最近使用淘汰，淘汰后下次用到时重新加载
+@Component
+public class ReviewDedupFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewDedupFilter.class);
+
+    private static final String UNIQUE_KEY = "uk_review_task_asin_review";
+    private static final int LOOKUP_CHUNK = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${ingest.review-dedup.max-filters:20000}")
+    private int maxFilters;
+
+    @Value("${ingest.review-dedup.min-capacity:1000}")
+    private int minCapacity;
+
+    @Value("${ingest.review-dedup.fpp:0.01}")
+    private double fpp;
+
+    // key 为 taskId:asin，按访问顺序淘汰最久未用的过滤器
+    private final Map<String, BloomFilter> filters = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BloomFilter> eldest) {
+            return size() > maxFilters;
+        }
+    };
+
+    // 返回需要写入的评论（保持原顺序）：同一批内重复的只保留第一条，数据库中已有的去掉；没有 reviewId 的无法去重，全部保留
+    public List<AsinReviewDTO> filterNew(Long taskId, List<AsinReviewDTO> rows) {
+        boolean[] keep = new boolean[rows.size()];
+        Set<String> seen = new HashSet<>();
+        List<Integer> maybeExisting = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            AsinReviewDTO row = rows.get(i);
+            if (row.getReviewId() == null) {
+                keep[i] = true;
+                continue;
+            }
+            if (!seen.add(key(row.getAsin(), row.getReviewId()))) {
+                continue;
+            }
+            if (mightContain(taskId, row.getAsin(), row.getReviewId())) {
+                maybeExisting.add(i);
+            } else {
+                keep[i] = true;
+            }
+        }
+
+        if (!maybeExisting.isEmpty()) {
+            Set<String> existing = findExisting(taskId, rows, maybeExisting);
+            for (int i : maybeExisting) {
+                AsinReviewDTO row = rows.get(i);
+                keep[i] = !existing.contains(key(row.getAsin(), row.getReviewId()));
+            }
+        }
+
+        List<AsinReviewDTO> result = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (keep[i]) {
+                result.add(rows.get(i));
+            }
+        }
+        return result;
+    }
+
+    // 写入后把 reviewId 放入过滤器；事务回滚时过滤器中多出的 reviewId 只会导致多一次确认查询
+    public void record(Long taskId, List<AsinReviewDTO> rows) {
+        synchronized (filters) {
+            for (AsinReviewDTO row : rows) {
+                if (row.getReviewId() == null) {
+                    continue;
+                }
+                String filterKey = taskId + ":" + row.getAsin();
+                BloomFilter filter = filters.get(filterKey);
+                if (filter == null) {
+                    continue;
+                }
+                filter.put(row.getReviewId());
+                // 元素超过预计数量后误判率升高，丢弃后下次用到时按新的数量重新加载
+                if (filter.isSaturated()) {
+                    filters.remove(filterKey);
+                }
+            }
+        }
+    }
+
+    // 不确定哪些评论已写入时丢弃相关ASIN的过滤器，下次用到时从数据库重新加载
+    public void forget(Long taskId, List<AsinReviewDTO> rows) {
+        synchronized (filters) {
+            for (AsinReviewDTO row : rows) {
+                filters.remove(taskId + ":" + row.getAsin());
+            }
+        }
+    }
+
+    private boolean mightContain(Long taskId, String asin, String reviewId) {
+        String filterKey = taskId + ":" + asin;
+        BloomFilter filter;
+        synchronized (filters) {
+            filter = filters.get(filterKey);
+            if (filter != null) {
+                return filter.mightContain(reviewId);
+            }
+        }
+
+        // 加载期间不持有锁，同一ASIN并发加载时后放入的覆盖先放入的
+        List<String> reviewIds = jdbcTemplate.queryForList(
+                "SELECT review_id FROM asin_review WHERE task_id = ? AND asin = ? AND review_id IS NOT NULL",
+                String.class, taskId, asin);
+        filter = new BloomFilter(Math.max(minCapacity, reviewIds.size() * 2), fpp);
+        for (String id : reviewIds) {
+            filter.put(id);
+        }
+        synchronized (filters) {
+            filters.put(filterKey, filter);
+            return filter.mightContain(reviewId);
+        }
+    }
+
+    // 按唯一键分批查询已存在的 (asin, reviewId)
+    private Set<String> findExisting(Long taskId, List<AsinReviewDTO> rows, List<Integer> indexes) {
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < indexes.size(); from += LOOKUP_CHUNK) {
+            List<Integer> chunk = indexes.subList(from, Math.min(indexes.size(), from + LOOKUP_CHUNK));
+            StringBuilder sql = new StringBuilder(
+                    "SELECT asin, review_id FROM asin_review WHERE task_id = ? AND (asin, review_id) IN (");
+            List<Object> args = new ArrayList<>(chunk.size() * 2 + 1);
+            args.add(taskId);
+            for (int i = 0; i < chunk.size(); i++) {
+                AsinReviewDTO row = rows.get(chunk.get(i));
+                sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+                args.add(row.getAsin());
+                args.add(row.getReviewId());
+            }
+            sql.append(')');
+            jdbcTemplate.query(sql.toString(),
+                    rs -> {
+                        existing.add(key(rs.getString(1), rs.getString(2)));
+                    },
+                    args.toArray());
+        }
+        return existing;
+    }
+
+    private static String key(String asin, String reviewId) {
+        return asin + '\u0000' + reviewId;
+    }
+
+    // 升级前已写入的重复评论会导致唯一键创建失败：启动时删除重复行（保留最早写入的一条）后补建唯一键
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureUniqueKey() {
+        Integer present = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics " +
+                        "WHERE table_schema = DATABASE() AND table_name = 'asin_review' AND index_name = ?",
+                Integer.class, UNIQUE_KEY);
+        if (present != null && present > 0) {
+            return;
+        }
+        try {
+            List<Long> taskIds = jdbcTemplate.queryForList(
+                    "SELECT DISTINCT r1.task_id FROM asin_review r1 JOIN asin_review r2 " +
+                            "ON r1.task_id = r2.task_id AND r1.asin = r2.asin AND r1.review_id = r2.review_id AND r1.id > r2.id",
+                    Long.class);
+            int deleted = jdbcTemplate.update(
+                    "DELETE r1 FROM asin_review r1 JOIN asin_review r2 " +
+                            "ON r1.task_id = r2.task_id AND r1.asin = r2.asin AND r1.review_id = r2.review_id AND r1.id > r2.id");
+            jdbcTemplate.execute("ALTER TABLE asin_review ADD CONSTRAINT " + UNIQUE_KEY +
+                    " UNIQUE (task_id, asin, review_id)");
+            // 删除了已有行，依赖评论数据的增量结果需要重建
+            for (Long taskId : taskIds) {
+                eventPublisher.publishEvent(new CrawlDataChangedEvent(taskId, ExportDataType.REVIEWS, false));
+            }
+            log.info("已删除 {} 条重复评论并创建唯一键 {}", deleted, UNIQUE_KEY);
+        } catch (RuntimeException e) {
+            log.warn("创建评论唯一键失败，下次启动时重试", e);
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.example.springboot.login.ingest;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.exception.QueueFullException;
+import com.example.springboot.login.repository.CrawlerTaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// 爬取结果写缓冲：写入请求把记录放入预分配的环形缓冲区后即返回，由单个写入线程攒批后批量插入数据库。
+// 放入时用CAS占用连续的序号区间（不加锁），写好槽位后以槽位序号作为发布标记；写入线程按序号顺序读取已发布的槽位，
+// 攒够 flush-size 条或距第一条超过 flush-interval 时在一个事务中写入，之后释放槽位。缓冲区满时写入请求等待，
+// 超时返回503。开启 journal 时记录先追加到本地日志并 fsync 后才确认，服务异常退出后启动时从日志补写未写入的记录。
+// 连接、超时等临时性错误退避重试，重试 max-retries 次仍失败时逐条写入；约束冲突等重试也不会成功的错误直接逐条写入。
+// 逐条写入仍然失败的记录转存到 dead-letter-dir，不再阻塞后续写入
+@Component
+public class WriteBehindBuffer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long MAX_RETRY_BACKOFF_MS = 30_000;
+
+    @Autowired
+    private CrawlDataWriter crawlDataWriter;
+
+    @Autowired
+    private CrawlerTaskRepository crawlerTaskRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${ingest.write-behind.capacity:65536}")
+    private int capacity;
+
+    @Value("${ingest.write-behind.flush-size:5000}")
+    private int flushSize;
+
+    @Value("${ingest.write-behind.flush-interval:200ms}")
+    private Duration flushInterval;
+
+    @Value("${ingest.write-behind.publish-timeout:2s}")
+    private Duration publishTimeout;
+
+    @Value("${ingest.write-behind.shutdown-timeout:30s}")
+    private Duration shutdownTimeout;
+
+    @Value("${ingest.write-behind.journal:false}")
+    private boolean journalEnabled;
+
+    @Value("${ingest.write-behind.journal-dir:./data/ingest-journal}")
+    private String journalDir;
+
+    @Value("${ingest.write-behind.journal-segment-size:64MB}")
+    private DataSize journalSegmentSize;
+
+    @Value("${ingest.write-behind.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${ingest.write-behind.retry-backoff:1s}")
+    private Duration retryBackoff;
+
+    @Value("${ingest.write-behind.dead-letter-dir:./data/ingest-dead-letter}")
+    private String deadLetterDir;
+
+    // 槽位只在启动时分配一次，之后循环复用
+    private static final class Slot {
+        private CrawlRecord record;
+        // 槽位当前持有的记录序号，写入线程据此判断记录是否已发布
+        private volatile long sequence = -1;
+    }
+
+    private Slot[] slots;
+    private int mask;
+    // 已被写入请求占用的最大序号
+    private final AtomicLong cursor = new AtomicLong(-1);
+    // 已写入数据库、槽位可复用的最大序号
+    private final AtomicLong flushed = new AtomicLong(-1);
+
+    private TransactionTemplate transactionTemplate;
+    private WriteBehindJournal journal;
+    private Thread flusher;
+    private volatile boolean running;
+
+    // 放入一组记录（调用方已校验），返回时记录已在缓冲区中；开启日志时返回前已落盘
+    public void publish(List<CrawlRecord> records) {
+        int n = records.size();
+        if (n == 0) {
+            return;
+        }
+        if (n > capacity) {
+            throw new IllegalArgumentException("单次最多缓冲写入 " + capacity + " 条记录");
+        }
+        long hi = claim(n);
+        long lo = hi - n + 1;
+
+        IOException failure = null;
+        if (journal != null) {
+            try {
+                journal.append(lo, records);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        // 日志写入失败时仍要发布已占用的槽位（记录为空，写入线程直接跳过），否则写入线程会一直等待
+        for (int i = 0; i < n; i++) {
+            Slot slot = slots[(int) ((lo + i) & mask)];
+            slot.record = failure == null ? records.get(i) : null;
+            slot.sequence = lo + i;
+        }
+        if (failure != null) {
+            log.error("写缓冲日志写入失败", failure);
+            throw new UncheckedIOException("写缓冲日志写入失败", failure);
+        }
+    }
+
+    // 占用 n 个连续序号：只有这些槽位都已释放时才推进 cursor，避免覆盖未写入的记录
+    private long claim(int n) {
+        long deadline = System.nanoTime() + publishTimeout.toNanos();
+        while (true) {
+            if (!running) {
+                throw new QueueFullException("写缓冲已停止，请稍后重试");
+            }
+            long current = cursor.get();
+            long next = current + n;
+            if (next - capacity <= flushed.get()) {
+                if (cursor.compareAndSet(current, next)) {
+                    return next;
+                }
+            } else if (System.nanoTime() - deadline > 0) {
+                throw new QueueFullException("写缓冲区已满，请稍后重试");
+            } else {
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+        }
+    }
+
+    // 缓冲区中尚未写入数据库的记录数
+    public long getPendingCount() {
+        return cursor.get() - flushed.get();
+    }
+
+    @Override
+    public void start() {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalStateException("ingest.write-behind.capacity 必须是2的幂: " + capacity);
+        }
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        mask = capacity - 1;
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        if (journalEnabled) {
+            try {
+                journal = new WriteBehindJournal(Path.of(journalDir), journalSegmentSize.toBytes(), objectMapper);
+                replay(journal.recover());
+                journal.reset();
+            } catch (IOException e) {
+                throw new UncheckedIOException("写缓冲日志恢复失败: " + journalDir, e);
+            }
+        }
+
+        running = true;
+        flusher = new CustomizableThreadFactory("ingest-write-behind-").newThread(this::runFlusher);
+        flusher.start();
+    }
+
+    // 补写上次退出前已确认但未写入数据库的记录，每批提交后更新日志水位，中途失败时启动失败，
+    // 下次启动只补写尚未提交的批次
+    private void replay(List<WriteBehindJournal.Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        log.info("从写缓冲日志恢复 {} 条记录", entries.size());
+        for (int from = 0; from < entries.size(); from += flushSize) {
+            List<WriteBehindJournal.Entry> chunk = entries.subList(from, Math.min(entries.size(), from + flushSize));
+            List<CrawlRecord> batch = new ArrayList<>(chunk.size());
+            for (WriteBehindJournal.Entry entry : chunk) {
+                batch.add(entry.record());
+            }
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                write(dropDeletedTasks(batch));
+            }
+            journal.markFlushed(chunk.get(chunk.size() - 1).seq());
+        }
+    }
+
+    // 先停止接收，再等待缓冲区中的记录写完；超时后放弃，开启日志时这些记录在下次启动时补写
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher == null) {
+            return;
+        }
+        try {
+            flusher.join(shutdownTimeout.toMillis());
+            if (flusher.isAlive()) {
+                flusher.interrupt();
+                flusher.join(TimeUnit.SECONDS.toMillis(1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("关闭写缓冲日志失败", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // 在Web服务器启动前恢复日志并开始接收，在Web服务器停止后才排空缓冲区
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void runFlusher() {
+        List<CrawlRecord> batch = new ArrayList<>(flushSize);
+        long next = flushed.get() + 1;
+        long batchStart = 0;
+        long intervalNanos = flushInterval.toNanos();
+        while (!Thread.currentThread().isInterrupted()) {
+            Slot slot = slots[(int) (next & mask)];
+            if (next - flushed.get() <= flushSize && slot.sequence == next) {
+                if (next == flushed.get() + 1) {
+                    batchStart = System.nanoTime();
+                }
+                if (slot.record != null) {
+                    batch.add(slot.record);
+                }
+                next++;
+                continue;
+            }
+
+            long last = next - 1;
+            boolean stopping = !running;
+            if (last > flushed.get() && (last - flushed.get() >= flushSize
+                    || System.nanoTime() - batchStart >= intervalNanos || stopping)) {
+                if (!flush(batch, last)) {
+                    break;
+                }
+                batch.clear();
+            } else if (stopping && cursor.get() == flushed.get()) {
+                return;
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        long lost = cursor.get() - flushed.get();
+        if (lost > 0) {
+            log.error("写缓冲停止时仍有 {} 条记录未写入数据库{}", lost, journal != null ? "，将在下次启动时从日志补写" : "");
+        }
+    }
+
+    // 写入序号不超过 last 的一批记录并释放槽位；临时性错误退避重试（期间缓冲区写满后写入请求返回503），
+    // 重试次数用完或遇到非临时性错误时逐条写入并转存失败的记录。写入线程被中断时返回 false
+    private boolean flush(List<CrawlRecord> batch, long last) {
+        List<CrawlRecord> pending = batch;
+        long backoff = retryBackoff.toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                write(pending);
+                break;
+            } catch (RuntimeException e) {
+                try {
+                    // 写入期间任务被删除时外键约束失败，丢弃已删除任务的记录
+                    pending = dropDeletedTasks(pending);
+                } catch (RuntimeException ignored) {
+                    // 数据库不可用，下次重试时再检查
+                }
+                if (!isTransient(e)) {
+                    log.error("写缓冲批量写入失败且重试无效，改为逐条写入: {} 条记录", pending.size(), e);
+                    writeEach(pending);
+                    break;
+                }
+                if (attempt > maxRetries) {
+                    log.error("写缓冲批量写入重试 {} 次后仍失败，改为逐条写入: {} 条记录", maxRetries, pending.size(), e);
+                    writeEach(pending);
+                    break;
+                }
+                log.error("写缓冲批量写入失败，{} 毫秒后重试: {} 条记录", backoff, pending.size(), e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MS);
+            }
+        }
+
+        for (long seq = flushed.get() + 1; seq <= last; seq++) {
+            slots[(int) (seq & mask)].record = null;
+        }
+        flushed.set(last);
+        if (journal != null) {
+            try {
+                journal.markFlushed(last);
+            } catch (IOException e) {
+                // 水位没有落盘只会导致下次启动时重复补写，不影响已写入的数据
+                log.warn("写缓冲日志水位更新失败", e);
+            }
+        }
+        return true;
+    }
+
+    // 按任务分组，所有任务的价格和评论在同一事务中写入
+    private void write(List<CrawlRecord> records) {
+        Map<Long, List<AsinPriceRankDTO>> priceRanks = new LinkedHashMap<>();
+        Map<Long, List<AsinReviewDTO>> reviews = new LinkedHashMap<>();
+        for (CrawlRecord record : records) {
+            if (record.priceRank() != null) {
+                priceRanks.computeIfAbsent(record.taskId(), k -> new ArrayList<>()).add(record.priceRank());
+            } else if (record.review() != null) {
+                reviews.computeIfAbsent(record.taskId(), k -> new ArrayList<>()).add(record.review());
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            priceRanks.forEach(crawlDataWriter::insertPriceRanks);
+            reviews.forEach(crawlDataWriter::insertReviews);
+        });
+    }
+
+    // 每条记录单独一个事务写入，把导致整批失败的记录分离出来转存，其余记录照常写入
+    private void writeEach(List<CrawlRecord> records) {
+        List<CrawlRecord> failed = new ArrayList<>();
+        RuntimeException lastFailure = null;
+        for (CrawlRecord record : records) {
+            try {
+                write(List.of(record));
+            } catch (RuntimeException e) {
+                failed.add(record);
+                lastFailure = e;
+            }
+        }
+        if (!failed.isEmpty()) {
+            deadLetter(failed, lastFailure);
+        }
+    }
+
+    // 把无法写入的记录追加到转存文件（每行一条JSON），确认原因后可重新提交；转存也失败时只能丢弃
+    private void deadLetter(List<CrawlRecord> records, RuntimeException cause) {
+        Path file = Path.of(deadLetterDir).resolve("dead-letter-" + LocalDate.now() + ".log");
+        try {
+            Files.createDirectories(file.getParent());
+            StringBuilder text = new StringBuilder();
+            for (CrawlRecord record : records) {
+                text.append(objectMapper.writeValueAsString(record)).append('\n');
+            }
+            Files.writeString(file, text, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            log.error("写缓冲有 {} 条记录无法写入数据库，已转存到 {}", records.size(), file, cause);
+        } catch (IOException e) {
+            log.error("写缓冲有 {} 条记录无法写入数据库且转存失败，已丢弃", records.size(), e);
+        }
+    }
+
+    // 连接失败、超时、死锁等错误等待后可能成功；约束冲突、数据过长等错误每次重试都会失败
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private List<CrawlRecord> dropDeletedTasks(List<CrawlRecord> records) {
+        Set<Long> taskIds = new HashSet<>();
+        for (CrawlRecord record : records) {
+            taskIds.add(record.taskId());
+        }
+        Set<Long> existing = new HashSet<>(crawlerTaskRepository.findExistingIds(taskIds));
+        if (existing.size() == taskIds.size()) {
+            return records;
+        }
+        List<CrawlRecord> kept = new ArrayList<>(records.size());
+        for (CrawlRecord record : records) {
+            if (existing.contains(record.taskId())) {
+                kept.add(record);
+            }
+        }
+        log.warn("丢弃已删除任务的缓冲记录 {} 条", records.size() - kept.size());
+        return kept;
+    }
+}
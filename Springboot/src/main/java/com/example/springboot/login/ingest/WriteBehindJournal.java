@@ -0,0 +1,206 @@
+package com.example.springboot.login.ingest;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+// 写缓冲的本地追加日志：记录进入环形缓冲区前先追加到日志文件并 fsync，之后才向客户端确认。
+// 每行一条记录（带缓冲区序号），日志按大小分段；写入数据库后在 flushed.seq 中记录已写入的最大序号，
+// 并删除其中记录全部已写入的分段。服务异常退出后，启动时重放序号大于 flushed.seq 的记录
+class WriteBehindJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindJournal.class);
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String FLUSHED_FILE = "flushed.seq";
+
+    private final Path dir;
+    private final long segmentSize;
+    private final ObjectMapper objectMapper;
+
+    // 已写满的分段及其中的最大序号
+    private final Deque<Segment> closedSegments = new ArrayDeque<>();
+    private Segment current;
+    private int segmentNo;
+
+    private record Segment(Path file, FileChannel channel, long maxSeq) {
+    }
+
+    // 日志中的一行
+    record Entry(long seq, Long taskId, AsinPriceRankDTO price, AsinReviewDTO review) {
+
+        CrawlRecord record() {
+            return new CrawlRecord(taskId, price, review);
+        }
+    }
+
+    WriteBehindJournal(Path dir, long segmentSize, ObjectMapper objectMapper) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.objectMapper = objectMapper;
+    }
+
+    // 读出上次未写入数据库的记录（按序号排序），调用方每写入一批后调用 markFlushed，全部写入后再调用 reset
+    List<Entry> recover() throws IOException {
+        Files.createDirectories(dir);
+        long flushed = readFlushed();
+        List<Entry> entries = new ArrayList<>();
+        for (Path file : listSegments()) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        Entry entry = objectMapper.readValue(line, Entry.class);
+                        if (entry.seq() > flushed) {
+                            entries.add(entry);
+                        }
+                    } catch (IOException e) {
+                        // 最后一行可能在 fsync 前写了一半，这样的记录尚未确认，直接丢弃
+                        log.warn("忽略无法解析的写缓冲日志行: {}", file);
+                    }
+                }
+            }
+        }
+        entries.sort(Comparator.comparingLong(Entry::seq));
+        return entries;
+    }
+
+    // 清空日志，缓冲区序号从0重新开始
+    synchronized void reset() throws IOException {
+        closeAll();
+        for (Path file : listSegments()) {
+            Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(dir.resolve(FLUSHED_FILE));
+        segmentNo = 0;
+        current = openSegment(-1);
+    }
+
+    // 追加序号从 firstSeq 开始的一组记录并 fsync，返回后记录在服务异常退出时也不会丢失；
+    // 失败时截断本次已写入的部分，这些记录没有确认，不能在重启后被补写
+    synchronized void append(long firstSeq, List<CrawlRecord> records) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < records.size(); i++) {
+            CrawlRecord record = records.get(i);
+            text.append(objectMapper.writeValueAsString(
+                    new Entry(firstSeq + i, record.taskId(), record.priceRank(), record.review())));
+            text.append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        long startPos = current.channel().size();
+        try {
+            while (buffer.hasRemaining()) {
+                current.channel().write(buffer);
+            }
+            current.channel().force(false);
+        } catch (IOException e) {
+            rollback(startPos, e);
+            throw e;
+        }
+        current = new Segment(current.file(), current.channel(),
+                Math.max(current.maxSeq(), firstSeq + records.size() - 1));
+
+        if (current.channel().size() >= segmentSize) {
+            closedSegments.addLast(current);
+            current = openSegment(current.maxSeq());
+        }
+    }
+
+    // 序号不超过 seq 的记录已写入数据库：持久化水位并删除全部已写入的分段
+    synchronized void markFlushed(long seq) throws IOException {
+        Path temp = dir.resolve(FLUSHED_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(Long.toString(seq).getBytes(StandardCharsets.UTF_8)));
+            channel.force(false);
+        }
+        Files.move(temp, dir.resolve(FLUSHED_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        while (!closedSegments.isEmpty() && closedSegments.peekFirst().maxSeq() <= seq) {
+            Segment segment = closedSegments.removeFirst();
+            segment.channel().close();
+            Files.deleteIfExists(segment.file());
+        }
+    }
+
+    // 截断到追加前的位置；截断失败时换用新的分段，避免之后的记录接在写了一半的行后面而无法解析
+    private void rollback(long startPos, IOException cause) {
+        try {
+            current.channel().truncate(startPos);
+            current.channel().force(false);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            log.error("写缓冲日志截断失败，改用新的分段: {}", current.file(), e);
+            closedSegments.addLast(current);
+            try {
+                current = openSegment(current.maxSeq());
+            } catch (IOException openFailure) {
+                cause.addSuppressed(openFailure);
+            }
+        }
+    }
+
+    synchronized void close() throws IOException {
+        closeAll();
+    }
+
+    private void closeAll() throws IOException {
+        for (Segment segment : closedSegments) {
+            segment.channel().close();
+        }
+        closedSegments.clear();
+        if (current != null) {
+            current.channel().close();
+            current = null;
+        }
+    }
+
+    private Segment openSegment(long maxSeq) throws IOException {
+        Path file = dir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, ++segmentNo, SEGMENT_SUFFIX));
+        return new Segment(file, openChannel(file), maxSeq);
+    }
+
+    // 测试中替换为写入时出错的通道
+    FileChannel openChannel(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private long readFlushed() throws IOException {
+        Path file = dir.resolve(FLUSHED_FILE);
+        if (!Files.exists(file)) {
+            return -1L;
+        }
+        return Long.parseLong(Files.readString(file, StandardCharsets.UTF_8).trim());
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.naturalOrder());
+        return files;
+    }
+}
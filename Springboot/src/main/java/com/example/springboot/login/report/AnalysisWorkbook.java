@@ -0,0 +1,111 @@
+package com.example.springboot.login.report;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.export.ExcelCellUtils;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.Iterator;
+
+// 分析底表的数据页：清空"价格与排名数据""评论数据"两页原有数据（保留表头位置）后按行写入，
+// 底表"汇总"页的公式引用这两页。Python 方式写入文件后交给脚本读取，Java 方式只在内存中计算汇总页。
+// 仅记录变化的价格行不展开，每行写一次，末尾两列为观测次数和最后观测时间，需要按观测次数加权的汇总公式引用这两列
+public final class AnalysisWorkbook {
+
+    public static final String PRICE_SHEET_NAME = "价格与排名数据";
+    public static final String REVIEW_SHEET_NAME = "评论数据";
+
+    private static final String[] PRICE_HEADERS = {"ASIN", "品牌", "原价", "LD折扣", "BD折扣", "优惠券", "直降%",
+            "会员价", "会员最终价", "非会员最终价", "大类目", "大类目排名", "小类目", "小类目排名", "爬取时间", "观测次数", "最后观测时间"};
+    private static final String[] REVIEW_HEADERS = {"ASIN", "品牌", "评论者", "评论日期", "评论内容", "爬取时间"};
+
+    // 数据页除表头外最多可写入的行数
+    public static final int MAX_DATA_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+
+    private AnalysisWorkbook() {
+    }
+
+    // 写入价格与排名数据页，返回该页
+    public static Sheet fillPriceSheet(Workbook workbook, Iterator<AsinPriceRankDTO> rows, CellStyle dateStyle) {
+        Sheet sheet = clearSheet(workbook, PRICE_SHEET_NAME, PRICE_HEADERS);
+        int rowIndex = 1;
+        while (rows.hasNext()) {
+            AsinPriceRankDTO rank = rows.next();
+            Row dataRow = sheet.createRow(rowIndex++);
+
+            ExcelCellUtils.setCellValue(dataRow.createCell(0), rank.getAsin());
+            ExcelCellUtils.setCellValue(dataRow.createCell(1), rank.getBrand());
+            ExcelCellUtils.setCellValue(dataRow.createCell(2), rank.getOriginalPrice());
+            ExcelCellUtils.setCellValue(dataRow.createCell(3), rank.getLdDiscount());
+            ExcelCellUtils.setCellValue(dataRow.createCell(4), rank.getBdDiscount());
+            ExcelCellUtils.setCellValue(dataRow.createCell(5), rank.getCoupon());
+            ExcelCellUtils.setCellValue(dataRow.createCell(6), rank.getDirectDiscount());
+            ExcelCellUtils.setCellValue(dataRow.createCell(7), rank.getMemberPrice());
+            ExcelCellUtils.setCellValue(dataRow.createCell(8), rank.getMemberFinalPrice());
+            ExcelCellUtils.setCellValue(dataRow.createCell(9), rank.getNonMemberFinalPrice());
+            ExcelCellUtils.setCellValue(dataRow.createCell(10), rank.getMainCategory());
+            ExcelCellUtils.setCellValue(dataRow.createCell(11), rank.getMainCategoryRank());
+            ExcelCellUtils.setCellValue(dataRow.createCell(12), rank.getSubCategory());
+            ExcelCellUtils.setCellValue(dataRow.createCell(13), rank.getSubCategoryRank());
+            ExcelCellUtils.setDateCellValue(dataRow.createCell(14), rank.getCrawlTime(), dateStyle);
+            ExcelCellUtils.setCellValue(dataRow.createCell(15), rank.getSeenCount() == null ? 1 : rank.getSeenCount());
+            ExcelCellUtils.setDateCellValue(dataRow.createCell(16),
+                    rank.getLastSeenTime() == null ? rank.getCrawlTime() : rank.getLastSeenTime(), dateStyle);
+        }
+        return sheet;
+    }
+
+    // 写入评论数据页，返回该页
+    public static Sheet fillReviewSheet(Workbook workbook, Iterator<AsinReviewDTO> rows, CellStyle dateStyle) {
+        Sheet sheet = clearSheet(workbook, REVIEW_SHEET_NAME, REVIEW_HEADERS);
+        int rowIndex = 1;
+        while (rows.hasNext()) {
+            AsinReviewDTO review = rows.next();
+            Row dataRow = sheet.createRow(rowIndex++);
+
+            ExcelCellUtils.setCellValue(dataRow.createCell(0), review.getAsin());
+            ExcelCellUtils.setCellValue(dataRow.createCell(1), review.getBrand());
+            ExcelCellUtils.setCellValue(dataRow.createCell(2), review.getReviewerName());
+            ExcelCellUtils.setDateCellValue(dataRow.createCell(3), review.getReviewDate(), dateStyle);
+            ExcelCellUtils.setCellValue(dataRow.createCell(4), review.getReviewContent());
+            ExcelCellUtils.setDateCellValue(dataRow.createCell(5), review.getCrawlTime(), dateStyle);
+        }
+        return sheet;
+    }
+
+    public static int priceColumnCount() {
+        return PRICE_HEADERS.length;
+    }
+
+    public static int reviewColumnCount() {
+        return REVIEW_HEADERS.length;
+    }
+
+    // 清除原有数据（保留表头行位置）并重写表头
+    private static Sheet clearSheet(Workbook workbook, String name, String[] headers) {
+        Sheet sheet = workbook.getSheet(name);
+        if (sheet == null) {
+            sheet = workbook.createSheet(name);
+        } else {
+            int lastRowNum = sheet.getLastRowNum();
+            for (int i = sheet.getFirstRowNum() + 1; i <= lastRowNum; i++) {
+                Row row = sheet.getRow(i);
+                if (row != null) {
+                    sheet.removeRow(row);
+                }
+            }
+        }
+
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers[i]);
+        }
+        return sheet;
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.springboot.login.report;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.AreaReference;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xddf.usermodel.chart.XDDFBarChartData;
+import org.apache.poi.xddf.usermodel.chart.XDDFCategoryDataSource;
+import org.apache.poi.xddf.usermodel.chart.XDDFChartData;
+import org.apache.poi.xddf.usermodel.chart.XDDFDataSource;
+import org.apache.poi.xddf.usermodel.chart.XDDFDataSourcesFactory;
+import org.apache.poi.xddf.usermodel.chart.XDDFNumericalDataSource;
+import org.apache.poi.xddf.usermodel.chart.XDDFPieChartData;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFChart;
+import org.apache.poi.xslf.usermodel.XSLFGraphicFrame;
+import org.apache.poi.xslf.usermodel.XSLFGroupShape;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.apache.poi.xslf.usermodel.XSLFTextRun;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTSerTx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+// 使用POI XSLF在进程内填充PPT报告模板，替代原先调用Python脚本（PowerPoint COM）的方式。
+// 两种填充方式：按分析底表"汇总"页的 幻灯片编号/形状名称 映射更新（规则与 ppt_renew_info.py 一致）；
+// 没有底表时按 ReportModel 中的形状名称替换文本框、表格单元格和图表数据
+@Component
+public class PptxReportRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(PptxReportRenderer.class);
+
+    private static final String TEXT_TYPE = "文本框";
+    private static final String TABLE_TYPE = "表格";
+    private static final Set<String> CHART_TYPES = Set.of("饼图", "柱形图", "条形图");
+
+    // 按汇总页更新：幻灯片编号为其在演示文稿中的序号（从1开始），只处理幻灯片顶层形状
+    public void render(Path template, SummarySheet summary, OutputStream out) throws IOException {
+        try (InputStream in = Files.newInputStream(template);
+             XMLSlideShow ppt = new XMLSlideShow(in)) {
+            List<XSLFSlide> slides = ppt.getSlides();
+            for (int i = 0; i < slides.size(); i++) {
+                for (XSLFShape shape : slides.get(i).getShapes()) {
+                    List<SummarySheet.Entry> updates = summary.get(i + 1, shape.getShapeName());
+                    if (updates != null) {
+                        applyUpdates(shape, updates);
+                    }
+                }
+            }
+            ppt.write(out);
+        }
+    }
+
+    private void applyUpdates(XSLFShape shape, List<SummarySheet.Entry> updates) throws IOException {
+        if (shape instanceof XSLFTable table) {
+            // 第 i 条更新写入表格第 i 行，类型不是表格的更新占位但不写入
+            int rowCount = Math.min(updates.size(), table.getNumberOfRows());
+            for (int r = 0; r < rowCount; r++) {
+                SummarySheet.Entry update = updates.get(r);
+                if (!update.type().contains(TABLE_TYPE)) {
+                    continue;
+                }
+                int colCount = Math.min(update.data().length, table.getNumberOfColumns());
+                for (int c = 0; c < colCount; c++) {
+                    replaceText(table.getCell(r, c), update.data()[c]);
+                }
+            }
+        } else if (shape instanceof XSLFTextShape textShape) {
+            // 与脚本一致：模板中没有文字的文本框不更新，多条更新时以最后一条为准
+            if (textShape.getText() == null || textShape.getText().isEmpty()) {
+                return;
+            }
+            for (SummarySheet.Entry update : updates) {
+                if (update.type().replace(" ", "").contains(TEXT_TYPE)) {
+                    replaceText(textShape, update.content());
+                }
+            }
+        } else if (shape instanceof XSLFGraphicFrame frame && frame.hasChart()) {
+            List<SummarySheet.Entry> chartUpdates = updates.stream()
+                    .filter(update -> CHART_TYPES.contains(update.type()))
+                    .toList();
+            if (!chartUpdates.isEmpty()) {
+                fillChartSheet(frame.getChart(), chartUpdates);
+            }
+        }
+    }
+
+    // 清空图表内嵌工作簿第一页后从A1起写入（每条更新一行，可解析为数值的写数值），
+    // 再按各系列原有的引用区域重新读取分类、数值和系列名称，相当于在PowerPoint中编辑数据后刷新图表
+    private void fillChartSheet(XSLFChart chart, List<SummarySheet.Entry> updates) throws IOException {
+        XSSFWorkbook workbook;
+        try {
+            workbook = chart.getWorkbook();
+        } catch (InvalidFormatException e) {
+            throw new IOException("读取图表内嵌工作簿失败", e);
+        }
+        Sheet sheet = workbook.getSheetAt(0);
+        for (Row row : sheet) {
+            for (Cell cell : row) {
+                cell.setBlank();
+            }
+        }
+        for (int r = 0; r < updates.size(); r++) {
+            Row row = sheet.getRow(r) != null ? sheet.getRow(r) : sheet.createRow(r);
+            String[] data = updates.get(r).data();
+            for (int c = 0; c < data.length; c++) {
+                Cell cell = row.getCell(c) != null ? row.getCell(c) : row.createCell(c);
+                Double number = parseNumber(data[c]);
+                if (number != null) {
+                    cell.setCellValue(number);
+                } else if (!data[c].isEmpty()) {
+                    cell.setCellValue(data[c]);
+                }
+            }
+        }
+
+        DataFormatter formatter = new DataFormatter();
+        for (XDDFChartData chartData : chart.getChartSeries()) {
+            for (int i = 0; i < chartData.getSeriesCount(); i++) {
+                refreshSeries(chartData.getSeries(i), workbook, formatter);
+            }
+        }
+        try {
+            chart.saveWorkbook(workbook);
+        } catch (InvalidFormatException e) {
+            throw new IOException("保存图表内嵌工作簿失败", e);
+        }
+    }
+
+    private void refreshSeries(XDDFChartData.Series series, XSSFWorkbook workbook, DataFormatter formatter) {
+        String categoryRef = rangeReference(series.getCategoryData());
+        String valueRef = rangeReference(series.getValuesData());
+        if (valueRef == null) {
+            log.warn("图表系列没有引用工作簿数据，跳过");
+            return;
+        }
+        XDDFDataSource<?> categoryData = series.getCategoryData();
+        if (categoryRef != null) {
+            AreaReference area = new AreaReference(categoryRef, SpreadsheetVersion.EXCEL2007);
+            CellReference[] cells = area.getAllReferencedCells();
+            String[] categories = new String[cells.length];
+            for (int i = 0; i < cells.length; i++) {
+                Cell cell = cellAt(workbook, cells[i]);
+                categories[i] = cell == null ? "" : formatter.formatCellValue(cell);
+            }
+            categoryData = XDDFDataSourcesFactory.fromArray(categories, categoryRef, area.getFirstCell().getCol());
+        }
+
+        AreaReference area = new AreaReference(valueRef, SpreadsheetVersion.EXCEL2007);
+        CellReference[] cells = area.getAllReferencedCells();
+        Double[] values = new Double[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            Cell cell = cellAt(workbook, cells[i]);
+            values[i] = cell != null && cell.getCellType() == CellType.NUMERIC ? cell.getNumericCellValue() : null;
+        }
+        XDDFNumericalDataSource<Double> valueData =
+                XDDFDataSourcesFactory.fromArray(values, valueRef, area.getFirstCell().getCol());
+        series.replaceData(categoryData, valueData);
+        series.plot();
+
+        String titleRef = titleReference(series);
+        if (titleRef != null) {
+            CellReference ref = new CellReference(titleRef);
+            Cell cell = cellAt(workbook, ref);
+            series.setTitle(cell == null ? "" : formatter.formatCellValue(cell), ref);
+        }
+    }
+
+    private static String rangeReference(XDDFDataSource<?> source) {
+        return source != null && source.isReference() ? source.getDataRangeReference() : null;
+    }
+
+    // 系列名称引用的单元格（如 Sheet1!$B$1），仅柱形图/条形图和饼图
+    private static String titleReference(XDDFChartData.Series series) {
+        CTSerTx tx = null;
+        if (series instanceof XDDFBarChartData.Series bar && bar.getCTBarSer().isSetTx()) {
+            tx = bar.getCTBarSer().getTx();
+        } else if (series instanceof XDDFPieChartData.Series pie && pie.getCTPieSer().isSetTx()) {
+            tx = pie.getCTPieSer().getTx();
+        }
+        return tx != null && tx.isSetStrRef() ? tx.getStrRef().getF() : null;
+    }
+
+    private static Cell cellAt(XSSFWorkbook workbook, CellReference ref) {
+        Sheet sheet = ref.getSheetName() != null ? workbook.getSheet(ref.getSheetName()) : workbook.getSheetAt(0);
+        Row row = sheet == null ? null : sheet.getRow(ref.getRow());
+        return row == null ? null : row.getCell(ref.getCol());
+    }
+
+    private static Double parseNumber(String text) {
+        try {
+            return Double.valueOf(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // 按形状名称填充（含组合内的形状）；读取模板并填充后写入 out，模板本身不修改
+    public void render(Path template, ReportModel model, OutputStream out) throws IOException {
+        try (InputStream in = Files.newInputStream(template);
+             XMLSlideShow ppt = new XMLSlideShow(in)) {
+            for (XSLFSlide slide : ppt.getSlides()) {
+                fillShapes(slide.getShapes(), model);
+            }
+            ppt.write(out);
+        }
+    }
+
+    private void fillShapes(List<XSLFShape> shapes, ReportModel model) throws IOException {
+        for (XSLFShape shape : shapes) {
+            String name = shape.getShapeName();
+            if (shape instanceof XSLFGroupShape group) {
+                fillShapes(group.getShapes(), model);
+            } else if (shape instanceof XSLFTable table) {
+                List<String[]> rows = model.getTable(name);
+                if (rows != null) {
+                    fillTable(table, rows);
+                }
+            } else if (shape instanceof XSLFGraphicFrame frame && frame.hasChart()) {
+                ReportModel.ChartSeries series = model.getChart(name);
+                if (series != null) {
+                    fillChart(frame.getChart(), series);
+                }
+            } else if (shape instanceof XSLFTextShape textShape) {
+                String text = model.getText(name);
+                if (text != null) {
+                    replaceText(textShape, text);
+                }
+            }
+        }
+    }
+
+    // 超出模板表格行列数的数据忽略（与原脚本一致）
+    private void fillTable(XSLFTable table, List<String[]> rows) {
+        int rowCount = Math.min(rows.size(), table.getNumberOfRows());
+        for (int r = 0; r < rowCount; r++) {
+            String[] values = rows.get(r);
+            int colCount = Math.min(values.length, table.getNumberOfColumns());
+            for (int c = 0; c < colCount; c++) {
+                replaceText(table.getCell(r, c), values[c]);
+            }
+        }
+    }
+
+    // 替换图表第一个系列的分类与数值，并同步写入图表内嵌工作簿（在PowerPoint中"编辑数据"时可见）
+    private void fillChart(XSLFChart chart, ReportModel.ChartSeries series) throws IOException {
+        List<XDDFChartData> chartData = chart.getChartSeries();
+        if (chartData.isEmpty() || chartData.get(0).getSeriesCount() == 0) {
+            log.warn("图表没有数据系列，跳过: {}", series.title());
+            return;
+        }
+
+        String[] categories = series.categories();
+        Double[] values = series.values();
+        if (categories.length == 0) {
+            categories = new String[]{"无数据"};
+            values = new Double[]{0.0};
+        }
+
+        XDDFChartData data = chartData.get(0);
+        String categoryRange = chart.formatRange(new CellRangeAddress(1, categories.length, 0, 0));
+        String valueRange = chart.formatRange(new CellRangeAddress(1, values.length, 1, 1));
+        XDDFCategoryDataSource categoryData = XDDFDataSourcesFactory.fromArray(categories, categoryRange, 0);
+        XDDFNumericalDataSource<Double> valueData = XDDFDataSourcesFactory.fromArray(values, valueRange, 1);
+
+        XDDFChartData.Series chartSeries = data.getSeries(0);
+        chartSeries.replaceData(categoryData, valueData);
+        chartSeries.setTitle(series.title(), chart.setSheetTitle(series.title(), 1));
+        chart.plot(data);
+    }
+
+    // 替换文本并保留第一段第一个文本块的格式，其余段落删除
+    private void replaceText(XSLFTextShape shape, String text) {
+        List<XSLFTextParagraph> paragraphs = shape.getTextParagraphs();
+        if (paragraphs.isEmpty() || paragraphs.get(0).getTextRuns().isEmpty()) {
+            shape.setText(text);
+            return;
+        }
+        for (int i = paragraphs.size() - 1; i > 0; i--) {
+            shape.removeTextParagraph(paragraphs.get(i));
+        }
+        List<XSLFTextRun> runs = paragraphs.get(0).getTextRuns();
+        runs.get(0).setText(text);
+        for (int i = 1; i < runs.size(); i++) {
+            runs.get(i).setText("");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.springboot.login.report;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.entity.AsinReview;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// 报告所需的可累加统计结果：逐行并入价格与评论数据，结果与一次性全量计算一致。
+// 以JSON形式保存在 TaskAnalysisState 中，增量分析时只需并入水位之后的新数据
+@Data
+public class ReportAggregates {
+
+    private static final Comparator<LocalDateTime> CRAWL_TIME_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private long priceRowCount; // 价格观测数，连续相同观测合并保存的行按观测次数计
+    private LocalDateTime firstCrawlTime;
+    private LocalDateTime lastCrawlTime;
+    private SortedMap<String, LatestPrice> latestPrices = new TreeMap<>(); // 每个ASIN最近一次爬取的价格，按ASIN排序
+
+    private long reviewCount;
+    private SortedMap<String, ReviewStats> reviewsByAsin = new TreeMap<>();
+    private Map<String, Long> reviewsByBrand = new LinkedHashMap<>(); // 按品牌首次出现的顺序
+    private long[] ratingCounts = new long[5]; // 1-5星评论数
+
+    @Data
+    public static class LatestPrice {
+        private String brand;
+        private Double memberFinalPrice;
+        private Double nonMemberFinalPrice;
+        private Integer mainCategoryRank;
+        private Integer subCategoryRank;
+        private LocalDateTime crawlTime;
+    }
+
+    @Data
+    public static class ReviewStats {
+        private long count;
+        private double ratingSum;
+        private long ratingCount;
+    }
+
+    public void addPriceRank(AsinPriceRankDTO rank) {
+        addObservations(rank, rank.getSeenCount() == null ? 1 : rank.getSeenCount());
+    }
+
+    // 并入一行价格数据的 count 次观测；已并入的行被延长时以延长后的行和增加的观测次数调用，
+    // 最后观测时间随之推后，第一次观测时间不变
+    public void addObservations(AsinPriceRankDTO rank, long count) {
+        priceRowCount += count;
+        LocalDateTime firstSeen = rank.getCrawlTime();
+        // 连续相同观测合并保存的行以最后一次观测作为该行的价格时间
+        LocalDateTime crawlTime = rank.getLastSeenTime() != null ? rank.getLastSeenTime() : firstSeen;
+        if (firstSeen != null && (firstCrawlTime == null || firstSeen.isBefore(firstCrawlTime))) {
+            firstCrawlTime = firstSeen;
+        }
+        if (crawlTime != null && (lastCrawlTime == null || crawlTime.isAfter(lastCrawlTime))) {
+            lastCrawlTime = crawlTime;
+        }
+        if (rank.getAsin() == null) {
+            return;
+        }
+
+        // 爬取时间相同时保留先处理的记录
+        LatestPrice current = latestPrices.get(rank.getAsin());
+        if (current == null || CRAWL_TIME_ORDER.compare(current.getCrawlTime(), crawlTime) < 0) {
+            LatestPrice latest = new LatestPrice();
+            latest.setBrand(rank.getBrand());
+            latest.setMemberFinalPrice(rank.getMemberFinalPrice());
+            latest.setNonMemberFinalPrice(rank.getNonMemberFinalPrice());
+            latest.setMainCategoryRank(rank.getMainCategoryRank());
+            latest.setSubCategoryRank(rank.getSubCategoryRank());
+            latest.setCrawlTime(crawlTime);
+            latestPrices.put(rank.getAsin(), latest);
+        }
+    }
+
+    public void addReview(AsinReview review) {
+        reviewCount++;
+        reviewsByBrand.merge(review.getBrand() == null ? "未知" : review.getBrand(), 1L, Long::sum);
+
+        Double rating = review.getReviewRating();
+        if (rating != null) {
+            int star = (int) Math.round(rating);
+            if (star >= 1 && star <= 5) {
+                ratingCounts[star - 1]++;
+            }
+        }
+
+        if (review.getAsin() != null) {
+            ReviewStats stats = reviewsByAsin.computeIfAbsent(review.getAsin(), key -> new ReviewStats());
+            stats.setCount(stats.getCount() + 1);
+            if (rating != null) {
+                stats.setRatingSum(stats.getRatingSum() + rating);
+                stats.setRatingCount(stats.getRatingCount() + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.springboot.login.report;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// 分析报告产物存储（本地目录）：{artifact-dir}/{taskId}/{version}/report.pptx，version 为分析任务ID。
+// 生成过程只写 .staging 下的私有临时文件，完成后原子重命名到版本目录，
+// 不同任务、同一任务的不同版本互不覆盖，下载方也不会读到写了一半的文件
+@Component
+public class ReportArtifactStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportArtifactStore.class);
+
+    private static final String STAGING_DIR = ".staging";
+    private static final String REPORT_FILE_NAME = "report.pptx";
+
+    @Value("${analysis.artifact-dir:./data/reports}")
+    private String artifactDir;
+
+    @Value("${analysis.keep-versions:5}")
+    private int keepVersions; // 每个任务保留的报告版本数
+
+    private Path root;
+    private Path stagingDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(artifactDir);
+        stagingDir = root.resolve(STAGING_DIR);
+        // 上次运行遗留的临时文件已无对应的分析任务
+        FileSystemUtils.deleteRecursively(stagingDir);
+        Files.createDirectories(stagingDir);
+    }
+
+    // 创建临时文件，与产物目录在同一文件系统上，保证提交时可以原子重命名
+    public Path createStagingFile(Long taskId, String suffix) throws IOException {
+        return Files.createTempFile(stagingDir, "task-" + taskId + "-", suffix);
+    }
+
+    // 将临时文件提交为任务的一个报告版本，并清理超出保留数量的旧版本
+    public Path commit(Long taskId, Long version, Path stagingFile) throws IOException {
+        Path versionDir = root.resolve(String.valueOf(taskId)).resolve(String.valueOf(version));
+        Files.createDirectories(versionDir);
+        Path target = versionDir.resolve(REPORT_FILE_NAME);
+        Files.move(stagingFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        pruneVersions(taskId);
+        return target;
+    }
+
+    // 指定版本的报告，version 为null时返回最新版本；不存在时返回null
+    public Path find(Long taskId, Long version) throws IOException {
+        Long resolved = version != null ? version : latestVersion(taskId);
+        if (resolved == null) {
+            return null;
+        }
+        Path file = root.resolve(String.valueOf(taskId)).resolve(String.valueOf(resolved)).resolve(REPORT_FILE_NAME);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    // 版本号取自路径中的目录名
+    public Long versionOf(Path reportFile) {
+        return Long.valueOf(reportFile.getParent().getFileName().toString());
+    }
+
+    public Long latestVersion(Long taskId) throws IOException {
+        List<Long> versions = listVersions(taskId);
+        return versions.isEmpty() ? null : versions.get(versions.size() - 1);
+    }
+
+    // 已提交的版本，升序
+    private List<Long> listVersions(Long taskId) throws IOException {
+        Path taskDir = root.resolve(String.valueOf(taskId));
+        List<Long> versions = new ArrayList<>();
+        if (!Files.isDirectory(taskDir)) {
+            return versions;
+        }
+        try (Stream<Path> dirs = Files.list(taskDir)) {
+            dirs.filter(dir -> Files.isRegularFile(dir.resolve(REPORT_FILE_NAME)))
+                    .map(dir -> dir.getFileName().toString())
+                    .filter(name -> name.chars().allMatch(Character::isDigit))
+                    .map(Long::valueOf)
+                    .forEach(versions::add);
+        }
+        versions.sort(Comparator.naturalOrder());
+        return versions;
+    }
+
+    private void pruneVersions(Long taskId) throws IOException {
+        List<Long> versions = listVersions(taskId);
+        for (int i = 0; i < versions.size() - keepVersions; i++) {
+            Path versionDir = root.resolve(String.valueOf(taskId)).resolve(String.valueOf(versions.get(i)));
+            try {
+                FileSystemUtils.deleteRecursively(versionDir);
+            } catch (IOException e) {
+                // 文件正在被下载时（Windows）可能删除失败，下次提交时再清理
+                log.debug("删除旧版本报告失败: {}", versionDir, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.springboot.login.report;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// PPT报告的填充数据，按形状名称索引（没有分析底表时使用，有底表时按 SummarySheet 填充）
+public class ReportModel {
+
+    // 图表数据：单个系列，分类与数值一一对应
+    public record ChartSeries(String title, String[] categories, Double[] values) {
+    }
+
+    private final Map<String, String> texts = new LinkedHashMap<>();
+    private final Map<String, List<String[]>> tables = new LinkedHashMap<>();
+    private final Map<String, ChartSeries> charts = new LinkedHashMap<>();
+
+    public void putText(String shapeName, String text) {
+        texts.put(shapeName, text);
+    }
+
+    // 表格按行填充，第一行对应表格的第一行（通常为表头）
+    public void putTable(String shapeName, List<String[]> rows) {
+        tables.put(shapeName, rows);
+    }
+
+    public void putChart(String shapeName, ChartSeries series) {
+        charts.put(shapeName, series);
+    }
+
+    public String getText(String shapeName) {
+        return texts.get(shapeName);
+    }
+
+    public List<String[]> getTable(String shapeName) {
+        return tables.get(shapeName);
+    }
+
+    public ChartSeries getChart(String shapeName) {
+        return charts.get(shapeName);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.springboot.login.report;
+
+import com.example.springboot.login.entity.CrawlerTask;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// 没有分析底表时使用：根据任务数据的统计结果（ReportAggregates）计算报告内容。模板中按以下名称命名的形状会被填充，不存在的形状忽略：
+// 文本框：任务名称、报告日期、数据概览
+// 表格：价格汇总表（每个ASIN最新一次价格与排名）、评论汇总表（每个ASIN评论数与平均评分）
+// 图表：价格对比图、排名对比图（按ASIN）、品牌评论数图（按品牌）、评分分布图（1-5星）
+@Component
+public class ReportModelBuilder {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    public ReportModel build(CrawlerTask task, ReportAggregates aggregates) {
+        ReportModel model = new ReportModel();
+        Map<String, ReportAggregates.LatestPrice> latestPrices = aggregates.getLatestPrices();
+
+        model.putText("任务名称", task.getProcessName());
+        model.putText("报告日期", LocalDate.now().format(DATE_FORMATTER));
+        model.putText("数据概览", overview(aggregates));
+
+        putPriceTable(model, latestPrices);
+        putReviewTable(model, aggregates.getReviewsByAsin());
+
+        String[] asins = latestPrices.keySet().toArray(new String[0]);
+        model.putChart("价格对比图", new ReportModel.ChartSeries("非会员最终价", asins,
+                latestPrices.values().stream().map(ReportAggregates.LatestPrice::getNonMemberFinalPrice).toArray(Double[]::new)));
+        model.putChart("排名对比图", new ReportModel.ChartSeries("大类目排名", asins,
+                latestPrices.values().stream()
+                        .map(price -> price.getMainCategoryRank() == null ? null : price.getMainCategoryRank().doubleValue())
+                        .toArray(Double[]::new)));
+
+        Map<String, Long> brandCounts = aggregates.getReviewsByBrand();
+        model.putChart("品牌评论数图", new ReportModel.ChartSeries("评论数",
+                brandCounts.keySet().toArray(new String[0]),
+                brandCounts.values().stream().map(Long::doubleValue).toArray(Double[]::new)));
+        model.putChart("评分分布图", new ReportModel.ChartSeries("评论数",
+                new String[]{"1星", "2星", "3星", "4星", "5星"},
+                Arrays.stream(aggregates.getRatingCounts()).mapToObj(count -> (double) count).toArray(Double[]::new)));
+        return model;
+    }
+
+    private String overview(ReportAggregates aggregates) {
+        LocalDateTime first = aggregates.getFirstCrawlTime();
+        LocalDateTime last = aggregates.getLastCrawlTime();
+        String period = first == null ? "暂无" : first.format(DATE_TIME_FORMATTER) + " 至 " + last.format(DATE_TIME_FORMATTER);
+        return "共监控 " + aggregates.getLatestPrices().size() + " 个ASIN，价格记录 " + aggregates.getPriceRowCount() +
+                " 条，评论 " + aggregates.getReviewCount() + " 条，数据时间：" + period;
+    }
+
+    private void putPriceTable(ReportModel model, Map<String, ReportAggregates.LatestPrice> latestPrices) {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"ASIN", "品牌", "会员最终价", "非会员最终价", "大类目排名", "小类目排名"});
+        for (Map.Entry<String, ReportAggregates.LatestPrice> entry : latestPrices.entrySet()) {
+            ReportAggregates.LatestPrice price = entry.getValue();
+            rows.add(new String[]{entry.getKey(), text(price.getBrand()), number(price.getMemberFinalPrice()),
+                    number(price.getNonMemberFinalPrice()), text(price.getMainCategoryRank()), text(price.getSubCategoryRank())});
+        }
+        model.putTable("价格汇总表", rows);
+    }
+
+    private void putReviewTable(ReportModel model, Map<String, ReportAggregates.ReviewStats> reviewsByAsin) {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"ASIN", "评论数", "平均评分"});
+        for (Map.Entry<String, ReportAggregates.ReviewStats> entry : reviewsByAsin.entrySet()) {
+            ReportAggregates.ReviewStats stats = entry.getValue();
+            rows.add(new String[]{entry.getKey(), String.valueOf(stats.getCount()),
+                    stats.getRatingCount() == 0 ? "" : String.format("%.2f", stats.getRatingSum() / stats.getRatingCount())});
+        }
+        model.putTable("评论汇总表", rows);
+    }
+
+    private String text(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private String number(Double value) {
+        return value == null ? "" : String.format("%.2f", value);
+    }
+}
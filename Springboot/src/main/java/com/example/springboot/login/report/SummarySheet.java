@@ -0,0 +1,161 @@
+package com.example.springboot.login.report;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 分析底表的"汇总"页：第一行为表头，之后每行对应PPT中一个形状的一条更新，
+// 列依次为 幻灯片编号、形状类型、形状名称、文本内容、数据1~数据4，读取规则与 ppt_renew_info.py 一致。
+// 公式单元格在内存中重新计算；POI 不支持的函数沿用模板中缓存的结果
+public class SummarySheet {
+
+    private static final Logger log = LoggerFactory.getLogger(SummarySheet.class);
+
+    public static final String SHEET_NAME = "汇总";
+
+    private static final int DATA_COLUMN_FROM = 4;
+    private static final int DATA_COLUMN_COUNT = 4;
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // 一条更新：type 为形状类型（文本框 / 表格 / 饼图 / 柱形图 / 条形图），data 固定4列，空单元格为空字符串
+    public record Entry(String type, String content, String[] data) {
+    }
+
+    // 幻灯片编号 -> 形状名称 -> 按行顺序的更新
+    private final Map<Integer, Map<String, List<Entry>>> entries = new HashMap<>();
+
+    private SummarySheet() {
+    }
+
+    // 底表没有汇总页时返回 null
+    public static SummarySheet read(Workbook workbook) {
+        Sheet sheet = workbook.getSheet(SHEET_NAME);
+        if (sheet == null) {
+            return null;
+        }
+        FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+        SummarySheet summary = new SummarySheet();
+        int fallbacks = 0;
+        for (int r = sheet.getFirstRowNum() + 1; r <= sheet.getLastRowNum(); r++) {
+            Row row = sheet.getRow(r);
+            if (row == null) {
+                continue;
+            }
+            String[] values = new String[DATA_COLUMN_FROM + DATA_COLUMN_COUNT];
+            for (int c = 0; c < values.length; c++) {
+                Cell cell = row.getCell(c);
+                if (cell != null && cell.getCellType() == CellType.FORMULA && !canEvaluate(evaluator, cell)) {
+                    fallbacks++;
+                }
+                values[c] = text(evaluator, cell);
+            }
+
+            Integer slideNumber = parseSlideNumber(values[0]);
+            String shapeName = values[2];
+            if (slideNumber == null || shapeName.isEmpty()) {
+                continue;
+            }
+            String[] data = new String[DATA_COLUMN_COUNT];
+            System.arraycopy(values, DATA_COLUMN_FROM, data, 0, DATA_COLUMN_COUNT);
+            summary.entries.computeIfAbsent(slideNumber, key -> new HashMap<>())
+                    .computeIfAbsent(shapeName, key -> new ArrayList<>())
+                    .add(new Entry(values[1], values[3], data));
+        }
+        if (fallbacks > 0) {
+            log.warn("汇总页有{}个公式无法在服务端计算，沿用模板中缓存的结果", fallbacks);
+        }
+        return summary;
+    }
+
+    // 形状对应的更新，没有时返回 null
+    public List<Entry> get(int slideNumber, String shapeName) {
+        Map<String, List<Entry>> shapes = entries.get(slideNumber);
+        return shapes == null ? null : shapes.get(shapeName);
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    private static boolean canEvaluate(FormulaEvaluator evaluator, Cell cell) {
+        try {
+            evaluator.evaluate(cell);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    // 单元格取值转为去除首尾空白的文本；整数不带小数部分，空单元格为空字符串
+    private static String text(FormulaEvaluator evaluator, Cell cell) {
+        if (cell == null) {
+            return "";
+        }
+        CellType type = cell.getCellType();
+        if (type == CellType.FORMULA) {
+            try {
+                return text(evaluator.evaluate(cell), cell);
+            } catch (RuntimeException e) {
+                type = cell.getCachedFormulaResultType();
+            }
+        }
+        return switch (type) {
+            case STRING -> cell.getStringCellValue().strip();
+            case NUMERIC -> DateUtil.isCellDateFormatted(cell)
+                    ? cell.getLocalDateTimeCellValue().format(DATE_TIME_FORMATTER)
+                    : number(cell.getNumericCellValue());
+            case BOOLEAN -> cell.getBooleanCellValue() ? "True" : "False";
+            case ERROR -> FormulaError.forInt(cell.getErrorCellValue()).getString();
+            default -> "";
+        };
+    }
+
+    private static String text(CellValue value, Cell cell) {
+        if (value == null) {
+            return "";
+        }
+        return switch (value.getCellType()) {
+            case STRING -> value.getStringValue().strip();
+            case NUMERIC -> DateUtil.isCellDateFormatted(cell)
+                    ? DateUtil.getLocalDateTime(value.getNumberValue()).format(DATE_TIME_FORMATTER)
+                    : number(value.getNumberValue());
+            case BOOLEAN -> value.getBooleanValue() ? "True" : "False";
+            case ERROR -> FormulaError.forInt(value.getErrorValue()).getString();
+            default -> "";
+        };
+    }
+
+    private static String number(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    // 幻灯片编号可能是数值或文本，0 或无法解析的视为无效行
+    private static Integer parseSlideNumber(String text) {
+        if (text.isEmpty()) {
+            return null;
+        }
+        try {
+            int number = (int) Double.parseDouble(text);
+            return number == 0 ? null : number;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
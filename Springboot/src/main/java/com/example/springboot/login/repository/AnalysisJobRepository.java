@@ -0,0 +1,43 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.entity.AnalysisJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface AnalysisJobRepository extends JpaRepository<AnalysisJob, Long> {
+
+    // 任务最近一次的分析记录
+    Optional<AnalysisJob> findFirstByTaskIdOrderByIdDesc(Long taskId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE AnalysisJob j SET j.progress = :progress WHERE j.id = :id")
+    int updateProgress(@Param("id") Long id, @Param("progress") int progress);
+
+    // 删除已结束且超过保留期的记录
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AnalysisJob j WHERE j.status IN :statuses AND j.finishTime < :time")
+    int deleteByStatusInAndFinishTimeBefore(@Param("statuses") Collection<String> statuses,
+                                            @Param("time") LocalDateTime time);
+
+    // 未结束但已没有有效租约的任务（执行实例宕机或重启），标记为失败；
+    // createdBefore 留出提交时从写入任务到获取租约之间的间隔
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE analysis_job j SET j.status = 'FAILED', j.error_message = :message, j.finish_time = :now " +
+            "WHERE j.status IN ('QUEUED', 'RUNNING') AND j.create_time < :createdBefore " +
+            "AND NOT EXISTS (SELECT 1 FROM analysis_lease l WHERE l.job_id = j.id AND l.expire_time >= NOW())",
+            nativeQuery = true)
+    int failOrphanedJobs(@Param("message") String message, @Param("now") LocalDateTime now,
+                         @Param("createdBefore") LocalDateTime createdBefore);
+}
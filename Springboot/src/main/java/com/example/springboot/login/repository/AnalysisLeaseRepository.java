@@ -0,0 +1,52 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.entity.AnalysisLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+// 租约的到期判断统一使用数据库时间，避免多实例之间的时钟偏差
+@Repository
+public interface AnalysisLeaseRepository extends JpaRepository<AnalysisLease, Long> {
+
+    // 尝试获取租约：先清除该任务已过期的租约，再插入；主键冲突（已有有效租约）时插入0行
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM analysis_lease WHERE task_id = :taskId AND expire_time < NOW()", nativeQuery = true)
+    int deleteExpired(@Param("taskId") Long taskId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO analysis_lease (task_id, job_id, owner, expire_time) " +
+            "VALUES (:taskId, :jobId, :owner, DATE_ADD(NOW(), INTERVAL :ttlSeconds SECOND))", nativeQuery = true)
+    int tryInsert(@Param("taskId") Long taskId, @Param("jobId") Long jobId,
+                  @Param("owner") String owner, @Param("ttlSeconds") long ttlSeconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE analysis_lease SET expire_time = DATE_ADD(NOW(), INTERVAL :ttlSeconds SECOND) " +
+            "WHERE job_id IN (:jobIds) AND owner = :owner", nativeQuery = true)
+    int renew(@Param("jobIds") Collection<Long> jobIds, @Param("owner") String owner,
+              @Param("ttlSeconds") long ttlSeconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM analysis_lease WHERE task_id = :taskId AND job_id = :jobId", nativeQuery = true)
+    int release(@Param("taskId") Long taskId, @Param("jobId") Long jobId);
+
+    // 本实例重启后，之前持有的租约对应的任务已无法继续
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM analysis_lease WHERE owner = :owner", nativeQuery = true)
+    int deleteByOwner(@Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM analysis_lease WHERE expire_time < NOW()", nativeQuery = true)
+    int deleteAllExpired();
+}
@@ -0,0 +1,67 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.entity.AsinLatestPrice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AsinLatestPriceRepository extends JpaRepository<AsinLatestPrice, Long> {
+
+    // 已有记录较旧（爬取时间更早，或相同但原始记录ID更小）时才覆盖；爬取时间为空视为最旧
+    String NEWER = "(COALESCE(VALUES(crawl_time), '1000-01-01') > COALESCE(asin_latest_price.crawl_time, '1000-01-01') " +
+            "OR (COALESCE(VALUES(crawl_time), '1000-01-01') = COALESCE(asin_latest_price.crawl_time, '1000-01-01') " +
+            "AND VALUES(price_rank_id) > asin_latest_price.price_rank_id))";
+
+    // 任务当前价格快照，字段与价格数据DTO相同（id 为原始价格记录ID）
+    @Query("SELECT new com.example.springboot.login.dto.AsinPriceRankDTO(" +
+            "l.priceRankId, l.asin, l.brand, l.originalPrice, l.ldDiscount, l.bdDiscount, l.memberPrice, " +
+            "l.memberFinalPrice, l.nonMemberFinalPrice, l.coupon, l.directDiscount, l.mainCategory, " +
+            "l.mainCategoryRank, l.subCategory, l.subCategoryRank, l.crawlTime, l.taskId) " +
+            "FROM AsinLatestPrice l WHERE l.taskId = :taskId ORDER BY l.asin")
+    List<AsinPriceRankDTO> findDtoByTaskId(@Param("taskId") Long taskId);
+
+    // 取指定ID的原始价格数据中每个ASIN最新的一条，合并到最新价格表（与已有记录比较，重复合并不影响结果）。
+    // 连续相同观测合并保存的行按最后一次观测时间 COALESCE(last_seen_time, crawl_time) 比较，crawl_time 也取该时间。
+    // 条件赋值依次执行且能看到前面已更新的列，因此 price_rank_id 和 crawl_time 必须放在最后、crawl_time 最后更新
+    @Modifying
+    @Query(value = "INSERT INTO asin_latest_price (task_id, asin, price_rank_id, brand, original_price, ld_discount, " +
+            "bd_discount, member_price, member_final_price, non_member_final_price, coupon, direct_discount, " +
+            "main_category, main_category_rank, sub_category, sub_category_rank, crawl_time, update_time) " +
+            "SELECT task_id, asin, id, brand, original_price, ld_discount, bd_discount, member_price, " +
+            "member_final_price, non_member_final_price, coupon, direct_discount, main_category, main_category_rank, " +
+            "sub_category, sub_category_rank, seen_time, NOW() FROM (" +
+            "SELECT p.*, COALESCE(p.last_seen_time, p.crawl_time) AS seen_time, ROW_NUMBER() OVER (" +
+            "PARTITION BY p.asin ORDER BY COALESCE(p.last_seen_time, p.crawl_time) DESC, p.id DESC) AS rn " +
+            "FROM asin_price_rank p WHERE p.task_id = :taskId AND p.id IN (:ids) " +
+            "AND p.asin IS NOT NULL) latest WHERE latest.rn = 1 " +
+            "ON DUPLICATE KEY UPDATE " +
+            "brand = IF(" + NEWER + ", VALUES(brand), asin_latest_price.brand), " +
+            "original_price = IF(" + NEWER + ", VALUES(original_price), asin_latest_price.original_price), " +
+            "ld_discount = IF(" + NEWER + ", VALUES(ld_discount), asin_latest_price.ld_discount), " +
+            "bd_discount = IF(" + NEWER + ", VALUES(bd_discount), asin_latest_price.bd_discount), " +
+            "member_price = IF(" + NEWER + ", VALUES(member_price), asin_latest_price.member_price), " +
+            "member_final_price = IF(" + NEWER + ", VALUES(member_final_price), asin_latest_price.member_final_price), " +
+            "non_member_final_price = IF(" + NEWER + ", VALUES(non_member_final_price), asin_latest_price.non_member_final_price), " +
+            "coupon = IF(" + NEWER + ", VALUES(coupon), asin_latest_price.coupon), " +
+            "direct_discount = IF(" + NEWER + ", VALUES(direct_discount), asin_latest_price.direct_discount), " +
+            "main_category = IF(" + NEWER + ", VALUES(main_category), asin_latest_price.main_category), " +
+            "main_category_rank = IF(" + NEWER + ", VALUES(main_category_rank), asin_latest_price.main_category_rank), " +
+            "sub_category = IF(" + NEWER + ", VALUES(sub_category), asin_latest_price.sub_category), " +
+            "sub_category_rank = IF(" + NEWER + ", VALUES(sub_category_rank), asin_latest_price.sub_category_rank), " +
+            "update_time = IF(" + NEWER + ", VALUES(update_time), asin_latest_price.update_time), " +
+            "price_rank_id = IF(" + NEWER + ", VALUES(price_rank_id), asin_latest_price.price_rank_id), " +
+            "crawl_time = IF(" + NEWER + ", VALUES(crawl_time), asin_latest_price.crawl_time)",
+            nativeQuery = true)
+    int upsertFromPriceRanks(@Param("taskId") Long taskId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM AsinLatestPrice l WHERE l.taskId = :taskId")
+    int deleteByTaskId(@Param("taskId") Long taskId);
+}
@@ -0,0 +1,81 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.entity.AsinPriceDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AsinPriceDailyRepository extends JpaRepository<AsinPriceDaily, Long> {
+
+    List<AsinPriceDaily> findByTaskIdAndStatDateBetweenOrderByAsinAscStatDateAsc(Long taskId, LocalDate from, LocalDate to);
+
+    List<AsinPriceDaily> findByTaskIdAndAsinAndStatDateBetweenOrderByStatDateAsc(Long taskId, String asin,
+                                                                                 LocalDate from, LocalDate to);
+
+    // 将指定ID的原始价格数据按 (ASIN, 日期) 聚合后累加到日汇总（调用方保证每条记录只累加一次），
+    // 最小/最大值在已有值与新值之间取较小/较大者（忽略NULL），合计与记录数直接相加。
+    // 连续相同观测合并保存的行按观测次数 seen_count 计入样本数、合计与计数；这样的行不跨天，
+    // 第一次与最后一次观测 COALESCE(last_seen_time, crawl_time) 在同一天
+    @Modifying
+    @Query(value = "INSERT INTO asin_price_daily (task_id, asin, stat_date, sample_count, " +
+            "member_price_min, member_price_max, member_price_sum, member_price_count, " +
+            "non_member_price_min, non_member_price_max, non_member_price_sum, non_member_price_count, " +
+            "best_sub_category_rank, worst_sub_category_rank, update_time) " +
+            "SELECT task_id, asin, DATE(crawl_time), SUM(seen_count), " +
+            "MIN(member_final_price), MAX(member_final_price), COALESCE(SUM(member_final_price * seen_count), 0), " +
+            "SUM(IF(member_final_price IS NULL, 0, seen_count)), " +
+            "MIN(non_member_final_price), MAX(non_member_final_price), COALESCE(SUM(non_member_final_price * seen_count), 0), " +
+            "SUM(IF(non_member_final_price IS NULL, 0, seen_count)), " +
+            "MIN(sub_category_rank), MAX(sub_category_rank), NOW() " +
+            "FROM asin_price_rank WHERE task_id = :taskId AND id IN (:ids) " +
+            "AND asin IS NOT NULL AND crawl_time IS NOT NULL " +
+            "GROUP BY task_id, asin, DATE(crawl_time) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "sample_count = sample_count + VALUES(sample_count), " +
+            "member_price_min = COALESCE(LEAST(member_price_min, VALUES(member_price_min)), member_price_min, VALUES(member_price_min)), " +
+            "member_price_max = COALESCE(GREATEST(member_price_max, VALUES(member_price_max)), member_price_max, VALUES(member_price_max)), " +
+            "member_price_sum = member_price_sum + VALUES(member_price_sum), " +
+            "member_price_count = member_price_count + VALUES(member_price_count), " +
+            "non_member_price_min = COALESCE(LEAST(non_member_price_min, VALUES(non_member_price_min)), non_member_price_min, VALUES(non_member_price_min)), " +
+            "non_member_price_max = COALESCE(GREATEST(non_member_price_max, VALUES(non_member_price_max)), non_member_price_max, VALUES(non_member_price_max)), " +
+            "non_member_price_sum = non_member_price_sum + VALUES(non_member_price_sum), " +
+            "non_member_price_count = non_member_price_count + VALUES(non_member_price_count), " +
+            "best_sub_category_rank = COALESCE(LEAST(best_sub_category_rank, VALUES(best_sub_category_rank)), best_sub_category_rank, VALUES(best_sub_category_rank)), " +
+            "worst_sub_category_rank = COALESCE(GREATEST(worst_sub_category_rank, VALUES(worst_sub_category_rank)), worst_sub_category_rank, VALUES(worst_sub_category_rank)), " +
+            "update_time = VALUES(update_time)",
+            nativeQuery = true)
+    int upsertFromPriceRanks(@Param("taskId") Long taskId, @Param("ids") Collection<Long> ids);
+
+    // 已累加的行被延长后，只累加增加的观测次数（price_rank_extension.rollup_count）：样本数与计数加上增量，
+    // 合计加上增量×价格；行的取值不变，最小/最大值与排名不变。按 (ASIN, 日期) 先聚合，同一天多行被延长时都计入
+    @Modifying
+    @Query(value = "UPDATE asin_price_daily d JOIN (" +
+            "SELECT p.asin, DATE(p.crawl_time) AS stat_date, SUM(e.rollup_count) AS added, " +
+            "COALESCE(SUM(p.member_final_price * e.rollup_count), 0) AS member_sum, " +
+            "SUM(IF(p.member_final_price IS NULL, 0, e.rollup_count)) AS member_count, " +
+            "COALESCE(SUM(p.non_member_final_price * e.rollup_count), 0) AS non_member_sum, " +
+            "SUM(IF(p.non_member_final_price IS NULL, 0, e.rollup_count)) AS non_member_count " +
+            "FROM price_rank_extension e JOIN asin_price_rank p ON p.id = e.price_rank_id " +
+            "WHERE e.task_id = :taskId AND e.price_rank_id IN (:ids) AND p.asin IS NOT NULL AND p.crawl_time IS NOT NULL " +
+            "GROUP BY p.asin, DATE(p.crawl_time)) x " +
+            "ON d.task_id = :taskId AND d.asin = x.asin AND d.stat_date = x.stat_date " +
+            "SET d.sample_count = d.sample_count + x.added, " +
+            "d.member_price_sum = d.member_price_sum + x.member_sum, " +
+            "d.member_price_count = d.member_price_count + x.member_count, " +
+            "d.non_member_price_sum = d.non_member_price_sum + x.non_member_sum, " +
+            "d.non_member_price_count = d.non_member_price_count + x.non_member_count, " +
+            "d.update_time = NOW()",
+            nativeQuery = true)
+    int addExtensions(@Param("taskId") Long taskId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM AsinPriceDaily d WHERE d.taskId = :taskId")
+    int deleteByTaskId(@Param("taskId") Long taskId);
+}
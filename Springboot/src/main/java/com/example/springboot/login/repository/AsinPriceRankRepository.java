@@ -1,29 +1,89 @@
 package com.example.springboot.login.repository;
 
+import com.example.springboot.login.dto.AsinPriceRankDTO;
 import com.example.springboot.login.entity.AsinPriceRank;
+import com.example.springboot.login.export.DataWatermark;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface AsinPriceRankRepository extends JpaRepository<AsinPriceRank, Long> {
-
-    // 查询每个ASIN的最新价格数据
-    @Query("SELECT apr FROM AsinPriceRank apr " +
-            "WHERE (apr.asin, apr.crawlTime) IN (" +
-            "    SELECT apr2.asin, MAX(apr2.crawlTime) " +
-            "    FROM AsinPriceRank apr2 " +
-            "    WHERE apr2.asin IN :asins " +
-            "    GROUP BY apr2.asin" +
-            ")")
-    List<AsinPriceRank> findLatestByAsins(@Param("asins") List<String> asins);
+public interface AsinPriceRankRepository extends JpaRepository<AsinPriceRank, Long>, AsinPriceRankRepositoryCustom {
+
+    // 直接查询为DTO（构造函数投影）：不创建实体、不加载关联的任务和用户，也不进入持久化上下文
+    String SELECT_DTO = "SELECT new com.example.springboot.login.dto.AsinPriceRankDTO(" +
+            "apr.id, apr.asin, apr.brand, apr.originalPrice, apr.ldDiscount, apr.bdDiscount, apr.memberPrice, " +
+            "apr.memberFinalPrice, apr.nonMemberFinalPrice, apr.coupon, apr.directDiscount, apr.mainCategory, " +
+            "apr.mainCategoryRank, apr.subCategory, apr.subCategoryRank, apr.crawlTime, apr.task.id, " +
+            "apr.lastSeenTime, apr.seenCount) " +
+            "FROM AsinPriceRank apr ";
 
     // 根据ASIN列表查询所有价格数据（不限制时间）
     List<AsinPriceRank> findByAsinIn(List<String> asins);
 
     // 按任务ID查询所有价格数据（包含所有时间的记录）
     List<AsinPriceRank> findByTaskId(Long taskId);
+
+    // 按任务ID查询所有价格数据，直接返回DTO
+    @Query(SELECT_DTO + "WHERE apr.task.id = :taskId ORDER BY apr.id")
+    List<AsinPriceRankDTO> findDtoByTaskId(@Param("taskId") Long taskId);
+
+    // 按任务ID以游标方式逐行读取价格数据DTO（需在事务内消费并关闭Stream）
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SELECT_DTO + "WHERE apr.task.id = :taskId ORDER BY apr.id")
+    Stream<AsinPriceRankDTO> streamDtoByTaskId(@Param("taskId") Long taskId);
+
+    // 按任务ID读取ID大于 afterId 的价格数据DTO（增量分析只读取水位之后的新数据）
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SELECT_DTO + "WHERE apr.task.id = :taskId AND apr.id > :afterId ORDER BY apr.id")
+    Stream<AsinPriceRankDTO> streamDtoByTaskIdAndIdGreaterThan(@Param("taskId") Long taskId, @Param("afterId") Long afterId);
+
+    @Query(SELECT_DTO + "WHERE apr.id IN :ids")
+    List<AsinPriceRankDTO> findDtoByIdIn(@Param("ids") Collection<Long> ids);
+
+    // 按爬取时间逐行读取单个ASIN的价格与排名（时间序列图表），走 (task_id, asin, crawl_time, id) 索引
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT apr.crawlTime, apr.nonMemberFinalPrice, apr.memberFinalPrice, apr.subCategoryRank, apr.lastSeenTime, " +
+            "apr.seenCount " +
+            "FROM AsinPriceRank apr WHERE apr.task.id = :taskId AND apr.asin = :asin " +
+            "AND apr.crawlTime >= :from AND apr.crawlTime < :to ORDER BY apr.crawlTime, apr.id")
+    Stream<Object[]> streamSeriesPoints(@Param("taskId") Long taskId, @Param("asin") String asin,
+                                        @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // 按ID顺序读取任务内ID大于 afterId 的价格记录ID（日汇总只需ID，由数据库按ID聚合）
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT apr.id FROM AsinPriceRank apr WHERE apr.task.id = :taskId AND apr.id > :afterId ORDER BY apr.id")
+    Stream<Long> streamIdsByTaskIdAndIdGreaterThan(@Param("taskId") Long taskId, @Param("afterId") long afterId);
+
+    // 任务内最大的价格记录ID，没有数据时为0
+    @Query("SELECT COALESCE(MAX(apr.id), 0) FROM AsinPriceRank apr WHERE apr.task.id = :taskId")
+    long findMaxIdByTaskId(@Param("taskId") Long taskId);
+
+    // 任务内 asin / brand / mainCategory / subCategory 的去重取值（用于Arrow字典编码），
+    // 按二进制比较去重，避免大小写不敏感的排序规则把不同取值合并
+    @Query(value = "SELECT DISTINCT 'asin', CAST(asin AS BINARY) FROM asin_price_rank WHERE task_id = :taskId AND asin IS NOT NULL " +
+            "UNION ALL SELECT DISTINCT 'brand', CAST(brand AS BINARY) FROM asin_price_rank WHERE task_id = :taskId AND brand IS NOT NULL " +
+            "UNION ALL SELECT DISTINCT 'mainCategory', CAST(main_category AS BINARY) FROM asin_price_rank WHERE task_id = :taskId AND main_category IS NOT NULL " +
+            "UNION ALL SELECT DISTINCT 'subCategory', CAST(sub_category AS BINARY) FROM asin_price_rank WHERE task_id = :taskId AND sub_category IS NOT NULL",
+            nativeQuery = true)
+    List<Object[]> findDistinctDictionaryValuesByTaskId(@Param("taskId") Long taskId);
+
+    // 任务保存的价格行数（仅记录变化时一行可能对应多次观测）
+    @Query("SELECT COUNT(apr) FROM AsinPriceRank apr WHERE apr.task.id = :taskId")
+    long countByTaskId(@Param("taskId") Long taskId);
+
+    // 任务价格数据的水位（最新爬取时间 + 行数），用于判断导出缓存是否仍然有效，只读取 (task_id, crawl_time) 索引；
+    // 延长已有行不改变水位，由 PriceRollupState.dataVersion 反映
+    @Query("SELECT new com.example.springboot.login.export.DataWatermark(MAX(apr.crawlTime), COUNT(apr)) " +
+            "FROM AsinPriceRank apr WHERE apr.task.id = :taskId")
+    DataWatermark findWatermarkByTaskId(@Param("taskId") Long taskId);
 }
@@ -0,0 +1,11 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+
+import java.util.List;
+
+public interface AsinPriceRankRepositoryCustom {
+
+    // 按游标读取一页价格数据（直接查询为DTO），最多返回 limit + 1 行（多出的一行用于判断是否还有下一页）
+    List<AsinPriceRankDTO> findPage(PriceRankPageQuery query);
+}
@@ -0,0 +1,103 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 价格数据的键集（keyset）分页：按 (排序字段, id) 定位到上一页最后一行之后继续读取，
+// 配合 (task_id, 字段, id) 复合索引，任意深度的页面与第一页开销相同，且不需要 count(*)。
+// 排序字段为空的行固定排在最后：先读取非空行，读完后再按 id 读取为空的行
+public class AsinPriceRankRepositoryImpl implements AsinPriceRankRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AsinPriceRankDTO> findPage(PriceRankPageQuery query) {
+        int fetchSize = query.getLimit() + 1;
+        List<AsinPriceRankDTO> rows = new ArrayList<>(fetchSize);
+        if (!query.isAfterNull()) {
+            rows.addAll(findNonNullKeys(query, fetchSize));
+        }
+        if (rows.size() < fetchSize) {
+            // 非空行已读完，从头（或上一页位置）继续读取排序字段为空的行
+            Long afterId = query.isAfterNull() ? query.getAfterId() : null;
+            rows.addAll(findNullKeys(query, afterId, fetchSize - rows.size()));
+        }
+        return rows;
+    }
+
+    private List<AsinPriceRankDTO> findNonNullKeys(PriceRankPageQuery query, int maxResults) {
+        String key = "apr." + query.getSort().getProperty();
+        String op = query.isDescending() ? "<" : ">";
+        String direction = query.isDescending() ? " DESC" : " ASC";
+
+        StringBuilder jpql = new StringBuilder(AsinPriceRankRepository.SELECT_DTO + "WHERE ");
+        appendFilters(jpql, query);
+        jpql.append(" AND ").append(key).append(" IS NOT NULL");
+        if (query.getAfterId() != null) {
+            jpql.append(" AND (").append(key).append(' ').append(op).append(" :afterKey OR (")
+                    .append(key).append(" = :afterKey AND apr.id ").append(op).append(" :afterId))");
+        }
+        jpql.append(" ORDER BY ").append(key).append(direction).append(", apr.id").append(direction);
+
+        TypedQuery<AsinPriceRankDTO> typedQuery = createQuery(jpql.toString(), query, maxResults);
+        if (query.getAfterId() != null) {
+            typedQuery.setParameter("afterKey", query.getAfterKey());
+            typedQuery.setParameter("afterId", query.getAfterId());
+        }
+        return typedQuery.getResultList();
+    }
+
+    private List<AsinPriceRankDTO> findNullKeys(PriceRankPageQuery query, Long afterId, int maxResults) {
+        String op = query.isDescending() ? "<" : ">";
+        String direction = query.isDescending() ? " DESC" : " ASC";
+
+        StringBuilder jpql = new StringBuilder(AsinPriceRankRepository.SELECT_DTO + "WHERE ");
+        appendFilters(jpql, query);
+        jpql.append(" AND apr.").append(query.getSort().getProperty()).append(" IS NULL");
+        if (afterId != null) {
+            jpql.append(" AND apr.id ").append(op).append(" :afterId");
+        }
+        jpql.append(" ORDER BY apr.id").append(direction);
+
+        TypedQuery<AsinPriceRankDTO> typedQuery = createQuery(jpql.toString(), query, maxResults);
+        if (afterId != null) {
+            typedQuery.setParameter("afterId", afterId);
+        }
+        return typedQuery.getResultList();
+    }
+
+    private void appendFilters(StringBuilder jpql, PriceRankPageQuery query) {
+        jpql.append("apr.task.id = :taskId");
+        if (query.getAsin() != null) {
+            jpql.append(" AND apr.asin = :asin");
+        }
+        if (query.getFrom() != null) {
+            jpql.append(" AND apr.crawlTime >= :from");
+        }
+        if (query.getTo() != null) {
+            jpql.append(" AND apr.crawlTime < :to");
+        }
+    }
+
+    private TypedQuery<AsinPriceRankDTO> createQuery(String jpql, PriceRankPageQuery query, int maxResults) {
+        TypedQuery<AsinPriceRankDTO> typedQuery = entityManager.createQuery(jpql, AsinPriceRankDTO.class)
+                .setParameter("taskId", query.getTaskId())
+                .setMaxResults(maxResults);
+        if (query.getAsin() != null) {
+            typedQuery.setParameter("asin", query.getAsin());
+        }
+        if (query.getFrom() != null) {
+            typedQuery.setParameter("from", query.getFrom());
+        }
+        if (query.getTo() != null) {
+            typedQuery.setParameter("to", query.getTo());
+        }
+        return typedQuery;
+    }
+}
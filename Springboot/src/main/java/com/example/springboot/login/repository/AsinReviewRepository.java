@@ -1,12 +1,64 @@
 package com.example.springboot.login.repository;
 
 import com.example.springboot.login.entity.AsinReview;
+import com.example.springboot.login.export.DataWatermark;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+// 评论数据按任务（task_id）查询：同一ASIN可能被多个任务爬取，只返回本任务写入的评论
 @Repository
-public interface AsinReviewRepository extends JpaRepository<AsinReview, Long> {
+public interface AsinReviewRepository extends JpaRepository<AsinReview, Long>, AsinReviewRepositoryCustom {
     List<AsinReview> findByAsinIn(List<String> asins);
-}
\ No newline at end of file
+
+    // 按任务ID查询所有评论数据
+    @Query("SELECT ar FROM AsinReview ar WHERE ar.task.id = :taskId ORDER BY ar.id")
+    List<AsinReview> findByTaskId(@Param("taskId") Long taskId);
+
+    // 评论详情（限定在任务内）
+    @Query("SELECT ar FROM AsinReview ar WHERE ar.id = :id AND ar.task.id = :taskId")
+    Optional<AsinReview> findByIdAndTaskId(@Param("id") Long id, @Param("taskId") Long taskId);
+
+    // 按任务ID以游标方式逐行读取评论数据（需在事务内消费并关闭Stream）
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT ar FROM AsinReview ar WHERE ar.task.id = :taskId ORDER BY ar.id")
+    Stream<AsinReview> streamByTaskId(@Param("taskId") Long taskId);
+
+    // 按任务ID读取ID大于 afterId 的评论数据（增量分析只读取水位之后的新数据）
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT ar FROM AsinReview ar WHERE ar.task.id = :taskId AND ar.id > :afterId ORDER BY ar.id")
+    Stream<AsinReview> streamByTaskIdAndIdGreaterThan(@Param("taskId") Long taskId, @Param("afterId") Long afterId);
+
+    // 任务内ID在 (fromId, toId] 范围内的评论ID，走 (task_id, id) 索引，只读取水位之前一个窗口
+    @Query("SELECT ar.id FROM AsinReview ar WHERE ar.task.id = :taskId AND ar.id > :fromId AND ar.id <= :toId ORDER BY ar.id")
+    List<Long> findIdsByTaskIdAndIdBetween(@Param("taskId") Long taskId, @Param("fromId") long fromId,
+                                           @Param("toId") long toId);
+
+    // 任务内 asin / brand 的去重取值（用于Arrow字典编码），按二进制比较去重
+    @Query(value = "SELECT DISTINCT 'asin', CAST(asin AS BINARY) FROM asin_review WHERE task_id = :taskId AND asin IS NOT NULL " +
+            "UNION ALL SELECT DISTINCT 'brand', CAST(brand AS BINARY) FROM asin_review WHERE task_id = :taskId AND brand IS NOT NULL",
+            nativeQuery = true)
+    List<Object[]> findDistinctDictionaryValuesByTaskId(@Param("taskId") Long taskId);
+
+    @Query("SELECT COUNT(ar) FROM AsinReview ar WHERE ar.task.id = :taskId")
+    long countByTaskId(@Param("taskId") Long taskId);
+
+    // 任务评论数据的水位（最新爬取时间 + 行数），用于判断导出缓存是否仍然有效
+    @Query("SELECT new com.example.springboot.login.export.DataWatermark(MAX(ar.crawlTime), COUNT(ar)) " +
+            "FROM AsinReview ar WHERE ar.task.id = :taskId")
+    DataWatermark findWatermarkByTaskId(@Param("taskId") Long taskId);
+}
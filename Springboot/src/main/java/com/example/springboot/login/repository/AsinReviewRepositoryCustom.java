@@ -0,0 +1,11 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.dto.AsinReviewListDTO;
+
+import java.util.List;
+
+public interface AsinReviewRepositoryCustom {
+
+    // 按游标读取一页评论列表（不含评论正文和图片），最多返回 limit + 1 行（多出的一行用于判断是否还有下一页）
+    List<AsinReviewListDTO> findPage(ReviewPageQuery query);
+}
@@ -0,0 +1,116 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.dto.AsinReviewListDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 任务评论的键集分页：按 (crawl_time, id) 定位到上一页最后一行之后继续读取，
+// 使用 (task_id, asin, crawl_time, id) / (task_id, crawl_time, id) 索引，且直接查询为列表DTO，不读取大字段。
+// 爬取时间为空的行固定排在最后
+public class AsinReviewRepositoryImpl implements AsinReviewRepositoryCustom {
+
+    private static final String SELECT_LIST = "SELECT new com.example.springboot.login.dto.AsinReviewListDTO(" +
+            "ar.id, ar.asin, ar.brand, ar.reviewId, ar.reviewerName, ar.reviewTitle, ar.reviewRating, " +
+            "ar.reviewDate, ar.helpfulVotes, ar.crawlTime, ar.task.id) FROM AsinReview ar WHERE ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AsinReviewListDTO> findPage(ReviewPageQuery query) {
+        int fetchSize = query.getLimit() + 1;
+        List<AsinReviewListDTO> rows = new ArrayList<>(fetchSize);
+        if (!query.isAfterNull()) {
+            rows.addAll(findNonNullCrawlTime(query, fetchSize));
+        }
+        if (rows.size() < fetchSize) {
+            Long afterId = query.isAfterNull() ? query.getAfterId() : null;
+            rows.addAll(findNullCrawlTime(query, afterId, fetchSize - rows.size()));
+        }
+        return rows;
+    }
+
+    private List<AsinReviewListDTO> findNonNullCrawlTime(ReviewPageQuery query, int maxResults) {
+        String op = query.isDescending() ? "<" : ">";
+        String direction = query.isDescending() ? " DESC" : " ASC";
+
+        StringBuilder jpql = new StringBuilder(SELECT_LIST);
+        appendFilters(jpql, query);
+        jpql.append(" AND ar.crawlTime IS NOT NULL");
+        if (query.getAfterId() != null) {
+            jpql.append(" AND (ar.crawlTime ").append(op).append(" :afterCrawlTime OR (ar.crawlTime = :afterCrawlTime AND ar.id ")
+                    .append(op).append(" :afterId))");
+        }
+        jpql.append(" ORDER BY ar.crawlTime").append(direction).append(", ar.id").append(direction);
+
+        TypedQuery<AsinReviewListDTO> typedQuery = createQuery(jpql.toString(), query, maxResults);
+        if (query.getAfterId() != null) {
+            typedQuery.setParameter("afterCrawlTime", query.getAfterCrawlTime());
+            typedQuery.setParameter("afterId", query.getAfterId());
+        }
+        return typedQuery.getResultList();
+    }
+
+    private List<AsinReviewListDTO> findNullCrawlTime(ReviewPageQuery query, Long afterId, int maxResults) {
+        String direction = query.isDescending() ? " DESC" : " ASC";
+
+        StringBuilder jpql = new StringBuilder(SELECT_LIST);
+        appendFilters(jpql, query);
+        jpql.append(" AND ar.crawlTime IS NULL");
+        if (afterId != null) {
+            jpql.append(" AND ar.id ").append(query.isDescending() ? "<" : ">").append(" :afterId");
+        }
+        jpql.append(" ORDER BY ar.id").append(direction);
+
+        TypedQuery<AsinReviewListDTO> typedQuery = createQuery(jpql.toString(), query, maxResults);
+        if (afterId != null) {
+            typedQuery.setParameter("afterId", afterId);
+        }
+        return typedQuery.getResultList();
+    }
+
+    private void appendFilters(StringBuilder jpql, ReviewPageQuery query) {
+        jpql.append("ar.task.id = :taskId");
+        if (query.getAsin() != null) {
+            jpql.append(" AND ar.asin = :asin");
+        }
+        if (query.getMinRating() != null) {
+            jpql.append(" AND ar.reviewRating >= :minRating");
+        }
+        if (query.getMaxRating() != null) {
+            jpql.append(" AND ar.reviewRating <= :maxRating");
+        }
+        if (query.getFrom() != null) {
+            jpql.append(" AND ar.crawlTime >= :from");
+        }
+        if (query.getTo() != null) {
+            jpql.append(" AND ar.crawlTime < :to");
+        }
+    }
+
+    private TypedQuery<AsinReviewListDTO> createQuery(String jpql, ReviewPageQuery query, int maxResults) {
+        TypedQuery<AsinReviewListDTO> typedQuery = entityManager.createQuery(jpql, AsinReviewListDTO.class)
+                .setParameter("taskId", query.getTaskId())
+                .setMaxResults(maxResults);
+        if (query.getAsin() != null) {
+            typedQuery.setParameter("asin", query.getAsin());
+        }
+        if (query.getMinRating() != null) {
+            typedQuery.setParameter("minRating", query.getMinRating());
+        }
+        if (query.getMaxRating() != null) {
+            typedQuery.setParameter("maxRating", query.getMaxRating());
+        }
+        if (query.getFrom() != null) {
+            typedQuery.setParameter("from", query.getFrom());
+        }
+        if (query.getTo() != null) {
+            typedQuery.setParameter("to", query.getTo());
+        }
+        return typedQuery;
+    }
+}
@@ -4,10 +4,15 @@ import com.example.springboot.login.entity.CrawlerTask;
 import com.example.springboot.login.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,5 +22,21 @@ public interface CrawlerTaskRepository
 
     List<CrawlerTask> findByUser(User user);
     List<CrawlerTask> findByStatus(String status);
+
+    @Query("SELECT t.id FROM CrawlerTask t")
+    List<Long> findAllIds();
+
+    // 给定ID中仍存在的任务ID
+    @Query("SELECT t.id FROM CrawlerTask t WHERE t.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // 任务列表分页：用户通过连接一起查出，避免每个任务单独查询用户；count查询不受影响
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Page<CrawlerTask> findAll(Specification<CrawlerTask> spec, Pageable pageable);
+
+    // 一次性初始化一页任务的所需信息集合（集合不能在分页查询中直接fetch join，否则会在内存中分页）
+    @Query("SELECT DISTINCT t FROM CrawlerTask t LEFT JOIN FETCH t.requiredInfo WHERE t.id IN :ids")
+    List<CrawlerTask> fetchRequiredInfoByIdIn(@Param("ids") List<Long> ids);
 //    Page<CrawlerTask> findByFilters(String status, String timeCycle, String platform, String keyword, Pageable pageable);
 }
\ No newline at end of file
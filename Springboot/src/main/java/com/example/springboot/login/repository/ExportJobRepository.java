@@ -0,0 +1,28 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.entity.ExportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ExportJobRepository extends JpaRepository<ExportJob, Long> {
+
+    List<ExportJob> findByStatusInAndFinishTimeBefore(Collection<String> statuses, LocalDateTime time);
+
+    // 服务重启后，将本实例未完成的导出任务（以及早于 staleBefore 的无实例记录的任务）标记为失败
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExportJob j SET j.status = 'FAILED', j.errorMessage = :message, j.finishTime = :now " +
+            "WHERE j.status IN ('QUEUED', 'RUNNING') " +
+            "AND (j.owner = :owner OR (j.owner IS NULL AND j.createTime < :staleBefore))")
+    int failUnfinishedJobs(@Param("owner") String owner, @Param("message") String message,
+                           @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+}
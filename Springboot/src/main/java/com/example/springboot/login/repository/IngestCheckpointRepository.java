@@ -0,0 +1,35 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.entity.IngestCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IngestCheckpointRepository extends JpaRepository<IngestCheckpoint, Long> {
+
+    Optional<IngestCheckpoint> findByTaskIdAndStreamId(Long taskId, String streamId);
+
+    // 首次写入时创建检查点，已存在时忽略
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO ingest_checkpoint (task_id, stream_id, committed_offset, update_time) " +
+            "VALUES (:taskId, :streamId, 0, NOW())", nativeQuery = true)
+    int insertIfAbsent(@Param("taskId") Long taskId, @Param("streamId") String streamId);
+
+    // 仅当检查点仍在 fromOffset 时推进，返回0表示已被同一写入流的其他连接推进
+    @Modifying
+    @Query("UPDATE IngestCheckpoint c SET c.committedOffset = :toOffset, c.updateTime = :now " +
+            "WHERE c.taskId = :taskId AND c.streamId = :streamId AND c.committedOffset = :fromOffset")
+    int advance(@Param("taskId") Long taskId, @Param("streamId") String streamId,
+                @Param("fromOffset") long fromOffset, @Param("toOffset") long toOffset,
+                @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IngestCheckpoint c WHERE c.taskId = :taskId")
+    int deleteByTaskId(@Param("taskId") Long taskId);
+}
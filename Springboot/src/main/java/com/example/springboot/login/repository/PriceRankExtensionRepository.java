@@ -0,0 +1,39 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.entity.PriceRankExtension;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PriceRankExtensionRepository extends JpaRepository<PriceRankExtension, Long> {
+
+    // 锁定并返回尚未累加到日汇总的延长记录（按价格记录ID顺序加锁），期间同一行的新延长等待本事务提交
+    @Query(value = "SELECT price_rank_id FROM price_rank_extension WHERE task_id = :taskId AND rollup_count > 0 " +
+            "ORDER BY price_rank_id FOR UPDATE", nativeQuery = true)
+    List<Long> lockPendingRollup(@Param("taskId") Long taskId);
+
+    boolean existsByTaskIdAndRollupCountGreaterThan(Long taskId, int rollupCount);
+
+    // 尚未并入分析统计的延长记录（一致性读，与同一事务中读取的价格数据属于同一快照）
+    @Query("SELECT e FROM PriceRankExtension e WHERE e.taskId = :taskId AND e.analysisCount > 0 ORDER BY e.priceRankId")
+    List<PriceRankExtension> findPendingAnalysis(@Param("taskId") Long taskId);
+
+    // 已由 lockPendingRollup 锁定，直接清零
+    @Modifying
+    @Query("UPDATE PriceRankExtension e SET e.rollupCount = 0 WHERE e.priceRankId IN :ids")
+    int clearRollupCount(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM PriceRankExtension e WHERE e.taskId = :taskId AND e.rollupCount <= 0 AND e.analysisCount <= 0")
+    int deleteConsumed(@Param("taskId") Long taskId);
+
+    @Modifying
+    @Query("DELETE FROM PriceRankExtension e WHERE e.taskId = :taskId")
+    int deleteByTaskId(@Param("taskId") Long taskId);
+}
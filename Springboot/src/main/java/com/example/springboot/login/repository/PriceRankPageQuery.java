@@ -0,0 +1,23 @@
+package com.example.springboot.login.repository;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// 价格数据游标分页的查询条件；afterId 为空表示第一页，
+// 否则从上一页最后一行 (afterKey, afterId) 之后继续（afterNull 表示上一页已进入排序字段为空的行）
+@Data
+public class PriceRankPageQuery {
+
+    private Long taskId;
+    private String asin;
+    private LocalDateTime from; // 爬取时间下限（含）
+    private LocalDateTime to; // 爬取时间上限（不含）
+    private PriceRankSort sort = PriceRankSort.CRAWL_TIME;
+    private boolean descending;
+    private int limit;
+
+    private boolean afterNull;
+    private Object afterKey;
+    private Long afterId;
+}
@@ -0,0 +1,50 @@
+package com.example.springboot.login.repository;
+
+import java.time.LocalDateTime;
+
+// 价格数据分页的排序字段，每种排序都有对应的 (task_id, 字段, id) 复合索引
+public enum PriceRankSort {
+
+    CRAWL_TIME("crawlTime", "crawlTime"),
+    PRICE("price", "nonMemberFinalPrice"),
+    RANK("rank", "subCategoryRank");
+
+    private final String param;
+    private final String property;
+
+    PriceRankSort(String param, String property) {
+        this.param = param;
+        this.property = property;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    // 对应的实体属性名
+    public String getProperty() {
+        return property;
+    }
+
+    // 游标中保存的排序字段值与字符串之间的转换
+    public Object parseKey(String text) {
+        return switch (this) {
+            case CRAWL_TIME -> LocalDateTime.parse(text);
+            case PRICE -> Double.valueOf(text);
+            case RANK -> Integer.valueOf(text);
+        };
+    }
+
+    // 解析接口参数，未指定时按爬取时间排序
+    public static PriceRankSort fromParam(String param) {
+        if (param == null || param.isEmpty()) {
+            return CRAWL_TIME;
+        }
+        for (PriceRankSort sort : values()) {
+            if (sort.param.equalsIgnoreCase(param)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("不支持的排序字段: " + param);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.entity.PriceRollupState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface PriceRollupStateRepository extends JpaRepository<PriceRollupState, Long> {
+
+    // 首次维护时创建状态行，已存在时忽略
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO price_rollup_state (task_id, last_price_rank_id, recent_price_rank_ids, row_count, " +
+            "stale, data_version, update_time) VALUES (:taskId, 0, '', 0, false, 0, NOW())", nativeQuery = true)
+    int insertIfAbsent(@Param("taskId") Long taskId);
+
+    // 锁定状态行，同一任务的日汇总在所有服务实例中串行维护
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PriceRollupState s WHERE s.taskId = :taskId")
+    Optional<PriceRollupState> findForUpdate(@Param("taskId") Long taskId);
+
+    // 与延长价格行在同一事务中递增，事务提交后导出缓存键随之变化；先于价格行加锁，与日汇总维护的加锁顺序一致
+    @Modifying
+    @Query("UPDATE PriceRollupState s SET s.dataVersion = s.dataVersion + 1 WHERE s.taskId = :taskId")
+    int incrementDataVersion(@Param("taskId") Long taskId);
+
+    // 任务价格数据的版本，状态行不存在时为空
+    @Query("SELECT s.dataVersion FROM PriceRollupState s WHERE s.taskId = :taskId")
+    Optional<Long> findDataVersion(@Param("taskId") Long taskId);
+
+    // 在数据变更事务提交后调用，需要独立事务
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE PriceRollupState s SET s.stale = true WHERE s.taskId = :taskId AND s.stale = false")
+    int markStale(@Param("taskId") Long taskId);
+}
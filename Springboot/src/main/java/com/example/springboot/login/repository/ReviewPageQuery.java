@@ -0,0 +1,24 @@
+package com.example.springboot.login.repository;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// 评论游标分页的查询条件（按爬取时间排序）；afterId 为空表示第一页，
+// 否则从上一页最后一行 (afterCrawlTime, afterId) 之后继续（afterNull 表示上一页已进入爬取时间为空的行）
+@Data
+public class ReviewPageQuery {
+
+    private Long taskId;
+    private String asin;
+    private Double minRating; // 评分下限（含）
+    private Double maxRating; // 评分上限（含）
+    private LocalDateTime from; // 爬取时间下限（含）
+    private LocalDateTime to; // 爬取时间上限（不含）
+    private boolean descending;
+    private int limit;
+
+    private boolean afterNull;
+    private LocalDateTime afterCrawlTime;
+    private Long afterId;
+}
@@ -0,0 +1,20 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.entity.TaskAnalysisState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface TaskAnalysisStateRepository extends JpaRepository<TaskAnalysisState, Long> {
+
+    // 在数据变更事务提交后调用，需要独立事务
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE TaskAnalysisState s SET s.stale = true, s.version = s.version + 1 WHERE s.taskId = :taskId")
+    int markStale(@Param("taskId") Long taskId);
+}
@@ -0,0 +1,34 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.entity.TaskAsin;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TaskAsinRepository extends JpaRepository<TaskAsin, Long> {
+
+    @Query("SELECT ta.asin FROM TaskAsin ta WHERE ta.taskId = :taskId")
+    List<String> findAsinsByTaskId(@Param("taskId") Long taskId);
+
+    // 按ASIN反查任务，走 (asin, task_id) 索引
+    @Query("SELECT ta.taskId FROM TaskAsin ta WHERE ta.asin = :asin ORDER BY ta.taskId DESC")
+    List<Long> findTaskIdsByAsin(@Param("asin") String asin);
+
+    // 尚未建立对应关系的任务（升级前创建的任务），用于启动时回填
+    @Query("SELECT t.id FROM CrawlerTask t WHERE NOT EXISTS (SELECT 1 FROM TaskAsin ta WHERE ta.taskId = t.id)")
+    List<Long> findTaskIdsWithoutAsins();
+
+    @Modifying
+    @Query("DELETE FROM TaskAsin ta WHERE ta.taskId = :taskId AND ta.asin IN :asins")
+    int deleteByTaskIdAndAsinIn(@Param("taskId") Long taskId, @Param("asins") Collection<String> asins);
+
+    @Modifying
+    @Query("DELETE FROM TaskAsin ta WHERE ta.taskId = :taskId")
+    int deleteByTaskId(@Param("taskId") Long taskId);
+}
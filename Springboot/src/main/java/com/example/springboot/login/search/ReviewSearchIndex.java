@@ -0,0 +1,235 @@
+package com.example.springboot.login.search;
+
+import com.example.springboot.login.dto.ReviewSearchHitDTO;
+import com.example.springboot.login.entity.AsinReview;
+import com.example.springboot.login.util.IdWindow;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// 评论全文索引：使用本地磁盘上的Lucene索引，对评论标题和正文分词建立倒排索引。
+// 每条评论一个文档，任务ID和ASIN作为过滤字段；评论记录ID同时用于删除、排序（取任务已索引的最大ID）和范围查询。
+// 索引只保存在本实例的磁盘上，可随时删除后由数据库重建，同一索引目录只能被一个服务实例打开
+@Component
+public class ReviewSearchIndex {
+
+    private static final String F_ID = "id";
+    private static final String F_TASK = "taskId";
+    private static final String F_ASIN = "asin";
+    private static final String F_RATING = "rating";
+    private static final String F_TITLE = "title";
+    private static final String F_CONTENT = "content";
+
+    // 标题命中比正文命中权重更高
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(F_TITLE, 2.0f, F_CONTENT, 1.0f);
+
+    @Value("${search.index-dir:./data/review-index}")
+    private String indexDir;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    @PostConstruct
+    public void open() throws IOException {
+        Path path = Paths.get(indexDir);
+        Files.createDirectories(path);
+        directory = FSDirectory.open(path);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    public void add(AsinReview review, Long taskId) throws IOException {
+        Document doc = new Document();
+        doc.add(new LongPoint(F_ID, review.getId()));
+        doc.add(new NumericDocValuesField(F_ID, review.getId()));
+        doc.add(new StoredField(F_ID, review.getId()));
+        doc.add(new StringField(F_TASK, String.valueOf(taskId), Field.Store.NO));
+        if (review.getAsin() != null) {
+            doc.add(new StringField(F_ASIN, review.getAsin(), Field.Store.YES));
+        }
+        if (review.getReviewRating() != null) {
+            doc.add(new StoredField(F_RATING, review.getReviewRating()));
+        }
+        // 保存原文用于生成高亮片段
+        if (review.getReviewTitle() != null) {
+            doc.add(new TextField(F_TITLE, review.getReviewTitle(), Field.Store.YES));
+        }
+        if (review.getReviewContent() != null) {
+            doc.add(new TextField(F_CONTENT, review.getReviewContent(), Field.Store.YES));
+        }
+        writer.addDocument(doc);
+    }
+
+    public void deleteByTaskId(Long taskId) throws IOException {
+        writer.deleteDocuments(new Term(F_TASK, String.valueOf(taskId)));
+    }
+
+    // 提交写入并刷新搜索视图
+    public void commit() throws IOException {
+        writer.commit();
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    // 任务已索引的最大评论ID，未索引过时返回0
+    public long maxReviewId(Long taskId) throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(taskQuery(taskId), 1,
+                    new Sort(new SortField(F_ID, SortField.Type.LONG, true)));
+            if (top.scoreDocs.length == 0) {
+                return 0L;
+            }
+            return searcher.storedFields().document(top.scoreDocs[0].doc)
+                    .getField(F_ID).numericValue().longValue();
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    // 任务中ID大于 fromId 的已索引评论ID，与数据库对比可发现晚提交而遗漏的评论
+    public IdWindow idsAbove(Long taskId, long fromId) throws IOException {
+        Query query = new BooleanQuery.Builder()
+                .add(taskQuery(taskId), BooleanClause.Occur.FILTER)
+                .add(LongPoint.newRangeQuery(F_ID, fromId + 1, Long.MAX_VALUE), BooleanClause.Occur.FILTER)
+                .build();
+        IdWindow ids = new IdWindow();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            searcher.search(query, new SimpleCollector() {
+                private NumericDocValues values;
+
+                @Override
+                protected void doSetNextReader(LeafReaderContext context) throws IOException {
+                    values = DocValues.getNumeric(context.reader(), F_ID);
+                }
+
+                @Override
+                public void collect(int doc) throws IOException {
+                    if (values.advanceExact(doc)) {
+                        ids.add(values.longValue());
+                    }
+                }
+
+                @Override
+                public ScoreMode scoreMode() {
+                    return ScoreMode.COMPLETE_NO_SCORES;
+                }
+            });
+        } finally {
+            searcherManager.release(searcher);
+        }
+        return ids;
+    }
+
+    // 按相关度排序返回前 limit 条命中，标题和正文中命中的词用 <em> 标记（原文已做HTML转义）。
+    // 关键词支持Lucene查询语法：多个词需同时命中，双引号内为短语，如 "broke after"
+    public List<ReviewSearchHitDTO> search(Long taskId, String keywords, String asin, int limit) throws IOException {
+        Query textQuery = parse(keywords);
+        BooleanQuery.Builder builder = new BooleanQuery.Builder()
+                .add(textQuery, BooleanClause.Occur.MUST)
+                .add(taskQuery(taskId), BooleanClause.Occur.FILTER);
+        if (asin != null && !asin.isEmpty()) {
+            builder.add(new TermQuery(new Term(F_ASIN, asin)), BooleanClause.Occur.FILTER);
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(builder.build(), limit);
+            UnifiedHighlighter highlighter = UnifiedHighlighter.builder(searcher, analyzer)
+                    .withFormatter(new DefaultPassageFormatter("<em>", "</em>", "... ", true))
+                    .build();
+            Map<String, String[]> highlights = highlighter.highlightFields(
+                    new String[]{F_TITLE, F_CONTENT}, textQuery, top, new int[]{1, 2});
+
+            StoredFields storedFields = searcher.storedFields();
+            List<ReviewSearchHitDTO> hits = new ArrayList<>(top.scoreDocs.length);
+            for (int i = 0; i < top.scoreDocs.length; i++) {
+                ScoreDoc scoreDoc = top.scoreDocs[i];
+                Document doc = storedFields.document(scoreDoc.doc);
+                ReviewSearchHitDTO hit = new ReviewSearchHitDTO();
+                hit.setId(doc.getField(F_ID).numericValue().longValue());
+                hit.setAsin(doc.get(F_ASIN));
+                if (doc.getField(F_RATING) != null) {
+                    hit.setReviewRating(doc.getField(F_RATING).numericValue().doubleValue());
+                }
+                hit.setScore(scoreDoc.score);
+                hit.setTitleHighlight(highlights.get(F_TITLE)[i]);
+                hit.setContentHighlight(highlights.get(F_CONTENT)[i]);
+                hits.add(hit);
+            }
+            return hits;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    // QueryParser 非线程安全，每次查询新建
+    private Query parse(String keywords) {
+        QueryParser parser = new MultiFieldQueryParser(new String[]{F_TITLE, F_CONTENT}, analyzer, FIELD_BOOSTS);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+        try {
+            return parser.parse(keywords);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("搜索关键词格式错误: " + keywords);
+        }
+    }
+
+    private Query taskQuery(Long taskId) {
+        return new TermQuery(new Term(F_TASK, String.valueOf(taskId)));
+    }
+}
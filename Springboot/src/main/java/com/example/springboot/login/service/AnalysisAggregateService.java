@@ -0,0 +1,213 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.entity.AsinReview;
+import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.entity.PriceRankExtension;
+import com.example.springboot.login.entity.TaskAnalysisState;
+import com.example.springboot.login.event.CrawlDataChangedEvent;
+import com.example.springboot.login.report.ReportAggregates;
+import com.example.springboot.login.repository.AsinPriceRankRepository;
+import com.example.springboot.login.repository.AsinReviewRepository;
+import com.example.springboot.login.repository.PriceRankExtensionRepository;
+import com.example.springboot.login.repository.TaskAnalysisStateRepository;
+import com.example.springboot.login.util.IdWindow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// 增量分析：每个任务保存已累计的统计结果和已处理数据的ID水位，
+// 再次分析时只读取水位之后新写入的价格与评论并入结果，耗时与新增数据量成正比。
+// 水位之前一个窗口（late-commit-window 个ID）内晚提交的数据按已并入的ID集合识别后同样增量并入；
+// 仅记录变化时已并入的行被延长，按增加的观测次数（price_rank_extension）并入；已并入的数据被修改或删除时自动全量重建
+@Service
+public class AnalysisAggregateService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisAggregateService.class);
+
+    private static final int EXTENSION_CHUNK = 1000;
+
+    // 按读取时的增量扣减，读取之后新延长的部分留给下次分析
+    private static final String CONSUME_EXTENSION =
+            "UPDATE price_rank_extension SET analysis_count = analysis_count - ? WHERE price_rank_id = ?";
+
+    @Autowired
+    private TaskAnalysisStateRepository stateRepository;
+
+    @Autowired
+    private AsinPriceRankRepository priceRankRepository;
+
+    @Autowired
+    private AsinReviewRepository reviewRepository;
+
+    @Autowired
+    private PriceRankExtensionRepository extensionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${analysis.late-commit-window:10000}")
+    private long lateCommitWindow;
+
+    // 刷新并返回任务的统计结果，full为true时忽略已保存的结果全量重建；
+    // 结果写回时校验版本，期间数据被修改（状态被标记失效）会抛出乐观锁异常
+    @Transactional
+    public ReportAggregates refresh(CrawlerTask task, boolean full) {
+        TaskAnalysisState state = stateRepository.findById(task.getId()).orElse(null);
+        ReportAggregates aggregates = full ? null : restore(state, task);
+
+        long lastPriceRankId = 0L;
+        long lastReviewId = 0L;
+        IdWindow priceWindow = new IdWindow();
+        IdWindow reviewWindow = new IdWindow();
+        if (aggregates == null) {
+            aggregates = new ReportAggregates();
+        } else {
+            lastPriceRankId = state.getLastPriceRankId();
+            lastReviewId = state.getLastReviewId();
+            priceWindow = IdWindow.parse(state.getRecentPriceRankIds());
+            reviewWindow = IdWindow.parse(state.getRecentReviewIds());
+        }
+        long priceRowsBefore = aggregates.getPriceRowCount();
+        long reviewsBefore = aggregates.getReviewCount();
+        // 本次之前已并入的价格记录，只有这些记录的延长需要按差量并入
+        long mergedLastId = lastPriceRankId;
+        IdWindow mergedWindow = IdWindow.parse(priceWindow.toString());
+
+        // ID为自增主键，从水位之前一个窗口开始按ID顺序读取，跳过窗口内已并入的行
+        long priceFromId = Math.max(0L, lastPriceRankId - lateCommitWindow);
+        try (Stream<AsinPriceRankDTO> rows = priceRankRepository.streamDtoByTaskIdAndIdGreaterThan(task.getId(), priceFromId)) {
+            Iterator<AsinPriceRankDTO> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                AsinPriceRankDTO row = iterator.next();
+                if (row.getId() <= lastPriceRankId && priceWindow.contains(row.getId())) {
+                    continue;
+                }
+                aggregates.addPriceRank(row);
+                priceWindow.add(row.getId());
+                priceWindow.retainAbove(row.getId() - lateCommitWindow);
+                lastPriceRankId = Math.max(lastPriceRankId, row.getId());
+            }
+        }
+        long reviewFromId = Math.max(0L, lastReviewId - lateCommitWindow);
+        try (Stream<AsinReview> rows = reviewRepository.streamByTaskIdAndIdGreaterThan(task.getId(), reviewFromId)) {
+            Iterator<AsinReview> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                AsinReview row = iterator.next();
+                if (row.getId() > lastReviewId || !reviewWindow.contains(row.getId())) {
+                    aggregates.addReview(row);
+                    reviewWindow.add(row.getId());
+                    reviewWindow.retainAbove(row.getId() - lateCommitWindow);
+                    lastReviewId = Math.max(lastReviewId, row.getId());
+                }
+                entityManager.detach(row);
+            }
+        }
+        mergeExtensions(task, aggregates, mergedLastId, mergedWindow);
+        priceWindow.retainAbove(lastPriceRankId - lateCommitWindow);
+        reviewWindow.retainAbove(lastReviewId - lateCommitWindow);
+
+        if (state == null) {
+            state = new TaskAnalysisState();
+            state.setTaskId(task.getId());
+        }
+        state.setLastPriceRankId(lastPriceRankId);
+        state.setLastReviewId(lastReviewId);
+        state.setRecentPriceRankIds(priceWindow.toString());
+        state.setRecentReviewIds(reviewWindow.toString());
+        state.setLastCrawlTime(aggregates.getLastCrawlTime());
+        state.setAggregates(toJson(aggregates));
+        state.setStale(false);
+        state.setUpdateTime(LocalDateTime.now());
+        stateRepository.save(state);
+
+        log.info("任务{}分析统计已更新：新增价格记录{}条，新增评论{}条", task.getId(),
+                aggregates.getPriceRowCount() - priceRowsBefore, aggregates.getReviewCount() - reviewsBefore);
+        return aggregates;
+    }
+
+    // 延长记录与价格数据在同一快照中读取：本次之前已并入的行按增加的观测次数并入；本次并入的行读取时已包含延长的观测，
+    // 快照中还不可见的行以后并入时同样如此，这两种只扣减不并入。扣减的是快照中的增量，之后新延长的部分留给下次分析
+    private void mergeExtensions(CrawlerTask task, ReportAggregates aggregates, long mergedLastId, IdWindow mergedWindow) {
+        List<PriceRankExtension> extensions = extensionRepository.findPendingAnalysis(task.getId());
+        if (extensions.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> merged = new HashMap<>();
+        for (PriceRankExtension extension : extensions) {
+            long id = extension.getPriceRankId();
+            if (id <= mergedLastId && (id <= mergedLastId - lateCommitWindow || mergedWindow.contains(id))) {
+                merged.put(id, extension.getAnalysisCount());
+            }
+        }
+        List<Long> ids = new ArrayList<>(merged.keySet());
+        for (int from = 0; from < ids.size(); from += EXTENSION_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + EXTENSION_CHUNK));
+            for (AsinPriceRankDTO row : priceRankRepository.findDtoByIdIn(chunk)) {
+                aggregates.addObservations(row, merged.get(row.getId()));
+            }
+        }
+        // 按价格记录ID顺序加锁，与日汇总锁定延长记录的顺序一致
+        jdbcTemplate.batchUpdate(CONSUME_EXTENSION, extensions, EXTENSION_CHUNK, (ps, extension) -> {
+            ps.setInt(1, extension.getAnalysisCount());
+            ps.setLong(2, extension.getPriceRankId());
+        });
+        extensionRepository.deleteConsumed(task.getId());
+        extensions.forEach(entityManager::detach);
+    }
+
+    // 已并入的数据被修改或删除时标记状态失效；仅新增数据不影响已累计的结果
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCrawlDataChanged(CrawlDataChangedEvent event) {
+        if (event.isAppendOnly()) {
+            return;
+        }
+        stateRepository.markStale(event.getTaskId());
+    }
+
+    // 可用于增量计算时返回已保存的结果，否则返回null（全量重建）
+    private ReportAggregates restore(TaskAnalysisState state, CrawlerTask task) {
+        // 没有已并入ID窗口的旧状态无法识别窗口内哪些行已并入
+        if (state == null || state.isStale()
+                || state.getRecentPriceRankIds() == null || state.getRecentReviewIds() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(state.getAggregates(), ReportAggregates.class);
+        } catch (JsonProcessingException e) {
+            log.warn("任务{}的分析统计无法解析，全量重建", task.getId(), e);
+            return null;
+        }
+    }
+
+    private String toJson(ReportAggregates aggregates) {
+        try {
+            return objectMapper.writeValueAsString(aggregates);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("分析统计序列化失败", e);
+        }
+    }
+}
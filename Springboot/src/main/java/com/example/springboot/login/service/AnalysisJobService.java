@@ -0,0 +1,237 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.entity.AnalysisJob;
+import com.example.springboot.login.entity.User;
+import com.example.springboot.login.exception.JobNotFoundException;
+import com.example.springboot.login.exception.JobStateException;
+import com.example.springboot.login.exception.QueueFullException;
+import com.example.springboot.login.repository.AnalysisJobRepository;
+import com.example.springboot.login.repository.AnalysisLeaseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// 数据分析任务：状态持久化到数据库，在有界线程池中执行；
+// 通过数据库租约保证同一爬虫任务在所有服务实例中同时只有一个分析在排队或执行
+@Service
+public class AnalysisJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisJobService.class);
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_NOT_STARTED = "NOT_STARTED"; // 没有分析记录（从未分析或记录已清理）
+
+    public static final String MODE_INCREMENTAL = "INCREMENTAL";
+    public static final String MODE_FULL = "FULL";
+
+    // 写入任务记录到获取租约之间的宽限时间，期间不会被判定为孤立任务
+    private static final Duration SUBMIT_GRACE = Duration.ofMinutes(1);
+
+    @Autowired
+    private AnalysisJobRepository analysisJobRepository;
+
+    @Autowired
+    private AnalysisLeaseRepository analysisLeaseRepository;
+
+    @Autowired
+    private CrawlerTaskService crawlerTaskService;
+
+    @Autowired
+    private TaskAnalysisService taskAnalysisService;
+
+    @Autowired
+    private UserService userService;
+
+    @Value("${analysis.jobs.pool-size:1}")
+    private int poolSize;
+
+    @Value("${analysis.jobs.queue-capacity:10}")
+    private int queueCapacity;
+
+    @Value("${analysis.jobs.lease-ttl:10m}")
+    private Duration leaseTtl;
+
+    @Value("${analysis.jobs.retention:7d}")
+    private Duration retention;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    private String owner; // 本实例标识（主机名:端口），重启后保持不变
+    private ThreadPoolExecutor executor;
+
+    // 本实例已提交（排队或执行中）的任务，需要定期续约
+    private final Set<Long> localJobIds = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        owner = resolveHostName() + ":" + serverPort;
+        if (owner.length() > 64) {
+            owner = owner.substring(owner.length() - 64);
+        }
+        // 固定线程数 + 有界队列，队列满时拒绝提交而不是无限堆积
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("analysis-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // 本实例重启后，之前持有的租约对应的任务已中断：释放租约，并将这些任务标记为失败
+    @EventListener(ApplicationReadyEvent.class)
+    public void releaseInterruptedJobs() {
+        int released = analysisLeaseRepository.deleteByOwner(owner);
+        if (released > 0) {
+            int failed = analysisJobRepository.failOrphanedJobs("服务重启，分析任务已中断，请重新提交",
+                    LocalDateTime.now(), LocalDateTime.now().minus(SUBMIT_GRACE));
+            log.warn("已释放{}个中断的分析任务租约，标记失败{}个任务", released, failed);
+        }
+    }
+
+    // 提交分析任务，full为true时全量重建统计结果；该爬虫任务已有分析在排队或执行时，直接返回已有的分析任务
+    public AnalysisJob submit(Long taskId, boolean full) {
+        crawlerTaskService.getTaskById(taskId);
+        User currentUser = userService.getCurrentUser();
+
+        AnalysisJob job = new AnalysisJob();
+        job.setTaskId(taskId);
+        job.setUserId(currentUser.getId());
+        job.setStatus(STATUS_QUEUED);
+        job.setMode(full ? MODE_FULL : MODE_INCREMENTAL);
+        job.setOwner(owner);
+        job.setCreateTime(LocalDateTime.now());
+        AnalysisJob savedJob = analysisJobRepository.save(job);
+
+        if (!acquireLease(taskId, savedJob.getId())) {
+            analysisJobRepository.delete(savedJob);
+            return analysisJobRepository.findFirstByTaskIdOrderByIdDesc(taskId)
+                    .filter(existing -> STATUS_QUEUED.equals(existing.getStatus())
+                            || STATUS_RUNNING.equals(existing.getStatus()))
+                    .orElseThrow(() -> new JobStateException("该任务的数据分析正在进行中，请稍后再试"));
+        }
+
+        localJobIds.add(savedJob.getId());
+        try {
+            executor.execute(() -> runJob(savedJob.getId(), taskId, full));
+        } catch (RejectedExecutionException e) {
+            finishJob(savedJob.getId(), taskId, STATUS_FAILED, "分析队列已满");
+            throw new QueueFullException("分析任务过多，请稍后重试");
+        }
+        return savedJob;
+    }
+
+    // 任务最近一次分析的状态，没有记录时返回 NOT_STARTED
+    public String getStatus(Long taskId) {
+        return analysisJobRepository.findFirstByTaskIdOrderByIdDesc(taskId)
+                .map(AnalysisJob::getStatus)
+                .orElse(STATUS_NOT_STARTED);
+    }
+
+    public AnalysisJob getLatestJob(Long taskId) {
+        return analysisJobRepository.findFirstByTaskIdOrderByIdDesc(taskId)
+                .orElseThrow(() -> new JobNotFoundException("该任务没有分析记录: " + taskId));
+    }
+
+    // 续约本实例持有的租约；实例宕机后租约到期，其他实例即可重新分析该任务
+    @Scheduled(fixedDelayString = "${analysis.jobs.lease-renew-interval:PT1M}")
+    public void renewLeases() {
+        if (!localJobIds.isEmpty()) {
+            analysisLeaseRepository.renew(List.copyOf(localJobIds), owner, leaseTtl.toSeconds());
+        }
+    }
+
+    // 清理：租约已失效的未结束任务标记为失败，删除过期租约和超过保留期的已结束记录
+    @Scheduled(fixedDelayString = "${analysis.jobs.cleanup-interval:PT10M}")
+    public void cleanup() {
+        LocalDateTime now = LocalDateTime.now();
+        int failed = analysisJobRepository.failOrphanedJobs("执行实例已停止，分析任务已中断，请重新提交",
+                now, now.minus(SUBMIT_GRACE));
+        analysisLeaseRepository.deleteAllExpired();
+        int deleted = analysisJobRepository.deleteByStatusInAndFinishTimeBefore(
+                List.of(STATUS_COMPLETED, STATUS_FAILED), now.minus(retention));
+        if (failed > 0 || deleted > 0) {
+            log.info("分析任务清理：标记失败{}个，删除过期记录{}个", failed, deleted);
+        }
+    }
+
+    private boolean acquireLease(Long taskId, Long jobId) {
+        analysisLeaseRepository.deleteExpired(taskId);
+        return analysisLeaseRepository.tryInsert(taskId, jobId, owner, leaseTtl.toSeconds()) > 0;
+    }
+
+    private void runJob(Long jobId, Long taskId, boolean full) {
+        AnalysisJob job = analysisJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            analysisLeaseRepository.release(taskId, jobId);
+            localJobIds.remove(jobId);
+            return;
+        }
+        job.setStatus(STATUS_RUNNING);
+        job.setStartTime(LocalDateTime.now());
+        analysisJobRepository.save(job);
+
+        try {
+            taskAnalysisService.analyze(taskId, jobId, full, progress -> analysisJobRepository.updateProgress(jobId, progress));
+            finishJob(jobId, taskId, STATUS_COMPLETED, null);
+            log.info("数据分析完成: jobId={}, taskId={}", jobId, taskId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finishJob(jobId, taskId, STATUS_FAILED, "分析任务被中断");
+        } catch (Exception e) {
+            log.error("数据分析失败: jobId={}, taskId={}", jobId, taskId, e);
+            finishJob(jobId, taskId, STATUS_FAILED, e.getMessage());
+        }
+    }
+
+    // 记录最终状态并释放租约
+    private void finishJob(Long jobId, Long taskId, String status, String message) {
+        try {
+            analysisJobRepository.findById(jobId).ifPresent(job -> {
+                job.setStatus(status);
+                if (STATUS_COMPLETED.equals(status)) {
+                    job.setProgress(100);
+                }
+                job.setErrorMessage(message != null && message.length() > 1000 ? message.substring(0, 1000) : message);
+                job.setFinishTime(LocalDateTime.now());
+                analysisJobRepository.save(job);
+            });
+        } finally {
+            analysisLeaseRepository.release(taskId, jobId);
+            localJobIds.remove(jobId);
+        }
+    }
+
+    private String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.export.ExportDataType;
+import com.example.springboot.login.export.ExportFormat;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// 多任务批量导出：各条目在有界线程池中并行生成到临时文件，再按固定顺序依次写入流式ZIP，
+// 内存中不缓存任何完整文件，磁盘上最多同时存在 concurrency 个待写入条目
+@Service
+public class BulkExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkExportService.class);
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private TaskExportService taskExportService;
+
+    @Value("${export.artifact-dir}")
+    private String artifactDir;
+
+    @Value("${export.bulk.concurrency:4}")
+    private int concurrency;
+
+    private ThreadPoolExecutor executor;
+
+    // ZIP条目：任务 + 数据类型
+    private record EntrySpec(CrawlerTask task, ExportDataType dataType, String name) {
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(Paths.get(artifactDir, "bulk"));
+        // 每个请求最多同时提交 concurrency 个条目，因此队列长度受并发请求数限制
+        executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("bulk-export-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // 条目顺序：按请求中的任务顺序，每个任务内按数据类型顺序
+    public void writeZip(List<CrawlerTask> tasks, List<ExportDataType> dataTypes,
+                         ExportFormat format, boolean expand, OutputStream out) throws IOException {
+        List<EntrySpec> entries = new ArrayList<>();
+        for (CrawlerTask task : tasks) {
+            for (ExportDataType dataType : dataTypes) {
+                entries.add(new EntrySpec(task, dataType, entryName(task, dataType, format)));
+            }
+        }
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // xlsx本身已是压缩格式，不再重复压缩
+        zip.setLevel(format == ExportFormat.XLSX ? Deflater.NO_COMPRESSION : Deflater.BEST_SPEED);
+
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        // 已创建、尚未写入ZIP的临时文件；临时文件在条目开始生成时才创建，未执行就被取消或拒绝的条目不会留下文件
+        Set<Path> tempFiles = ConcurrentHashMap.newKeySet();
+        List<Future<Path>> futures = new ArrayList<>(entries.size());
+        int submitted = 0;
+        try {
+            for (int i = 0; i < entries.size(); i++) {
+                // 保持最多 concurrency 个条目在并行生成
+                while (submitted < entries.size() && submitted < i + concurrency) {
+                    EntrySpec entry = entries.get(submitted);
+                    futures.add(executor.submit(() -> renderEntry(entry, format, expand, tempFiles, aborted)));
+                    submitted++;
+                }
+
+                Path file = awaitEntry(futures.get(i));
+                try {
+                    zip.putNextEntry(new ZipEntry(entries.get(i).name()));
+                    Files.copy(file, zip);
+                    zip.closeEntry();
+                } finally {
+                    Files.deleteIfExists(file);
+                    tempFiles.remove(file);
+                }
+            }
+            zip.finish();
+        } finally {
+            // 客户端断开或生成失败时，取消剩余条目并清理已创建的临时文件；
+            // 此后才创建临时文件的条目在生成结束时会看到中止标记，自行删除
+            aborted.set(true);
+            for (Future<Path> future : futures) {
+                if (!future.isDone()) {
+                    future.cancel(true);
+                }
+            }
+            for (Path file : tempFiles) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    private Path renderEntry(EntrySpec entry, ExportFormat format, boolean expand, Set<Path> tempFiles,
+                             AtomicBoolean aborted) throws IOException {
+        Path tempFile = Files.createTempFile(Paths.get(artifactDir, "bulk"), "bulk-", ".tmp");
+        tempFiles.add(tempFile);
+        try (OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(tempFile), OUTPUT_BUFFER_SIZE)) {
+            taskExportService.export(entry.task(), entry.dataType(), format, false, expand, fileOut);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            tempFiles.remove(tempFile);
+            throw e;
+        }
+        // 整体已中止时，写入方不会再读取该文件
+        if (aborted.get()) {
+            Files.deleteIfExists(tempFile);
+            tempFiles.remove(tempFile);
+        }
+        return tempFile;
+    }
+
+    private Path awaitEntry(Future<Path> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("批量导出被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("批量导出条目生成失败: " + cause.getMessage(), cause);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("清理批量导出临时文件失败", e);
+        }
+    }
+
+    // 条目名：任务ID_任务名称/价格与排名数据.csv
+    private String entryName(CrawlerTask task, ExportDataType dataType, ExportFormat format) {
+        String folder = task.getId() + "_" + task.getProcessName().replaceAll("[\\\\/:*?\"<>|]", "_");
+        return folder + "/" + dataType.getLabel() + "数据." + format.getExtension();
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.export.ExcelCellUtils;
+import com.example.springboot.login.export.ExportDataType;
+import com.example.springboot.login.export.SheetStats;
+import com.example.springboot.login.export.XlsxExportWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// 合并导出：POI工作簿非线程安全，所有工作表都在请求线程中依次写入。
+// 写价格与排名工作表的同时，工作线程已开始读取评论游标并放入有界队列，写完价格数据后直接从队列继续写评论工作表
+@Service
+public class CombinedExportService {
+
+    private static final String SUMMARY_SHEET_NAME = "汇总";
+
+    // 预读评论的最大行数
+    private static final int PREFETCH_ROWS = 10_000;
+
+    // 评论读取结束的标记
+    private static final AsinReviewDTO END = new AsinReviewDTO();
+
+    @Autowired
+    private TaskExportService taskExportService;
+
+    @Autowired
+    private XlsxExportWriter xlsxExportWriter;
+
+    @Value("${export.combined.pool-size:4}")
+    private int poolSize;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("combined-export-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public String buildFileName(CrawlerTask task, String date) {
+        return task.getProcessName() + "_全部数据_" + date + ".xlsx";
+    }
+
+    // expand为true时价格数据按观测点写入，汇总页的行数同样按观测点计
+    public void writeCombined(CrawlerTask task, boolean expand, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = xlsxExportWriter.createWorkbook();
+        try {
+            CellStyle headerStyle = ExcelCellUtils.createHeaderStyle(workbook);
+            CellStyle dateStyle = ExcelCellUtils.createDateStyle(workbook);
+            Sheet summarySheet = workbook.createSheet(SUMMARY_SHEET_NAME);
+            Sheet priceSheet = xlsxExportWriter.createSheet(workbook, ExportDataType.PRICE_RANK, headerStyle);
+            Sheet reviewSheet = xlsxExportWriter.createSheet(workbook, ExportDataType.REVIEWS, headerStyle);
+
+            BlockingQueue<AsinReviewDTO> prefetched = new ArrayBlockingQueue<>(PREFETCH_ROWS);
+            Future<?> reviewFuture = executor.submit(() -> {
+                try {
+                    taskExportService.withReviews(task, rows -> {
+                        rows.forEach(review -> put(prefetched, review));
+                        return null;
+                    });
+                } finally {
+                    // 读取失败时同样放入结束标记，写入方取出后通过 Future 得到异常；已被取消时写入方不再读取
+                    try {
+                        prefetched.put(END);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return null;
+            });
+
+            SheetStats priceStats;
+            SheetStats reviewStats = new SheetStats();
+            try {
+                priceStats = taskExportService.withPriceRanks(task, rows -> {
+                    SheetStats stats = new SheetStats();
+                    Stream<AsinPriceRankDTO> points = expand ? rows.flatMap(AsinPriceRankDTO::expand) : rows;
+                    xlsxExportWriter.appendPriceRanks(priceSheet,
+                            points.peek(rank -> stats.accept(rank.getAsin(), rank.getCrawlTime())), dateStyle);
+                    return stats;
+                });
+                xlsxExportWriter.appendReviews(reviewSheet,
+                        drain(prefetched).peek(review -> reviewStats.accept(review.getAsin(), review.getCrawlTime())),
+                        dateStyle);
+                await(reviewFuture);
+            } finally {
+                // 写入失败时中断仍在读取的工作线程（包括阻塞在队列上的情况）
+                reviewFuture.cancel(true);
+            }
+
+            writeSummary(summarySheet, task, priceStats, reviewStats, headerStyle, dateStyle);
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private void writeSummary(Sheet sheet, CrawlerTask task, SheetStats priceStats, SheetStats reviewStats,
+                              CellStyle headerStyle, CellStyle dateStyle) {
+        sheet.setColumnWidth(0, 16 * 256);
+        for (int i = 1; i <= 4; i++) {
+            sheet.setColumnWidth(i, 20 * 256);
+        }
+
+        int rowIndex = 0;
+        rowIndex = writeLabelRow(sheet, rowIndex, "任务名称", task.getProcessName(), headerStyle, dateStyle);
+        rowIndex = writeLabelRow(sheet, rowIndex, "平台", task.getPlatform(), headerStyle, dateStyle);
+        rowIndex = writeLabelRow(sheet, rowIndex, "ASIN列表", task.getAsinList(), headerStyle, dateStyle);
+        rowIndex = writeLabelRow(sheet, rowIndex, "导出时间", LocalDateTime.now(), headerStyle, dateStyle);
+        rowIndex++;
+
+        String[] headers = {"数据类型", "数据行数", "ASIN数", "最早爬取时间", "最晚爬取时间"};
+        Row headerRow = sheet.createRow(rowIndex++);
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(headerStyle);
+        }
+        writeStatsRow(sheet.createRow(rowIndex++), ExportDataType.PRICE_RANK.getSheetName(), priceStats, dateStyle);
+        writeStatsRow(sheet.createRow(rowIndex), ExportDataType.REVIEWS.getSheetName(), reviewStats, dateStyle);
+    }
+
+    private int writeLabelRow(Sheet sheet, int rowIndex, String label, Object value,
+                              CellStyle headerStyle, CellStyle dateStyle) {
+        Row row = sheet.createRow(rowIndex);
+        Cell labelCell = row.createCell(0);
+        labelCell.setCellValue(label);
+        labelCell.setCellStyle(headerStyle);
+        if (value instanceof LocalDateTime) {
+            ExcelCellUtils.setDateCellValue(row.createCell(1), value, dateStyle);
+        } else {
+            ExcelCellUtils.setCellValue(row.createCell(1), value);
+        }
+        return rowIndex + 1;
+    }
+
+    private void writeStatsRow(Row row, String name, SheetStats stats, CellStyle dateStyle) {
+        ExcelCellUtils.setCellValue(row.createCell(0), name);
+        ExcelCellUtils.setCellValue(row.createCell(1), stats.getRowCount());
+        ExcelCellUtils.setCellValue(row.createCell(2), stats.getAsinCount());
+        ExcelCellUtils.setDateCellValue(row.createCell(3), stats.getFirstCrawlTime(), dateStyle);
+        ExcelCellUtils.setDateCellValue(row.createCell(4), stats.getLastCrawlTime(), dateStyle);
+    }
+
+    private static void put(BlockingQueue<AsinReviewDTO> queue, AsinReviewDTO review) {
+        try {
+            queue.put(review);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("合并导出已取消", e);
+        }
+    }
+
+    // 按顺序取出预读的评论，直到结束标记
+    private static Stream<AsinReviewDTO> drain(BlockingQueue<AsinReviewDTO> queue) {
+        Iterator<AsinReviewDTO> iterator = new Iterator<>() {
+            private AsinReviewDTO next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = queue.take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("合并导出被中断", e);
+                    }
+                }
+                return next != END;
+            }
+
+            @Override
+            public AsinReviewDTO next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                AsinReviewDTO review = next;
+                next = null;
+                return review;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    private void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("合并导出被中断");
+        } catch (ExecutionException e) {
+            throw new IOException("合并导出工作表生成失败: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.dto.IngestRequest;
+import com.example.springboot.login.dto.IngestResultDTO;
+import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.entity.User;
+import com.example.springboot.login.exception.TaskAccessDeniedException;
+import com.example.springboot.login.exception.TaskNotFoundException;
+import com.example.springboot.login.ingest.CrawlDataWriter;
+import com.example.springboot.login.ingest.CrawlRecord;
+import com.example.springboot.login.ingest.WriteBehindBuffer;
+import com.example.springboot.login.repository.CrawlerTaskRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// 爬取结果写入：每批只校验一次任务归属，校验并补全记录后交给 CrawlDataWriter 批量插入
+@Service
+public class CrawlIngestService {
+
+    @Autowired
+    private CrawlerTaskRepository crawlerTaskRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CrawlDataWriter crawlDataWriter;
+
+    @Autowired
+    private WriteBehindBuffer writeBehindBuffer;
+
+    @Value("${ingest.max-records:50000}")
+    private int maxRecords;
+
+    // 一个请求内的价格与评论在同一事务中写入，任一记录不合法时整批不写入
+    @Transactional
+    public IngestResultDTO ingest(Long taskId, IngestRequest request) {
+        List<AsinPriceRankDTO> priceRanks = request.getPriceRanks() == null ? List.of() : request.getPriceRanks();
+        List<AsinReviewDTO> reviews = request.getReviews() == null ? List.of() : request.getReviews();
+        if (priceRanks.size() + reviews.size() > maxRecords) {
+            throw new IllegalArgumentException("单次最多写入 " + maxRecords + " 条记录");
+        }
+        requireOwnedTask(taskId);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < priceRanks.size(); i++) {
+            prepare(priceRanks.get(i), i, now);
+        }
+        for (int i = 0; i < reviews.size(); i++) {
+            prepare(reviews.get(i), i, now);
+        }
+        return new IngestResultDTO(
+                crawlDataWriter.insertPriceRanks(taskId, priceRanks),
+                crawlDataWriter.insertReviews(taskId, reviews));
+    }
+
+    // 缓冲写入：校验后放入写缓冲即返回，不等待数据库事务提交，记录在 flush-interval 内批量写入。
+    // 适合每次只上报少量记录的爬虫；开启写缓冲日志时返回前记录已落盘
+    public IngestResultDTO ingestBuffered(Long taskId, IngestRequest request) {
+        List<AsinPriceRankDTO> priceRanks = request.getPriceRanks() == null ? List.of() : request.getPriceRanks();
+        List<AsinReviewDTO> reviews = request.getReviews() == null ? List.of() : request.getReviews();
+        if (priceRanks.size() + reviews.size() > maxRecords) {
+            throw new IllegalArgumentException("单次最多写入 " + maxRecords + " 条记录");
+        }
+        requireOwnedTask(taskId);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<CrawlRecord> records = new ArrayList<>(priceRanks.size() + reviews.size());
+        for (int i = 0; i < priceRanks.size(); i++) {
+            prepare(priceRanks.get(i), i, now);
+            records.add(CrawlRecord.of(taskId, priceRanks.get(i)));
+        }
+        for (int i = 0; i < reviews.size(); i++) {
+            prepare(reviews.get(i), i, now);
+            records.add(CrawlRecord.of(taskId, reviews.get(i)));
+        }
+        writeBehindBuffer.publish(records);
+        return new IngestResultDTO(priceRanks.size(), reviews.size());
+    }
+
+    // 任务必须存在且属于当前用户
+    @Transactional(readOnly = true)
+    public CrawlerTask requireOwnedTask(Long taskId) {
+        CrawlerTask task = crawlerTaskRepository.findById(taskId)
+                .orElseThrow(() -> new TaskNotFoundException("任务不存在: " + taskId));
+        User currentUser = userService.getCurrentUser();
+        if (task.getUser() == null || !task.getUser().getId().equals(currentUser.getId())) {
+            throw new TaskAccessDeniedException("无权写入该任务的数据: " + taskId);
+        }
+        return task;
+    }
+
+    // 校验ASIN并补全爬取时间（未填写时使用写入时间），index 为记录从0开始的序号（流式写入时为偏移量）
+    void prepare(AsinPriceRankDTO row, long index, LocalDateTime now) {
+        if (row == null || row.getAsin() == null || row.getAsin().isBlank()) {
+            throw new IllegalArgumentException("第 " + (index + 1) + " 条价格数据缺少ASIN");
+        }
+        if (row.getCrawlTime() == null) {
+            row.setCrawlTime(now);
+        }
+        // 每条记录是一次观测，连续观测字段由写入时计算
+        row.setLastSeenTime(null);
+        row.setSeenCount(1);
+    }
+
+    void prepare(AsinReviewDTO row, long index, LocalDateTime now) {
+        if (row == null || row.getAsin() == null || row.getAsin().isBlank()) {
+            throw new IllegalArgumentException("第 " + (index + 1) + " 条评论数据缺少ASIN");
+        }
+        if (row.getCrawlTime() == null) {
+            row.setCrawlTime(now);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.springboot.login.service;
 
-import com.example.springboot.login.entity.AsinPriceRank;
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewListDTO;
+import com.example.springboot.login.dto.CursorPageData;
 import com.example.springboot.login.entity.AsinReview;
 import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.repository.PriceRankPageQuery;
+import com.example.springboot.login.repository.ReviewPageQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -15,12 +19,17 @@ public interface CrawlerTaskService {
     CrawlerTask saveAsDraft(CrawlerTask task);
     Page<CrawlerTask> getUserTasksWithFilters(String status, String timeCycle, String platform, String keyword, Pageable pageable);
     CrawlerTask getTaskById(Long id);
+    List<CrawlerTask> getTasksByIds(List<Long> ids);
+    List<CrawlerTask> getTasksByAsin(String asin);
     CrawlerTask updateTask(Long id, CrawlerTask taskDetails);
     void deleteTask(Long id);
 
     // ASIN价格数据操作
-    List<AsinPriceRank> getAsinPriceRanksByTaskId(Long taskId);
+    List<AsinPriceRankDTO> getAsinPriceRanksByTaskId(Long taskId);
+    CursorPageData<AsinPriceRankDTO> getAsinPriceRankPage(PriceRankPageQuery query, String cursor);
 
     // ASIN评论数据操作
     List<AsinReview> getAsinReviewsByTaskId(Long taskId);
+    CursorPageData<AsinReviewListDTO> getAsinReviewPage(ReviewPageQuery query, String cursor);
+    AsinReview getAsinReview(Long taskId, Long reviewId);
 }
\ No newline at end of file
@@ -1,14 +1,22 @@
 package com.example.springboot.login.service;
 
-import com.example.springboot.login.entity.AsinPriceRank;
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewListDTO;
+import com.example.springboot.login.dto.CursorPageData;
 import com.example.springboot.login.entity.AsinReview;
 import com.example.springboot.login.entity.CrawlerTask;
 import com.example.springboot.login.entity.User;
+import com.example.springboot.login.exception.ReviewNotFoundException;
 import com.example.springboot.login.repository.AsinPriceRankRepository;
 import com.example.springboot.login.repository.AsinReviewRepository;
 import com.example.springboot.login.repository.CrawlerTaskRepository;
+import com.example.springboot.login.repository.IngestCheckpointRepository;
+import com.example.springboot.login.repository.PriceRankPageQuery;
+import com.example.springboot.login.repository.ReviewPageQuery;
+import com.example.springboot.login.repository.TaskAnalysisStateRepository;
 import com.example.springboot.login.service.CrawlerTaskService;
 import com.example.springboot.login.specification.CrawlerTaskSpecifications;
+import com.example.springboot.login.util.CursorUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -16,10 +24,18 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -34,6 +50,21 @@ public class CrawlerTaskServiceImpl implements CrawlerTaskService {
     @Autowired
     private AsinReviewRepository reviewRepository;
 
+    @Autowired
+    private TaskAnalysisStateRepository taskAnalysisStateRepository;
+
+    @Autowired
+    private PriceRollupService priceRollupService;
+
+    @Autowired
+    private TaskAsinService taskAsinService;
+
+    @Autowired
+    private ReviewSearchService reviewSearchService;
+
+    @Autowired
+    private IngestCheckpointRepository ingestCheckpointRepository;
+
     @Autowired
     private UserService userService;
 
@@ -59,16 +90,21 @@ public class CrawlerTaskServiceImpl implements CrawlerTaskService {
         User currentUser = userService.getCurrentUser();
         task.setUser(currentUser);
 
-        return crawlerTaskRepository.save(task);
+        CrawlerTask saved = crawlerTaskRepository.save(task);
+        taskAsinService.sync(saved);
+        return saved;
     }
 
     @Override
     public CrawlerTask saveAsDraft(CrawlerTask task) {
         task.setStatus("DRAFT");
-        return crawlerTaskRepository.save(task);
+        CrawlerTask saved = crawlerTaskRepository.save(task);
+        taskAsinService.sync(saved);
+        return saved;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<CrawlerTask> getUserTasksWithFilters(String status, String timeCycle, String platform, String keyword, Pageable pageable) {
         // 这里正确写法是用 Specification 组合条件
         Specification<CrawlerTask> spec = Specification
@@ -76,7 +112,13 @@ public class CrawlerTaskServiceImpl implements CrawlerTaskService {
                 .and(CrawlerTaskSpecifications.byTimeCycle(timeCycle))
                 .and(CrawlerTaskSpecifications.byPlatform(platform))
                 .and(CrawlerTaskSpecifications.byKeyword(keyword));
-        return crawlerTaskRepository.findAll(spec, pageable);
+        Page<CrawlerTask> page = crawlerTaskRepository.findAll(spec, pageable);
+        // 同一持久化上下文中批量加载所需信息，转换DTO时不再逐个任务触发懒加载
+        if (page.hasContent()) {
+            crawlerTaskRepository.fetchRequiredInfoByIdIn(
+                    page.getContent().stream().map(CrawlerTask::getId).toList());
+        }
+        return page;
     }
 
     @Override
@@ -85,6 +127,36 @@ public class CrawlerTaskServiceImpl implements CrawlerTaskService {
                 .orElseThrow(() -> new RuntimeException("Task not found with id: " + id));
     }
 
+    // 通过 task_asin 的 (asin, task_id) 索引反查跟踪该ASIN的任务
+    @Override
+    @Transactional(readOnly = true)
+    public List<CrawlerTask> getTasksByAsin(String asin) {
+        List<Long> taskIds = taskAsinService.findTaskIdsByAsin(asin);
+        if (taskIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, CrawlerTask> taskMap = crawlerTaskRepository.fetchRequiredInfoByIdIn(taskIds).stream()
+                .collect(Collectors.toMap(CrawlerTask::getId, Function.identity()));
+        return taskIds.stream().map(taskMap::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public List<CrawlerTask> getTasksByIds(List<Long> ids) {
+        // 一次查询全部任务，再按传入顺序返回
+        Map<Long, CrawlerTask> taskMap = crawlerTaskRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(CrawlerTask::getId, Function.identity()));
+
+        List<CrawlerTask> tasks = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            CrawlerTask task = taskMap.get(id);
+            if (task == null) {
+                throw new IllegalArgumentException("任务不存在: " + id);
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
     @Override
     public CrawlerTask updateTask(Long id, CrawlerTask taskDetails) {
         CrawlerTask task = crawlerTaskRepository.findById(id)
@@ -97,7 +169,9 @@ public class CrawlerTaskServiceImpl implements CrawlerTaskService {
         task.setTimeCycle(taskDetails.getTimeCycle());
         task.setStatus(taskDetails.getStatus());
 
-        return crawlerTaskRepository.save(task);
+        CrawlerTask saved = crawlerTaskRepository.save(task);
+        taskAsinService.sync(saved);
+        return saved;
     }
 
     @Override
@@ -106,31 +180,124 @@ public class CrawlerTaskServiceImpl implements CrawlerTaskService {
                 .orElseThrow(() -> new RuntimeException("Task not found with id: " + id));
 
         crawlerTaskRepository.delete(task);
+        taskAnalysisStateRepository.deleteById(id);
+        priceRollupService.deleteByTaskId(id);
+        taskAsinService.deleteByTaskId(id);
+        ingestCheckpointRepository.deleteByTaskId(id);
+        try {
+            reviewSearchService.deleteByTaskId(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
+    // 价格数据直接查询为DTO，只读事务
     @Override
-    public List<AsinPriceRank> getAsinPriceRanksByTaskId(Long taskId) {
-        CrawlerTask task = crawlerTaskRepository.findById(taskId)
-                .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
-
-//        // 解析ASIN列表
-//        String[] asins = task.getAsinList().split(",");
-//
-//        // 查询最新的价格数据（每个ASIN取最近一条记录）
-//        return priceRankRepository.findLatestByAsins(Arrays.asList(asins));
+    @Transactional(readOnly = true)
+    public List<AsinPriceRankDTO> getAsinPriceRanksByTaskId(Long taskId) {
+        if (!crawlerTaskRepository.existsById(taskId)) {
+            throw new RuntimeException("Task not found with id: " + taskId);
+        }
+
+        // 每个ASIN的最新价格由最新价格表提供（PriceRollupService.getLatest）
         // 直接查询该任务下的所有价格数据，无需解析ASIN列表
-        return priceRankRepository.findByTaskId(taskId);
+        return priceRankRepository.findDtoByTaskId(taskId);
+    }
+
+    // 游标分页读取价格数据：多读一行判断是否有下一页，不执行 count(*)
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageData<AsinPriceRankDTO> getAsinPriceRankPage(PriceRankPageQuery query, String cursor) {
+        if (!crawlerTaskRepository.existsById(query.getTaskId())) {
+            throw new RuntimeException("Task not found with id: " + query.getTaskId());
+        }
+        if (cursor != null && !cursor.isEmpty()) {
+            decodeCursor(cursor, query);
+        }
+
+        List<AsinPriceRankDTO> records = priceRankRepository.findPage(query);
+        boolean hasMore = records.size() > query.getLimit();
+        if (hasMore) {
+            records = new ArrayList<>(records.subList(0, query.getLimit()));
+        }
+        String nextCursor = hasMore ? encodeCursor(query, records.get(records.size() - 1)) : null;
+        return new CursorPageData<>(records, query.getLimit(), hasMore, nextCursor);
+    }
+
+    // 游标内容：排序字段、方向、是否已进入空值行、最后一行ID、最后一行排序字段值
+    private String encodeCursor(PriceRankPageQuery query, AsinPriceRankDTO last) {
+        Object key = switch (query.getSort()) {
+            case CRAWL_TIME -> last.getCrawlTime();
+            case PRICE -> last.getNonMemberFinalPrice();
+            case RANK -> last.getSubCategoryRank();
+        };
+        return CursorUtils.encode(query.getSort().getParam(), query.isDescending() ? "desc" : "asc",
+                key == null ? "N" : "V", last.getId(), key);
+    }
+
+    private void decodeCursor(String cursor, PriceRankPageQuery query) {
+        String[] parts = CursorUtils.decode(cursor, 5);
+        if (!parts[0].equals(query.getSort().getParam()) || !parts[1].equals(query.isDescending() ? "desc" : "asc")) {
+            throw new IllegalArgumentException("分页游标与排序条件不一致，请从第一页重新查询");
+        }
+        try {
+            query.setAfterNull("N".equals(parts[2]));
+            query.setAfterId(Long.valueOf(parts[3]));
+            query.setAfterKey(query.isAfterNull() ? null : query.getSort().parseKey(parts[4]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
     }
 
     @Override
     public List<AsinReview> getAsinReviewsByTaskId(Long taskId) {
-        CrawlerTask task = crawlerTaskRepository.findById(taskId)
-                .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
+        if (!crawlerTaskRepository.existsById(taskId)) {
+            throw new RuntimeException("Task not found with id: " + taskId);
+        }
 
-        // 解析ASIN列表
-        String[] asins = task.getAsinList().split(",");
+        // 只查询该任务写入的评论（同一ASIN的评论可能属于其他任务）
+        return reviewRepository.findByTaskId(taskId);
+    }
 
-        // 查询所有评论数据
-        return reviewRepository.findByAsinIn(Arrays.asList(asins));
+    // 游标分页读取任务评论列表（不含评论正文和图片），按爬取时间排序
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageData<AsinReviewListDTO> getAsinReviewPage(ReviewPageQuery query, String cursor) {
+        if (!crawlerTaskRepository.existsById(query.getTaskId())) {
+            throw new RuntimeException("Task not found with id: " + query.getTaskId());
+        }
+        if (cursor != null && !cursor.isEmpty()) {
+            // 游标内容：排序方向、是否已进入空值行、最后一行ID、最后一行爬取时间
+            String[] parts = CursorUtils.decode(cursor, 4);
+            if (!parts[0].equals(query.isDescending() ? "desc" : "asc")) {
+                throw new IllegalArgumentException("分页游标与排序条件不一致，请从第一页重新查询");
+            }
+            try {
+                query.setAfterNull("N".equals(parts[1]));
+                query.setAfterId(Long.valueOf(parts[2]));
+                query.setAfterCrawlTime(query.isAfterNull() ? null : LocalDateTime.parse(parts[3]));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+        }
+
+        List<AsinReviewListDTO> records = reviewRepository.findPage(query);
+        boolean hasMore = records.size() > query.getLimit();
+        String nextCursor = null;
+        if (hasMore) {
+            records = new ArrayList<>(records.subList(0, query.getLimit()));
+            AsinReviewListDTO last = records.get(records.size() - 1);
+            nextCursor = CursorUtils.encode(query.isDescending() ? "desc" : "asc",
+                    last.getCrawlTime() == null ? "N" : "V", last.getId(), last.getCrawlTime());
+        }
+        return new CursorPageData<>(records, query.getLimit(), hasMore, nextCursor);
+    }
+
+    // 评论详情（含评论正文和图片），只能查询该任务下的评论
+    @Override
+    @Transactional(readOnly = true)
+    public AsinReview getAsinReview(Long taskId, Long reviewId) {
+        return reviewRepository.findByIdAndTaskId(reviewId, taskId)
+                .orElseThrow(() -> new ReviewNotFoundException("评论不存在: " + reviewId));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,196 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.event.CrawlDataChangedEvent;
+import com.example.springboot.login.export.ExportDataType;
+import com.example.springboot.login.export.ExportFormat;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 导出结果缓存：以 (任务, 数据类型, 格式, 数据水位) 为键将导出文件保存在本地磁盘，
+// 水位未变化时直接返回缓存文件；总大小超出上限时按最近最少使用淘汰
+@Service
+public class ExportCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportCacheService.class);
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private TaskExportService taskExportService;
+
+    @Value("${export.artifact-dir}")
+    private String artifactDir;
+
+    @Value("${export.cache.max-size:1GB}")
+    private DataSize maxSize;
+
+    private Path cacheDir;
+
+    // accessOrder=true：按访问顺序排列，头部即最久未使用的条目
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalSize;
+
+    private static class CacheEntry {
+        private final Path file;
+        private final long size;
+        private final Long taskId;
+        private final ExportDataType dataType;
+
+        CacheEntry(Path file, long size, Long taskId, ExportDataType dataType) {
+            this.file = file;
+            this.size = size;
+            this.taskId = taskId;
+            this.dataType = dataType;
+        }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        cacheDir = Paths.get(artifactDir, "cache");
+        // 索引只保存在内存中，重启后旧的缓存文件无法再命中，直接清空
+        FileSystemUtils.deleteRecursively(cacheDir);
+        Files.createDirectories(cacheDir);
+    }
+
+    // 缓存键包含当前数据水位，新数据写入后水位变化，旧条目自然不再命中
+    public String cacheKey(CrawlerTask task, ExportDataType dataType, ExportFormat format, boolean gzip,
+                           boolean expand) {
+        return task.getId() + "_" + dataType.getParam() + "_" + format.getParam() + (gzip ? "_gz" : "") +
+                (expand ? "_x" : "") + "_" + taskExportService.watermark(task, dataType).toKeyPart();
+    }
+
+    // 命中时返回缓存文件，未命中返回null
+    public synchronized Path lookup(String key) {
+        CacheEntry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!Files.exists(entry.file)) {
+            entries.remove(key);
+            totalSize -= entry.size;
+            return null;
+        }
+        return entry.file;
+    }
+
+    public String etag(String key, Path file) throws IOException {
+        return "\"" + key + "-" + Long.toHexString(Files.getLastModifiedTime(file).toMillis()) + "\"";
+    }
+
+    // 导出并同时写入客户端输出流和缓存临时文件，全部成功后才放入缓存
+    public long exportAndCache(String key, CrawlerTask task, ExportDataType dataType, ExportFormat format,
+                               boolean gzip, boolean expand, OutputStream out) throws IOException {
+        Path tempFile = Files.createTempFile(cacheDir, "cache-", ".tmp");
+        try {
+            long rowCount;
+            try (OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(tempFile), OUTPUT_BUFFER_SIZE)) {
+                rowCount = taskExportService.export(task, dataType, format, gzip, expand,
+                        new TeeOutputStream(out, fileOut));
+            }
+            Path target = cacheDir.resolve(key);
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            put(key, new CacheEntry(target, Files.size(target), task.getId(), dataType));
+            return rowCount;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    // 事务提交后再失效，未提交的数据不会影响已缓存的结果
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCrawlDataChanged(CrawlDataChangedEvent event) {
+        invalidate(event.getTaskId(), event.getDataType());
+    }
+
+    public synchronized void invalidate(Long taskId, ExportDataType dataType) {
+        Iterator<CacheEntry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            CacheEntry entry = iterator.next();
+            if (entry.taskId.equals(taskId) && entry.dataType == dataType) {
+                iterator.remove();
+                totalSize -= entry.size;
+                deleteQuietly(entry.file);
+            }
+        }
+    }
+
+    private synchronized void put(String key, CacheEntry entry) {
+        CacheEntry previous = entries.put(key, entry);
+        if (previous != null) {
+            totalSize -= previous.size;
+        }
+        totalSize += entry.size;
+
+        // 淘汰最久未使用的条目，至少保留刚写入的一个
+        Iterator<Map.Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+        while (totalSize > maxSize.toBytes() && entries.size() > 1) {
+            CacheEntry eldest = iterator.next().getValue();
+            iterator.remove();
+            totalSize -= eldest.size;
+            deleteQuietly(eldest.file);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // 文件正在被下载时（Windows）可能删除失败，重启时统一清理
+            log.debug("删除导出缓存文件失败: {}", file, e);
+        }
+    }
+
+    // 同时写入两个输出流
+    private static class TeeOutputStream extends OutputStream {
+        private final OutputStream first;
+        private final OutputStream second;
+
+        TeeOutputStream(OutputStream first, OutputStream second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            first.write(b);
+            second.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            first.write(b, off, len);
+            second.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            first.flush();
+            second.flush();
+        }
+
+        // 只关闭缓存文件流，响应流由容器负责关闭
+        @Override
+        public void close() throws IOException {
+            second.close();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.entity.ExportJob;
+import com.example.springboot.login.entity.User;
+import com.example.springboot.login.exception.JobNotFoundException;
+import com.example.springboot.login.exception.JobStateException;
+import com.example.springboot.login.exception.QueueFullException;
+import com.example.springboot.login.export.ExportDataType;
+import com.example.springboot.login.export.ExportFormat;
+import com.example.springboot.login.repository.ExportJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// 异步导出任务：在有界线程池中执行导出，结果写入本地产物目录，供客户端随时下载（支持断点续传）
+@Service
+public class ExportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportJobService.class);
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ExportJobRepository exportJobRepository;
+
+    @Autowired
+    private CrawlerTaskService crawlerTaskService;
+
+    @Autowired
+    private TaskExportService taskExportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Value("${export.artifact-dir}")
+    private String artifactDir;
+
+    @Value("${export.jobs.pool-size:2}")
+    private int poolSize;
+
+    @Value("${export.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${export.jobs.retention:24h}")
+    private Duration retention;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    private String owner; // 本实例标识（主机名:端口），重启后保持不变
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        owner = resolveHostName() + ":" + serverPort;
+        if (owner.length() > 64) {
+            owner = owner.substring(owner.length() - 64);
+        }
+        Files.createDirectories(Paths.get(artifactDir));
+        // 固定线程数 + 有界队列，队列满时拒绝提交而不是无限堆积
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("export-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // 本实例重启后，之前在本实例排队或执行中的任务已无法继续，标记为失败；其他实例上的任务不受影响。
+    // 升级前提交的任务没有记录实例，创建时间超过保留时长的也一并标记
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        int count = exportJobRepository.failUnfinishedJobs(owner, "服务重启，导出任务已中断，请重新提交",
+                now, now.minus(retention));
+        if (count > 0) {
+            log.warn("已将{}个中断的导出任务标记为失败", count);
+        }
+    }
+
+    // 提交导出任务
+    public ExportJob submit(Long taskId, ExportDataType dataType, ExportFormat format, boolean gzip,
+                            boolean expand) {
+        CrawlerTask task = crawlerTaskService.getTaskById(taskId);
+        User currentUser = userService.getCurrentUser();
+
+        ExportJob job = new ExportJob();
+        job.setTaskId(taskId);
+        job.setUserId(currentUser.getId());
+        job.setDataType(dataType.getParam());
+        job.setFormat(format.getParam());
+        job.setGzip(gzip);
+        job.setExpand(expand);
+        job.setStatus(STATUS_QUEUED);
+        job.setOwner(owner);
+        job.setFileName(taskExportService.buildFileName(task, dataType, format, gzip));
+        job.setCreateTime(LocalDateTime.now());
+        ExportJob savedJob = exportJobRepository.save(job);
+
+        try {
+            executor.execute(() -> runJob(savedJob.getId(), task, dataType, format, gzip, expand));
+        } catch (RejectedExecutionException e) {
+            markFailed(savedJob.getId(), "导出队列已满");
+            throw new QueueFullException("导出任务过多，请稍后重试");
+        }
+        return savedJob;
+    }
+
+    // 获取当前用户的导出任务
+    public ExportJob getJob(Long jobId) {
+        ExportJob job = exportJobRepository.findById(jobId)
+                .orElseThrow(() -> new JobNotFoundException("导出任务不存在: " + jobId));
+        if (!job.getUserId().equals(userService.getCurrentUser().getId())) {
+            throw new JobNotFoundException("导出任务不存在: " + jobId);
+        }
+        return job;
+    }
+
+    // 获取已完成导出任务的产物文件
+    public Path getArtifact(ExportJob job) {
+        if (!STATUS_COMPLETED.equals(job.getStatus())) {
+            throw new JobStateException("导出任务尚未完成，当前状态: " + job.getStatus());
+        }
+        Path file = Paths.get(job.getFilePath());
+        if (!Files.exists(file)) {
+            throw new JobNotFoundException("导出文件已过期或不存在，请重新导出");
+        }
+        return file;
+    }
+
+    public String contentType(ExportJob job) {
+        return taskExportService.contentType(ExportFormat.fromParam(job.getFormat()), job.isGzip());
+    }
+
+    // 产物为不可变文件，以任务ID与文件大小作为强ETag
+    public String etag(ExportJob job) {
+        return "\"export-" + job.getId() + "-" + job.getFileSize() + "\"";
+    }
+
+    // 定期清理过期的导出产物与任务记录
+    @Scheduled(fixedDelayString = "${export.jobs.cleanup-interval:PT1H}")
+    public void cleanupExpiredJobs() {
+        LocalDateTime expireBefore = LocalDateTime.now().minus(retention);
+        List<ExportJob> expiredJobs = exportJobRepository.findByStatusInAndFinishTimeBefore(
+                List.of(STATUS_COMPLETED, STATUS_FAILED), expireBefore);
+        for (ExportJob job : expiredJobs) {
+            try {
+                if (job.getFilePath() != null) {
+                    Files.deleteIfExists(Paths.get(job.getFilePath()));
+                }
+                exportJobRepository.delete(job);
+            } catch (IOException e) {
+                log.warn("删除过期导出文件失败: jobId={}", job.getId(), e);
+            }
+        }
+    }
+
+    private void runJob(Long jobId, CrawlerTask task, ExportDataType dataType, ExportFormat format, boolean gzip,
+                        boolean expand) {
+        ExportJob job = exportJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        job.setStatus(STATUS_RUNNING);
+        job.setStartTime(LocalDateTime.now());
+        exportJobRepository.save(job);
+
+        // 先写临时文件，完成后原子重命名，下载方不会读到写了一半的文件
+        Path target = Paths.get(artifactDir, "export-" + jobId + "." + format.getExtension() + (gzip ? ".gz" : ""));
+        Path tempFile = Paths.get(artifactDir, "export-" + jobId + ".tmp");
+        try {
+            long rowCount;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile), OUTPUT_BUFFER_SIZE)) {
+                rowCount = taskExportService.export(task, dataType, format, gzip, expand, out);
+            }
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            job.setStatus(STATUS_COMPLETED);
+            job.setFilePath(target.toString());
+            job.setFileSize(Files.size(target));
+            job.setRowCount(rowCount);
+            job.setFinishTime(LocalDateTime.now());
+            exportJobRepository.save(job);
+            log.info("导出任务完成: jobId={}, taskId={}, rows={}, bytes={}",
+                    jobId, task.getId(), rowCount, job.getFileSize());
+        } catch (Exception e) {
+            log.error("导出任务失败: jobId={}, taskId={}", jobId, task.getId(), e);
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // 临时文件由下次清理处理
+            }
+            markFailed(jobId, e.getMessage());
+        }
+    }
+
+    private void markFailed(Long jobId, String message) {
+        exportJobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(STATUS_FAILED);
+            job.setErrorMessage(message != null && message.length() > 1000 ? message.substring(0, 1000) : message);
+            job.setFinishTime(LocalDateTime.now());
+            exportJobRepository.save(job);
+        });
+    }
+
+    private String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.dto.AsinPriceDailyDTO;
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.entity.PriceRollupState;
+import com.example.springboot.login.event.CrawlDataChangedEvent;
+import com.example.springboot.login.export.ExportDataType;
+import com.example.springboot.login.repository.AsinLatestPriceRepository;
+import com.example.springboot.login.repository.AsinPriceDailyRepository;
+import com.example.springboot.login.repository.AsinPriceRankRepository;
+import com.example.springboot.login.repository.CrawlerTaskRepository;
+import com.example.springboot.login.repository.PriceRankExtensionRepository;
+import com.example.springboot.login.repository.PriceRollupStateRepository;
+import com.example.springboot.login.util.IdWindow;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// 价格日汇总（asin_price_daily）与最新价格（asin_latest_price）的维护与查询，两者共用同一水位。
+// 价格数据写入并提交后记录待汇总的任务，由定时任务在数秒内将新数据（ID大于水位的记录）按天累加到日汇总、
+// 并合并到最新价格；水位之前一个窗口（late-commit-window 个ID）内晚提交的记录按已汇总的ID集合识别后补充累加。
+// 仅记录变化时已汇总的行被延长，只按增加的观测次数（price_rank_extension）累加，不重建；
+// 已汇总的数据被修改或删除时重建该任务的两张表。查询前会先补齐尚未汇总的数据，保证能读到刚写入的记录
+@Service
+public class PriceRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceRollupService.class);
+
+    // 每条汇总语句包含的价格记录ID数
+    private static final int UPSERT_BATCH_SIZE = 1000;
+
+    @Autowired
+    private PriceRollupStateRepository stateRepository;
+
+    @Autowired
+    private AsinPriceDailyRepository dailyRepository;
+
+    @Autowired
+    private AsinLatestPriceRepository latestPriceRepository;
+
+    @Autowired
+    private AsinPriceRankRepository priceRankRepository;
+
+    @Autowired
+    private PriceRankExtensionRepository extensionRepository;
+
+    @Autowired
+    private CrawlerTaskRepository crawlerTaskRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${rollup.late-commit-window:10000}")
+    private long lateCommitWindow;
+
+    private TransactionTemplate transactionTemplate;
+
+    // 有新价格数据等待汇总的任务
+    private final Set<Long> pendingTaskIds = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCrawlDataChanged(CrawlDataChangedEvent event) {
+        if (event.getDataType() != ExportDataType.PRICE_RANK) {
+            return;
+        }
+        if (!event.isAppendOnly()) {
+            stateRepository.markStale(event.getTaskId());
+        }
+        pendingTaskIds.add(event.getTaskId());
+    }
+
+    // 批量写入会为每行发布一次事件，这里合并后按任务处理
+    @Scheduled(fixedDelayString = "${rollup.flush-interval:PT5S}")
+    public void flushPending() {
+        if (pendingTaskIds.isEmpty()) {
+            return;
+        }
+        List<Long> taskIds = new ArrayList<>(pendingTaskIds);
+        pendingTaskIds.removeAll(taskIds);
+        for (Long taskId : taskIds) {
+            try {
+                rollup(taskId);
+            } catch (Exception e) {
+                log.error("价格日汇总维护失败: taskId={}", taskId, e);
+            }
+        }
+    }
+
+    // 定期核对所有任务：补齐未经本服务写入的数据（如爬虫直接写库）及窗口内晚提交的数据
+    @Scheduled(fixedDelayString = "${rollup.reconcile-interval:PT10M}", initialDelayString = "PT1M")
+    public void reconcile() {
+        for (Long taskId : crawlerTaskRepository.findAllIds()) {
+            try {
+                rollup(taskId);
+            } catch (Exception e) {
+                log.error("价格日汇总核对失败: taskId={}", taskId, e);
+            }
+        }
+    }
+
+    // 将任务水位之后的新价格数据及窗口内晚提交的数据累加到日汇总并合并到最新价格，再并入已汇总行的延长记录；
+    // 状态失效时先清空重建，返回本次汇总的记录数
+    public long rollup(Long taskId) {
+        Long rolled = transactionTemplate.execute(status -> {
+            stateRepository.insertIfAbsent(taskId);
+            PriceRollupState state = stateRepository.findForUpdate(taskId).orElseThrow();
+            // 没有已汇总ID窗口的旧状态无法识别窗口内哪些记录已汇总，同样重建
+            if (state.isStale() || state.getRecentPriceRankIds() == null) {
+                dailyRepository.deleteByTaskId(taskId);
+                latestPriceRepository.deleteByTaskId(taskId);
+                state.setLastPriceRankId(0L);
+                state.setRecentPriceRankIds("");
+                state.setRowCount(0L);
+                state.setStale(false);
+            }
+
+            // 按读取到的ID逐批汇总，已汇总的记录集合与实际累加的记录严格一致
+            long lastId = state.getLastPriceRankId();
+            IdWindow window = IdWindow.parse(state.getRecentPriceRankIds());
+            // 本次之前已汇总的记录，只有这些记录的延长需要按差量累加
+            IdWindow rolledWindow = IdWindow.parse(state.getRecentPriceRankIds());
+            List<Long> batch = new ArrayList<>(UPSERT_BATCH_SIZE);
+            long count = 0;
+            long maxId = lastId;
+            try (Stream<Long> ids = priceRankRepository.streamIdsByTaskIdAndIdGreaterThan(
+                    taskId, Math.max(0L, lastId - lateCommitWindow))) {
+                Iterator<Long> iterator = ids.iterator();
+                while (iterator.hasNext()) {
+                    long id = iterator.next();
+                    if (id <= lastId && window.contains(id)) {
+                        continue;
+                    }
+                    batch.add(id);
+                    window.add(id);
+                    window.retainAbove(id - lateCommitWindow);
+                    maxId = Math.max(maxId, id);
+                    if (batch.size() == UPSERT_BATCH_SIZE) {
+                        count += upsert(taskId, batch);
+                    }
+                }
+            }
+            count += upsert(taskId, batch);
+            applyExtensions(taskId, lastId, rolledWindow);
+            if (count == 0) {
+                return 0L;
+            }
+            window.retainAbove(maxId - lateCommitWindow);
+            state.setLastPriceRankId(maxId);
+            state.setRecentPriceRankIds(window.toString());
+            state.setRowCount(state.getRowCount() + count);
+            state.setUpdateTime(LocalDateTime.now());
+            return count;
+        });
+        return rolled == null ? 0L : rolled;
+    }
+
+    // 汇总一批记录后清空该批，返回记录数
+    private long upsert(Long taskId, List<Long> batch) {
+        if (batch.isEmpty()) {
+            return 0L;
+        }
+        dailyRepository.upsertFromPriceRanks(taskId, batch);
+        latestPriceRepository.upsertFromPriceRanks(taskId, batch);
+        long count = batch.size();
+        batch.clear();
+        return count;
+    }
+
+    // 延长记录中本次之前已汇总的行按增加的观测次数累加到日汇总，并按新的最后观测时间重新合并最新价格；
+    // 本次汇总的行在锁定后读取，已包含延长的观测，尚未汇总的行以后汇总时同样如此，这两种只清零不累加
+    private void applyExtensions(Long taskId, long rolledLastId, IdWindow rolledWindow) {
+        List<Long> ids = extensionRepository.lockPendingRollup(taskId);
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> rolled = new ArrayList<>();
+        for (Long id : ids) {
+            if (id <= rolledLastId && (id <= rolledLastId - lateCommitWindow || rolledWindow.contains(id))) {
+                rolled.add(id);
+            }
+        }
+        for (int from = 0; from < rolled.size(); from += UPSERT_BATCH_SIZE) {
+            List<Long> chunk = rolled.subList(from, Math.min(rolled.size(), from + UPSERT_BATCH_SIZE));
+            dailyRepository.addExtensions(taskId, chunk);
+            latestPriceRepository.upsertFromPriceRanks(taskId, chunk);
+        }
+        for (int from = 0; from < ids.size(); from += UPSERT_BATCH_SIZE) {
+            extensionRepository.clearRollupCount(ids.subList(from, Math.min(ids.size(), from + UPSERT_BATCH_SIZE)));
+        }
+        extensionRepository.deleteConsumed(taskId);
+    }
+
+    // 查询日汇总，asin为空时返回任务下所有ASIN
+    public List<AsinPriceDailyDTO> getDaily(Long taskId, String asin, LocalDate from, LocalDate to) {
+        catchUp(taskId);
+        LocalDate start = from == null ? LocalDate.of(1970, 1, 1) : from;
+        LocalDate end = to == null ? LocalDate.of(9999, 12, 31) : to;
+        return (asin == null || asin.isEmpty()
+                ? dailyRepository.findByTaskIdAndStatDateBetweenOrderByAsinAscStatDateAsc(taskId, start, end)
+                : dailyRepository.findByTaskIdAndAsinAndStatDateBetweenOrderByStatDateAsc(taskId, asin, start, end))
+                .stream()
+                .map(AsinPriceDailyDTO::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    // 任务中每个ASIN的当前价格（最新一条价格数据），按ASIN排序
+    public List<AsinPriceRankDTO> getLatest(Long taskId) {
+        catchUp(taskId);
+        return latestPriceRepository.findDtoByTaskId(taskId);
+    }
+
+    public void deleteByTaskId(Long taskId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            dailyRepository.deleteByTaskId(taskId);
+            latestPriceRepository.deleteByTaskId(taskId);
+            extensionRepository.deleteByTaskId(taskId);
+            stateRepository.deleteById(taskId);
+        });
+        pendingTaskIds.remove(taskId);
+    }
+
+    // 已是最新（无需加锁）时直接返回，否则先汇总新数据和延长记录
+    private void catchUp(Long taskId) {
+        PriceRollupState state = stateRepository.findById(taskId).orElse(null);
+        if (state == null || state.isStale()
+                || priceRankRepository.findMaxIdByTaskId(taskId) > state.getLastPriceRankId()
+                || extensionRepository.existsByTaskIdAndRollupCountGreaterThan(taskId, 0)) {
+            rollup(taskId);
+        }
+    }
+}
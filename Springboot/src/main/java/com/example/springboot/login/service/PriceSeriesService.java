@@ -0,0 +1,111 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.PriceSeriesDTO;
+import com.example.springboot.login.repository.AsinPriceRankRepository;
+import com.example.springboot.login.util.LttbUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// 价格/排名时间序列：以游标方式读取原始价格数据到基本类型数组，再用LTTB降采样到指定点数，
+// 返回的数据量只与请求的点数有关，与原始记录数无关
+@Service
+public class PriceSeriesService {
+
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    @Autowired
+    private AsinPriceRankRepository priceRankRepository;
+
+    // from/to 为爬取时间范围（含from不含to），为空时不限制
+    @Transactional(readOnly = true)
+    public List<PriceSeriesDTO> getSeries(Long taskId, List<String> asins, LocalDateTime from, LocalDateTime to, int points) {
+        LocalDateTime start = from == null ? MIN_TIME : from;
+        LocalDateTime end = to == null ? MAX_TIME : to;
+        List<PriceSeriesDTO> result = new ArrayList<>(asins.size());
+        for (String asin : asins) {
+            result.add(readSeries(taskId, asin, start, end, points));
+        }
+        return result;
+    }
+
+    private PriceSeriesDTO readSeries(Long taskId, String asin, LocalDateTime from, LocalDateTime to, int points) {
+        SeriesBuffer nonMemberPrice = new SeriesBuffer();
+        SeriesBuffer memberPrice = new SeriesBuffer();
+        SeriesBuffer rank = new SeriesBuffer();
+        long rawCount = 0;
+        // 连续相同观测的行按 AsinPriceRankDTO.expand 的规则展开为 seenCount 个观测点（与导出展开一致），
+        // 只保留范围内的点；这样的行不跨天，向前多读一天即可取到跨入范围的行
+        LocalDateTime queryFrom = from.isAfter(MIN_TIME) ? from.minusDays(1) : from;
+        try (Stream<Object[]> rows = priceRankRepository.streamSeriesPoints(taskId, asin, queryFrom, to)) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                LocalDateTime crawlTime = (LocalDateTime) row[0];
+                LocalDateTime lastSeenTime = (LocalDateTime) row[4];
+                int seenCount = row[5] == null ? 1 : ((Number) row[5]).intValue();
+                if (seenCount > 1 && lastSeenTime != null && lastSeenTime.isBefore(from)) {
+                    continue;
+                }
+                for (int i = 0; i < seenCount; i++) {
+                    LocalDateTime time = AsinPriceRankDTO.observationTime(crawlTime, lastSeenTime, seenCount, i);
+                    if (!time.isBefore(from) && time.isBefore(to)) {
+                        addPoint(time, row, nonMemberPrice, memberPrice, rank);
+                        rawCount++;
+                    }
+                }
+            }
+        }
+        return new PriceSeriesDTO(asin, rawCount, nonMemberPrice.downsample(points),
+                memberPrice.downsample(points), rank.downsample(points));
+    }
+
+    private static void addPoint(LocalDateTime crawlTime, Object[] row, SeriesBuffer nonMemberPrice,
+                                 SeriesBuffer memberPrice, SeriesBuffer rank) {
+        long time = crawlTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+        nonMemberPrice.add(time, (Number) row[1]);
+        memberPrice.add(time, (Number) row[2]);
+        rank.add(time, (Number) row[3]);
+    }
+
+    // 按需扩容的时间/数值数组，避免为每个点创建对象
+    private static class SeriesBuffer {
+        private long[] times = new long[256];
+        private double[] values = new double[256];
+        private int size;
+
+        void add(long time, Number value) {
+            if (value == null) {
+                return;
+            }
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            times[size] = time;
+            values[size] = value.doubleValue();
+            size++;
+        }
+
+        PriceSeriesDTO.Series downsample(int points) {
+            int[] selected = LttbUtils.select(times, values, size, points);
+            long[] sampledTimes = new long[selected.length];
+            double[] sampledValues = new double[selected.length];
+            for (int i = 0; i < selected.length; i++) {
+                sampledTimes[i] = times[selected[i]];
+                sampledValues[i] = values[selected[i]];
+            }
+            return new PriceSeriesDTO.Series(sampledTimes, sampledValues);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.dto.ReviewSearchHitDTO;
+import com.example.springboot.login.entity.AsinReview;
+import com.example.springboot.login.event.CrawlDataChangedEvent;
+import com.example.springboot.login.export.ExportDataType;
+import com.example.springboot.login.repository.AsinReviewRepository;
+import com.example.springboot.login.repository.CrawlerTaskRepository;
+import com.example.springboot.login.search.ReviewSearchIndex;
+import com.example.springboot.login.util.IdWindow;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// 评论全文索引的维护与查询。
+// 评论写入并提交后记录待索引的任务，由定时任务将新评论（ID大于该任务已索引的最大ID）追加到索引；
+// 已索引的最大ID之前一个窗口（late-commit-window 个ID）内晚提交的评论与索引中的ID对比后补充索引。
+// 已索引的评论被修改或删除时重建该任务的索引。定期核对所有任务，补齐直接写库的评论；
+// 搜索前会先补齐该任务尚未索引的评论
+@Service
+public class ReviewSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewSearchService.class);
+
+    @Autowired
+    private ReviewSearchIndex index;
+
+    @Autowired
+    private AsinReviewRepository reviewRepository;
+
+    @Autowired
+    private CrawlerTaskRepository crawlerTaskRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${search.late-commit-window:10000}")
+    private long lateCommitWindow;
+
+    private TransactionTemplate readOnlyTemplate;
+
+    // 有新评论等待索引的任务
+    private final Set<Long> pendingTaskIds = ConcurrentHashMap.newKeySet();
+    // 已索引的评论被修改或删除，需要重建索引的任务
+    private final Set<Long> staleTaskIds = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCrawlDataChanged(CrawlDataChangedEvent event) {
+        if (event.getDataType() != ExportDataType.REVIEWS) {
+            return;
+        }
+        if (!event.isAppendOnly()) {
+            staleTaskIds.add(event.getTaskId());
+        }
+        pendingTaskIds.add(event.getTaskId());
+    }
+
+    // 批量写入会为每行发布一次事件，这里合并后按任务处理
+    @Scheduled(fixedDelayString = "${search.flush-interval:PT5S}")
+    public void flushPending() {
+        if (pendingTaskIds.isEmpty()) {
+            return;
+        }
+        List<Long> taskIds = new ArrayList<>(pendingTaskIds);
+        pendingTaskIds.removeAll(taskIds);
+        for (Long taskId : taskIds) {
+            try {
+                sync(taskId, false);
+            } catch (Exception e) {
+                log.error("评论索引更新失败: taskId={}", taskId, e);
+            }
+        }
+    }
+
+    // 定期核对所有任务；删除索引目录后也由此从数据库重建
+    @Scheduled(fixedDelayString = "${search.reconcile-interval:PT10M}", initialDelayString = "PT1M")
+    public void reconcile() {
+        for (Long taskId : crawlerTaskRepository.findAllIds()) {
+            try {
+                sync(taskId, false);
+            } catch (Exception e) {
+                log.error("评论索引核对失败: taskId={}", taskId, e);
+            }
+        }
+    }
+
+    // 将任务尚未索引的评论追加到索引，rebuild为true或已索引的评论被修改、删除时先删除该任务的索引再全量写入；
+    // 同一时间只有一个线程写索引，返回本次写入的评论数
+    public synchronized long sync(Long taskId, boolean rebuild) throws IOException {
+        boolean full = staleTaskIds.remove(taskId) || rebuild;
+        long afterId = 0L;
+        if (full) {
+            index.deleteByTaskId(taskId);
+        } else {
+            afterId = index.maxReviewId(taskId);
+        }
+
+        long maxId = afterId;
+        Long added = readOnlyTemplate.execute(status -> {
+            try {
+                long count = indexLateCommits(taskId, maxId);
+                try (Stream<AsinReview> rows = reviewRepository.streamByTaskIdAndIdGreaterThan(taskId, maxId)) {
+                    Iterator<AsinReview> iterator = rows.iterator();
+                    while (iterator.hasNext()) {
+                        AsinReview row = iterator.next();
+                        index.add(row, taskId);
+                        entityManager.detach(row);
+                        count++;
+                    }
+                }
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        long count = added == null ? 0L : added;
+        if (full || count > 0) {
+            index.commit();
+        }
+        return count;
+    }
+
+    // 自增ID按分配顺序递增，ID较小的评论可能在已索引的最大ID推进之后才提交：
+    // 重新读取 maxId 之前一个窗口内的评论ID，索引中没有的补充索引，返回补充的条数
+    private long indexLateCommits(Long taskId, long maxId) throws IOException {
+        if (maxId <= 0) {
+            return 0L;
+        }
+        long fromId = Math.max(0L, maxId - lateCommitWindow);
+        IdWindow indexed = index.idsAbove(taskId, fromId);
+        List<Long> missing = new ArrayList<>();
+        for (Long id : reviewRepository.findIdsByTaskIdAndIdBetween(taskId, fromId, maxId)) {
+            if (!indexed.contains(id)) {
+                missing.add(id);
+            }
+        }
+        long count = 0;
+        for (AsinReview row : reviewRepository.findAllById(missing)) {
+            index.add(row, taskId);
+            entityManager.detach(row);
+            count++;
+        }
+        return count;
+    }
+
+    // 在任务内搜索评论，asin为空时搜索任务下所有ASIN
+    public List<ReviewSearchHitDTO> search(Long taskId, String keywords, String asin, int limit) throws IOException {
+        if (staleTaskIds.contains(taskId) || pendingTaskIds.remove(taskId)) {
+            sync(taskId, false);
+        }
+        return index.search(taskId, keywords, asin, limit);
+    }
+
+    public synchronized void deleteByTaskId(Long taskId) throws IOException {
+        pendingTaskIds.remove(taskId);
+        staleTaskIds.remove(taskId);
+        index.deleteByTaskId(taskId);
+        index.commit();
+    }
+}
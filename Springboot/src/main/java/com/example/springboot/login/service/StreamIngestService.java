@@ -0,0 +1,325 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.dto.IngestAckDTO;
+import com.example.springboot.login.entity.IngestCheckpoint;
+import com.example.springboot.login.exception.JobStateException;
+import com.example.springboot.login.exception.QueueFullException;
+import com.example.springboot.login.ingest.CrawlDataWriter;
+import com.example.springboot.login.repository.IngestCheckpointRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// NDJSON流式写入：请求线程用Jackson流式解析器逐条读取记录，凑满一批后放入有界队列，
+// 由写入线程逐批在事务中批量插入并推进检查点。队列满（数据库写入跟不上）时请求线程阻塞、不再读取请求体，
+// 由TCP流控让客户端放慢发送。每提交一批向响应写一行 ack，客户端断开后从最后确认的偏移量继续发送
+@Service
+public class StreamIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamIngestService.class);
+
+    private static final Pattern STREAM_ID_PATTERN = Pattern.compile("^[A-Za-z0-9._-]{1,64}$");
+    private static final String TYPE_PRICE = "price";
+    private static final String TYPE_REVIEW = "review";
+    private static final byte[] NEWLINE = {'\n'};
+
+    @Autowired
+    private CrawlIngestService crawlIngestService;
+
+    @Autowired
+    private CrawlDataWriter crawlDataWriter;
+
+    @Autowired
+    private IngestCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${ingest.stream.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${ingest.stream.max-pending-batches:4}")
+    private int maxPendingBatches;
+
+    @Value("${ingest.stream.max-streams:4}")
+    private int maxStreams;
+
+    private TransactionTemplate transactionTemplate;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // 每个写入流占用一个写入线程，线程用满时拒绝新的写入流
+        executor = new ThreadPoolExecutor(maxStreams, maxStreams, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), new CustomizableThreadFactory("ingest-stream-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // 校验任务归属和写入流标识，返回该写入流已提交的偏移量；客户端从 offset 开始发送，不能超过已提交的偏移量
+    public long open(Long taskId, String streamId, long offset) {
+        crawlIngestService.requireOwnedTask(taskId);
+        if (streamId == null || !STREAM_ID_PATTERN.matcher(streamId).matches()) {
+            throw new IllegalArgumentException("streamId 只能包含字母、数字和 . _ -，长度 1-64");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset 不能为负数");
+        }
+        Long committed = transactionTemplate.execute(status -> {
+            checkpointRepository.insertIfAbsent(taskId, streamId);
+            return checkpointRepository.findByTaskIdAndStreamId(taskId, streamId).orElseThrow().getCommittedOffset();
+        });
+        if (offset > committed) {
+            throw new IllegalArgumentException("offset " + offset + " 超出已提交的偏移量 " + committed + "，请从该偏移量继续发送");
+        }
+        return committed;
+    }
+
+    // 查询写入流已提交的偏移量，没有写入过时为0
+    public long getCommittedOffset(Long taskId, String streamId) {
+        crawlIngestService.requireOwnedTask(taskId);
+        return checkpointRepository.findByTaskIdAndStreamId(taskId, streamId)
+                .map(IngestCheckpoint::getCommittedOffset)
+                .orElse(0L);
+    }
+
+    // 读取请求体直到结束，in 中第一条记录的偏移量为 offset，偏移量小于 committed 的记录已写入过，直接跳过。
+    // 解析或写入出错时已提交的批次保留，最后一行 error 给出可继续的偏移量
+    public void ingest(Long taskId, String streamId, long offset, long committed,
+                       InputStream in, OutputStream out) throws IOException {
+        StreamWriter writer = new StreamWriter(taskId, streamId, committed);
+        try {
+            executor.execute(writer);
+        } catch (RejectedExecutionException e) {
+            throw new QueueFullException("同时进行的流式写入过多，请稍后重试");
+        }
+
+        String error = null;
+        long position = offset;
+        Batch batch = new Batch(committed);
+        LocalDateTime now = LocalDateTime.now();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("偏移量 " + position + " 处的记录不是JSON对象");
+                }
+                ObjectNode node = objectMapper.readTree(parser);
+                if (position >= committed) {
+                    batch.add(node, position, now);
+                }
+                position++;
+                if (batch.size() >= batchSize) {
+                    writer.submit(batch.close(position));
+                    batch = new Batch(position);
+                    writeAcks(writer, out);
+                }
+            }
+            if (batch.size() > 0) {
+                writer.submit(batch.close(position));
+            }
+        } catch (IOException | RuntimeException e) {
+            // 客户端断开、JSON格式错误或记录不合法：已放入队列的批次仍会提交
+            error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            log.warn("流式写入中断: taskId={}, streamId={}, offset={}, {}", taskId, streamId, position, error);
+        }
+
+        writer.finish();
+        writeAcks(writer, out);
+        if (writer.failure != null) {
+            error = writer.failure.getMessage();
+        }
+        writeLine(out, error == null
+                ? IngestAckDTO.done(writer.committedOffset)
+                : IngestAckDTO.error(writer.committedOffset, error));
+    }
+
+    private void writeAcks(StreamWriter writer, OutputStream out) {
+        IngestAckDTO ack;
+        boolean written = false;
+        while ((ack = writer.acks.poll()) != null) {
+            writeLine(out, ack);
+            written = true;
+        }
+        if (written) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                log.debug("流式写入确认发送失败，客户端可能已断开", e);
+            }
+        }
+    }
+
+    // 客户端断开后确认行写不出去不影响已提交的数据，客户端可通过检查点查询继续
+    private void writeLine(OutputStream out, IngestAckDTO ack) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(ack));
+            out.write(NEWLINE);
+        } catch (IOException e) {
+            log.debug("流式写入确认发送失败，客户端可能已断开", e);
+        }
+    }
+
+    // 一批记录，覆盖偏移量 [fromOffset, toOffset)
+    private class Batch {
+        private final long fromOffset;
+        private long toOffset;
+        private final List<AsinPriceRankDTO> priceRanks = new ArrayList<>();
+        private final List<AsinReviewDTO> reviews = new ArrayList<>();
+
+        Batch(long fromOffset) {
+            this.fromOffset = fromOffset;
+        }
+
+        // 记录格式：{"type":"price"|"review", ...价格或评论字段}
+        void add(ObjectNode node, long position, LocalDateTime now) throws IOException {
+            String type = node.path("type").asText();
+            node.remove("type");
+            if (TYPE_PRICE.equals(type)) {
+                AsinPriceRankDTO row = objectMapper.treeToValue(node, AsinPriceRankDTO.class);
+                crawlIngestService.prepare(row, position, now);
+                priceRanks.add(row);
+            } else if (TYPE_REVIEW.equals(type)) {
+                AsinReviewDTO row = objectMapper.treeToValue(node, AsinReviewDTO.class);
+                crawlIngestService.prepare(row, position, now);
+                reviews.add(row);
+            } else {
+                throw new IllegalArgumentException("偏移量 " + position + " 处的记录类型无效: " + type);
+            }
+        }
+
+        int size() {
+            return priceRanks.size() + reviews.size();
+        }
+
+        Batch close(long toOffset) {
+            this.toOffset = toOffset;
+            return this;
+        }
+    }
+
+    // 写入线程：逐批提交并推进检查点，出错后丢弃之后的批次
+    private class StreamWriter implements Runnable {
+        private final Long taskId;
+        private final String streamId;
+        private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(maxPendingBatches);
+        private final BlockingQueue<IngestAckDTO> acks = new LinkedBlockingQueue<>();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final Batch end = new Batch(-1);
+        private volatile long committedOffset;
+        private volatile Exception failure;
+        private int batchNo;
+
+        StreamWriter(Long taskId, String streamId, long committedOffset) {
+            this.taskId = taskId;
+            this.streamId = streamId;
+            this.committedOffset = committedOffset;
+        }
+
+        // 队列满时阻塞请求线程（背压），写入线程出错后不再接收
+        void submit(Batch batch) throws IOException {
+            try {
+                while (!queue.offer(batch, 1, TimeUnit.SECONDS)) {
+                    checkFailure();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("流式写入被中断");
+            }
+            checkFailure();
+        }
+
+        // 等待已放入队列的批次全部处理完
+        void finish() throws InterruptedIOException {
+            try {
+                queue.put(end);
+                finished.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("流式写入被中断");
+            }
+        }
+
+        private void checkFailure() {
+            if (failure != null) {
+                throw new IllegalStateException("写入失败: " + failure.getMessage());
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Batch batch = queue.take();
+                    if (batch == end) {
+                        break;
+                    }
+                    if (failure == null) {
+                        write(batch);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        private void write(Batch batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    crawlDataWriter.insertPriceRanks(taskId, batch.priceRanks);
+                    crawlDataWriter.insertReviews(taskId, batch.reviews);
+                    if (checkpointRepository.advance(taskId, streamId, batch.fromOffset, batch.toOffset,
+                            LocalDateTime.now()) != 1) {
+                        throw new JobStateException("写入流 " + streamId + " 已被其他连接推进，请查询检查点后继续");
+                    }
+                });
+                committedOffset = batch.toOffset;
+                acks.add(IngestAckDTO.ack(++batchNo, batch.toOffset, batch.priceRanks.size(), batch.reviews.size()));
+            } catch (Exception e) {
+                log.error("流式写入批次提交失败: taskId={}, streamId={}, offset={}", taskId, streamId, batch.fromOffset, e);
+                failure = e;
+            }
+        }
+    }
+}
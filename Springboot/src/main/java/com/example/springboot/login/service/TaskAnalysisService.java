@@ -0,0 +1,256 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.entity.AsinReview;
+import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.export.ExcelCellUtils;
+import com.example.springboot.login.report.AnalysisWorkbook;
+import com.example.springboot.login.report.PptxReportRenderer;
+import com.example.springboot.login.report.ReportAggregates;
+import com.example.springboot.login.report.ReportArtifactStore;
+import com.example.springboot.login.report.ReportModel;
+import com.example.springboot.login.report.ReportModelBuilder;
+import com.example.springboot.login.report.SummarySheet;
+import com.example.springboot.login.repository.AsinPriceRankRepository;
+import com.example.springboot.login.repository.AsinReviewRepository;
+import jakarta.annotation.PostConstruct;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+// 任务数据分析：默认在进程内用POI填充PPT模板（renderer=java）——任务数据写入内存中的分析底表，
+// 按底表汇总页计算出的 幻灯片/形状 映射更新PPT，规则与Python脚本一致；
+// 没有分析底表时按形状名称填充统计结果，统计结果按任务保存，再次分析时只并入新增数据（见 AnalysisAggregateService）；
+// renderer=python 时保留原方式，先写分析底表Excel，再调用Python脚本根据底表更新PPT。
+// 生成的报告按任务和版本保存在 ReportArtifactStore 中
+@Service
+public class TaskAnalysisService {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskAnalysisService.class);
+
+    public static final String RENDERER_JAVA = "java";
+    public static final String RENDERER_PYTHON = "python";
+
+    @Autowired
+    private CrawlerTaskService crawlerTaskService;
+
+    @Autowired
+    private ReportModelBuilder reportModelBuilder;
+
+    @Autowired
+    private PptxReportRenderer pptxReportRenderer;
+
+    @Autowired
+    private ReportArtifactStore reportArtifactStore;
+
+    @Autowired
+    private AnalysisAggregateService analysisAggregateService;
+
+    @Value("${analysis.renderer:java}")
+    private String renderer;
+
+    @Autowired
+    private TaskExportService taskExportService;
+
+    @Autowired
+    private AsinPriceRankRepository priceRankRepository;
+
+    @Autowired
+    private AsinReviewRepository reviewRepository;
+
+    @Value("${analysis.excel-path:}")
+    private String excelPath; // 分析底表模板，汇总页为PPT形状与数据的对应关系
+
+    @Value("${analysis.ppt-path}")
+    private String pptPath; // PPT报告模板
+
+    @Value("${analysis.script-path}")
+    private String pythonScriptPath; // 更新PPT的Python脚本
+
+    @PostConstruct
+    public void init() {
+        if (!RENDERER_JAVA.equals(renderer) && !RENDERER_PYTHON.equals(renderer)) {
+            throw new IllegalStateException("不支持的报告生成方式: " + renderer);
+        }
+    }
+
+    // 执行分析并将报告提交为任务的一个版本（version 为分析任务ID），progress 接收进度百分比；
+    // full为false时基于上次保存的统计结果增量计算（仅按形状名称填充时，汇总页方式与 python 方式始终读取全量数据，
+    // 数据超过Excel单页行数上限时汇总页方式改为按形状名称填充）。
+    // 模板只读，所有中间文件都是本次分析私有的临时文件，多个分析可以并行执行
+    public Path analyze(Long taskId, Long version, boolean full, IntConsumer progress) throws IOException, InterruptedException {
+        CrawlerTask task = crawlerTaskService.getTaskById(taskId);
+
+        Path stagingPpt = reportArtifactStore.createStagingFile(taskId, ".pptx");
+        Path stagingExcel = null;
+        try {
+            if (RENDERER_PYTHON.equals(renderer)) {
+                List<AsinPriceRankDTO> priceRanks = crawlerTaskService.getAsinPriceRanksByTaskId(taskId);
+                List<AsinReview> reviews = crawlerTaskService.getAsinReviewsByTaskId(taskId);
+                progress.accept(30);
+                // 脚本会就地修改底表和PPT，先复制模板到私有临时文件
+                stagingExcel = reportArtifactStore.createStagingFile(taskId, ".xlsx");
+                Files.copy(Paths.get(excelPath), stagingExcel, StandardCopyOption.REPLACE_EXISTING);
+                Files.copy(Paths.get(pptPath), stagingPpt, StandardCopyOption.REPLACE_EXISTING);
+                updateExcelFile(stagingExcel.toString(), priceRanks, reviews);
+                progress.accept(60);
+                executePythonScript(stagingPpt.toAbsolutePath().toString(), stagingExcel.toAbsolutePath().toString());
+            } else {
+                SummarySheet summary = readSummary(task);
+                progress.accept(30);
+                ReportModel model = null;
+                if (summary == null) {
+                    model = reportModelBuilder.build(task, refreshAggregates(task, full));
+                }
+                progress.accept(60);
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(stagingPpt))) {
+                    if (summary != null) {
+                        pptxReportRenderer.render(Paths.get(pptPath), summary, out);
+                    } else {
+                        pptxReportRenderer.render(Paths.get(pptPath), model, out);
+                    }
+                }
+            }
+            Path report = reportArtifactStore.commit(taskId, version, stagingPpt);
+            progress.accept(100);
+            return report;
+        } finally {
+            Files.deleteIfExists(stagingPpt);
+            if (stagingExcel != null) {
+                Files.deleteIfExists(stagingExcel);
+            }
+        }
+    }
+
+    // 分析底表存在且有汇总页时，在内存中写入任务数据并计算汇总页（底表文件不修改）。汇总页的公式引用全部数据行，
+    // 每次分析都要读取任务的全部价格和评论数据并在内存中建成工作簿，无法增量计算；
+    // 未配置底表、底表没有汇总页或数据超过单页行数上限时返回 null，改为按形状名称填充（增量统计）
+    private SummarySheet readSummary(CrawlerTask task) throws IOException {
+        Path template = excelPath == null || excelPath.isBlank() ? null : Paths.get(excelPath);
+        if (template == null || !Files.exists(template)) {
+            return null;
+        }
+        long priceRows = priceRankRepository.countByTaskId(task.getId());
+        long reviewRows = reviewRepository.countByTaskId(task.getId());
+        if (priceRows > AnalysisWorkbook.MAX_DATA_ROWS || reviewRows > AnalysisWorkbook.MAX_DATA_ROWS) {
+            log.warn("任务{}数据超过Excel单页行数上限（价格 {} 行，评论 {} 行），按形状名称填充报告",
+                    task.getId(), priceRows, reviewRows);
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(template);
+             Workbook workbook = WorkbookFactory.create(in)) {
+            if (workbook.getSheet(SummarySheet.SHEET_NAME) == null) {
+                log.warn("分析底表没有{}页，按形状名称填充报告: {}", SummarySheet.SHEET_NAME, excelPath);
+                return null;
+            }
+            CellStyle dateStyle = ExcelCellUtils.createDateStyle(workbook);
+            taskExportService.withPriceRanks(task,
+                    rows -> AnalysisWorkbook.fillPriceSheet(workbook, rows.iterator(), dateStyle));
+            taskExportService.withReviews(task,
+                    rows -> AnalysisWorkbook.fillReviewSheet(workbook, rows.iterator(), dateStyle));
+            return SummarySheet.read(workbook);
+        }
+    }
+
+    // 统计期间已并入的数据被修改或删除时，写回会因版本冲突失败，此时全量重建一次
+    private ReportAggregates refreshAggregates(CrawlerTask task, boolean full) {
+        try {
+            return analysisAggregateService.refresh(task, full);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.info("任务{}统计期间数据发生变化，全量重建", task.getId());
+            return analysisAggregateService.refresh(task, true);
+        }
+    }
+
+    // 更新Excel文件，先清除原有数据再写入新数据
+    private void updateExcelFile(String filePath, List<AsinPriceRankDTO> priceRanks, List<AsinReview> reviews) throws IOException {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            throw new FileNotFoundException("Excel文件不存在: " + filePath);
+        }
+
+        if (priceRanks.size() > AnalysisWorkbook.MAX_DATA_ROWS || reviews.size() > AnalysisWorkbook.MAX_DATA_ROWS) {
+            throw new IllegalStateException("任务数据超过Excel单页行数上限（价格 " + priceRanks.size()
+                    + " 行，评论 " + reviews.size() + " 行），请改用 analysis.renderer=java");
+        }
+
+        try (Workbook workbook = WorkbookFactory.create(new FileInputStream(file))) {
+            CellStyle dateStyle = ExcelCellUtils.createDateStyle(workbook);
+            Sheet priceSheet = AnalysisWorkbook.fillPriceSheet(workbook, priceRanks.iterator(), dateStyle);
+            Sheet reviewSheet = AnalysisWorkbook.fillReviewSheet(workbook,
+                    reviews.stream().map(AsinReviewDTO::fromEntity).iterator(), dateStyle);
+
+            // 自动调整列宽
+            for (int i = 0; i < AnalysisWorkbook.priceColumnCount(); i++) {
+                priceSheet.autoSizeColumn(i);
+            }
+            for (int i = 0; i < AnalysisWorkbook.reviewColumnCount(); i++) {
+                reviewSheet.autoSizeColumn(i);
+            }
+
+            // 保存文件
+            try (FileOutputStream fileOut = new FileOutputStream(filePath)) {
+                workbook.write(fileOut);
+            }
+        }
+    }
+
+    // 执行Python脚本更新PPT
+    private void executePythonScript(String pptPath, String excelPath) throws IOException, InterruptedException {
+        // 检查脚本文件是否存在
+        File scriptFile = new File(pythonScriptPath);
+        if (!scriptFile.exists()) {
+            throw new FileNotFoundException("Python脚本文件不存在: " + pythonScriptPath);
+        }
+
+        // 执行Python脚本，传递PPT和Excel路径作为参数
+        ProcessBuilder pb = new ProcessBuilder(
+                "python",
+                pythonScriptPath,
+                pptPath,  // 第一个参数：PPT文件路径
+                excelPath // 第二个参数：Excel文件路径
+        );
+
+        pb.redirectErrorStream(true);
+        Process process = pb.start();
+
+        // 读取输出
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                log.info("Python输出: {}", line);
+            }
+        }
+
+        // 等待脚本执行完成
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new RuntimeException("Python脚本执行失败，退出码: " + exitCode);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.entity.TaskAsin;
+import com.example.springboot.login.repository.CrawlerTaskRepository;
+import com.example.springboot.login.repository.TaskAsinRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// 维护 task_asin 对应关系：任务创建或修改ASIN列表时按差异增删，启动时为旧任务回填
+@Service
+public class TaskAsinService {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskAsinService.class);
+
+    @Autowired
+    private TaskAsinRepository taskAsinRepository;
+
+    @Autowired
+    private CrawlerTaskRepository crawlerTaskRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // 拆分逗号分隔的ASIN列表：去空白、转大写、去重并保留原顺序
+    public static Set<String> parseAsins(String asinList) {
+        Set<String> asins = new LinkedHashSet<>();
+        if (asinList == null) {
+            return asins;
+        }
+        for (String part : asinList.split(",")) {
+            String asin = part.trim().toUpperCase(Locale.ROOT);
+            if (!asin.isEmpty()) {
+                asins.add(asin);
+            }
+        }
+        return asins;
+    }
+
+    // 与任务当前的ASIN列表同步，只增删有变化的ASIN；暂停/恢复等不改列表的更新不产生写入
+    @Transactional
+    public void sync(CrawlerTask task) {
+        Set<String> target = parseAsins(task.getAsinList());
+        Set<String> existing = new HashSet<>(taskAsinRepository.findAsinsByTaskId(task.getId()));
+
+        Set<String> removed = new HashSet<>(existing);
+        removed.removeAll(target);
+        if (!removed.isEmpty()) {
+            taskAsinRepository.deleteByTaskIdAndAsinIn(task.getId(), removed);
+        }
+
+        List<TaskAsin> added = target.stream()
+                .filter(asin -> !existing.contains(asin))
+                .map(asin -> new TaskAsin(task.getId(), asin))
+                .toList();
+        if (!added.isEmpty()) {
+            taskAsinRepository.saveAll(added);
+        }
+    }
+
+    @Transactional
+    public void deleteByTaskId(Long taskId) {
+        taskAsinRepository.deleteByTaskId(taskId);
+    }
+
+    // 按ASIN精确反查跟踪该ASIN的任务ID（新任务在前）
+    @Transactional(readOnly = true)
+    public List<Long> findTaskIdsByAsin(String asin) {
+        return taskAsinRepository.findTaskIdsByAsin(asin.trim().toUpperCase(Locale.ROOT));
+    }
+
+    // 升级前创建的任务没有对应关系，启动时逐个任务回填（每个任务一个事务）
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        List<Long> taskIds = taskAsinRepository.findTaskIdsWithoutAsins();
+        int filled = 0;
+        for (Long taskId : taskIds) {
+            Boolean done = transactionTemplate.execute(status -> crawlerTaskRepository.findById(taskId)
+                    .filter(task -> !parseAsins(task.getAsinList()).isEmpty())
+                    .map(task -> {
+                        sync(task);
+                        return true;
+                    })
+                    .orElse(false));
+            if (Boolean.TRUE.equals(done)) {
+                filled++;
+            }
+        }
+        if (filled > 0) {
+            log.info("已为{}个任务回填ASIN对应关系", filled);
+        }
+    }
+}
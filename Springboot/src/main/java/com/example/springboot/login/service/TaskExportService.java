@@ -0,0 +1,147 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.entity.AsinReview;
+import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.export.DataWatermark;
+import com.example.springboot.login.export.ExportDataType;
+import com.example.springboot.login.export.ExportFormat;
+import com.example.springboot.login.export.TaskDataWriter;
+import com.example.springboot.login.repository.AsinPriceRankRepository;
+import com.example.springboot.login.repository.AsinReviewRepository;
+import com.example.springboot.login.repository.PriceRollupStateRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// 任务数据导出：从数据库游标逐行读取并直接写入输出流，内存占用与数据量无关
+@Service
+public class TaskExportService {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private AsinPriceRankRepository priceRankRepository;
+
+    @Autowired
+    private AsinReviewRepository reviewRepository;
+
+    @Autowired
+    private PriceRollupStateRepository rollupStateRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<ExportFormat, TaskDataWriter> writers = new EnumMap<>(ExportFormat.class);
+
+    @Autowired
+    public void setWriters(List<TaskDataWriter> writerList) {
+        for (TaskDataWriter writer : writerList) {
+            writers.put(writer.format(), writer);
+        }
+    }
+
+    // 按指定格式导出，gzip为true时对输出整体压缩，返回数据行数；
+    // expand为true时价格数据中连续相同观测的行展开为观测点（每次观测一行）
+    @Transactional(readOnly = true)
+    public long export(CrawlerTask task, ExportDataType dataType, ExportFormat format,
+                       boolean gzip, boolean expand, OutputStream out) throws IOException {
+        TaskDataWriter writer = getWriter(format);
+
+        if (!gzip) {
+            return write(task, dataType, writer, expand, out);
+        }
+        GZIPOutputStream gzipOut = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+        long rowCount = write(task, dataType, writer, expand, gzipOut);
+        gzipOut.finish();
+        return rowCount;
+    }
+
+    // 在只读事务内以游标方式读取任务的价格数据，Stream 仅在回调内有效
+    @Transactional(readOnly = true)
+    public <R> R withPriceRanks(CrawlerTask task, Function<Stream<AsinPriceRankDTO>, R> consumer) {
+        try (Stream<AsinPriceRankDTO> rows = streamPriceRanks(task)) {
+            return consumer.apply(rows);
+        }
+    }
+
+    // 在只读事务内以游标方式读取任务的评论数据，Stream 仅在回调内有效
+    @Transactional(readOnly = true)
+    public <R> R withReviews(CrawlerTask task, Function<Stream<AsinReviewDTO>, R> consumer) {
+        try (Stream<AsinReviewDTO> rows = streamReviews(task)) {
+            return consumer.apply(rows);
+        }
+    }
+
+    // 导出数据的水位，与 streamPriceRanks / streamReviews 使用相同的数据范围
+    public DataWatermark watermark(CrawlerTask task, ExportDataType dataType) {
+        if (dataType == ExportDataType.PRICE_RANK) {
+            // 延长已有行不改变最新爬取时间和行数，另加上任务的数据版本
+            return priceRankRepository.findWatermarkByTaskId(task.getId())
+                    .withDataVersion(rollupStateRepository.findDataVersion(task.getId()).orElse(0L));
+        }
+        return reviewRepository.findWatermarkByTaskId(task.getId());
+    }
+
+    // 生成导出文件名（包含任务名称和日期）
+    public String buildFileName(CrawlerTask task, ExportDataType dataType, ExportFormat format, boolean gzip) {
+        return task.getProcessName() + "_" + dataType.getLabel() + "数据_" +
+                new SimpleDateFormat("yyyyMMdd").format(new Date()) + "." + format.getExtension() +
+                (gzip ? ".gz" : "");
+    }
+
+    public String contentType(ExportFormat format, boolean gzip) {
+        return gzip ? ExportFormat.GZIP_CONTENT_TYPE : format.getContentType();
+    }
+
+    private TaskDataWriter getWriter(ExportFormat format) {
+        TaskDataWriter writer = writers.get(format);
+        if (writer == null) {
+            throw new IllegalArgumentException("不支持的导出格式: " + format.getParam());
+        }
+        return writer;
+    }
+
+    private long write(CrawlerTask task, ExportDataType dataType, TaskDataWriter writer, boolean expand,
+                       OutputStream out) throws IOException {
+        if (dataType == ExportDataType.PRICE_RANK) {
+            try (Stream<AsinPriceRankDTO> rows = streamPriceRanks(task)) {
+                return writer.writePriceRanks(task, expand ? rows.flatMap(AsinPriceRankDTO::expand) : rows, out);
+            }
+        }
+        try (Stream<AsinReviewDTO> rows = streamReviews(task)) {
+            return writer.writeReviews(task, rows, out);
+        }
+    }
+
+    // 价格数据直接查询为DTO，不经过实体和持久化上下文
+    private Stream<AsinPriceRankDTO> streamPriceRanks(CrawlerTask task) {
+        return priceRankRepository.streamDtoByTaskId(task.getId());
+    }
+
+    // 评论逐行转换为DTO后立即从持久化上下文中移除，避免一级缓存随行数增长
+    private Stream<AsinReviewDTO> streamReviews(CrawlerTask task) {
+        return reviewRepository.streamByTaskId(task.getId())
+                .map(this::detachReview);
+    }
+
+    private AsinReviewDTO detachReview(AsinReview entity) {
+        AsinReviewDTO dto = AsinReviewDTO.fromEntity(entity);
+        entityManager.detach(entity);
+        return dto;
+    }
+}
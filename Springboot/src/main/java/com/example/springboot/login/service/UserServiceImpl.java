@@ -31,6 +31,7 @@ public class UserServiceImpl implements UserService {
         return userRepository.existsByUsername(username);
     }
 
+    // 连接参数 useAffectedRows=true 时，取值未变化的更新返回0，需要再确认用户是否存在
     @Override
     public void lockUser(String username, int failedAttempts) {
         LocalDateTime lockTime = LocalDateTime.now().plusMinutes(30);
@@ -38,7 +39,7 @@ public class UserServiceImpl implements UserService {
                 username, true, lockTime, failedAttempts
         );
 
-        if (updated == 0) {
+        if (updated == 0 && !userRepository.existsByUsername(username)) {
             throw new AuthenticationException("用户不存在");
         }
     }
@@ -49,7 +50,7 @@ public class UserServiceImpl implements UserService {
                 username, false, null, 0
         );
 
-        if (updated == 0) {
+        if (updated == 0 && !userRepository.existsByUsername(username)) {
             throw new AuthenticationException("用户不存在");
         }
     }
@@ -57,7 +58,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public void resetFailedAttempts(String username) {
         int updated = userRepository.resetFailedAttempts(username);
-        if (updated == 0) {
+        if (updated == 0 && !userRepository.existsByUsername(username)) {
             throw new AuthenticationException("用户不存在");
         }
     }
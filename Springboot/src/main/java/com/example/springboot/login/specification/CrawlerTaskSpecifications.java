@@ -1,12 +1,16 @@
 package com.example.springboot.login.specification;
 
 import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.entity.TaskAsin;
 import com.example.springboot.login.entity.User;
 import org.springframework.data.jpa.domain.Specification;
 
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 public class CrawlerTaskSpecifications {
 
@@ -46,11 +50,20 @@ public class CrawlerTaskSpecifications {
             predicates.add(criteriaBuilder.like(
                     criteriaBuilder.lower(root.get("processName")),
                     "%" + keyword.toLowerCase() + "%"));
-            predicates.add(criteriaBuilder.like(
-                    criteriaBuilder.lower(root.get("asinList")),
-                    "%" + keyword.toLowerCase() + "%"));
+            // ASIN按前缀匹配 task_asin 的 (asin, task_id) 索引，不再对逗号分隔的 asinList 做全表 LIKE
+            Subquery<Long> asinQuery = query.subquery(Long.class);
+            Root<TaskAsin> taskAsin = asinQuery.from(TaskAsin.class);
+            asinQuery.select(taskAsin.get("taskId"))
+                    .where(criteriaBuilder.like(taskAsin.get("asin"),
+                            escapeLike(keyword.trim().toUpperCase(Locale.ROOT)) + "%", '\\'));
+            predicates.add(root.get("id").in(asinQuery));
 
             return criteriaBuilder.or(predicates.toArray(new Predicate[0]));
         };
     }
-}
\ No newline at end of file
+
+    // 转义LIKE通配符，关键字中的 % 和 _ 按字面匹配
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.springboot.login.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// 游标分页的游标编码：将若干字段以 ~ 连接后做URL安全的Base64编码，对客户端不透明
+public final class CursorUtils {
+
+    private static final String SEPARATOR = "~";
+
+    private CursorUtils() {
+    }
+
+    // 最后一个字段可以包含分隔符
+    public static String encode(Object... parts) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                text.append(SEPARATOR);
+            }
+            text.append(parts[i] == null ? "" : parts[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 解码为固定个数的字段，格式不正确时抛出 IllegalArgumentException
+    public static String[] decode(String cursor, int partCount) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, partCount);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        if (parts.length != partCount) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.springboot.login.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// 本地文件下载：支持 ETag/Last-Modified 条件请求与单段 Range 断点续传，
+// 优先使用 Tomcat sendfile 零拷贝发送，不支持时退化为 FileChannel.transferTo
+public final class FileTransferUtils {
+
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private FileTransferUtils() {
+    }
+
+    // 字节区间（闭区间）
+    private record ByteRange(long start, long end) {
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    public static void sendFile(HttpServletRequest request, HttpServletResponse response,
+                                Path file, String fileName, String contentType, String etag) throws IOException {
+        long fileLength = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+        // 条件请求：内容未变化时直接返回304（同时写入 ETag / Last-Modified 响应头）
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" +
+                URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20"));
+        response.setContentType(contentType);
+
+        ByteRange range = new ByteRange(0, fileLength - 1);
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && fileLength > 0 && ifRangeMatches(request, etag, lastModified)) {
+            ByteRange requested = parseRange(rangeHeader, fileLength);
+            if (requested == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileLength);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (requested.length() < fileLength) {
+                range = requested;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + range.start() + "-" + range.end() + "/" + fileLength);
+            }
+        }
+        response.setContentLengthLong(Math.max(range.length(), 0));
+        if (range.length() <= 0 || "HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        // 由Tomcat在请求处理结束后通过sendfile直接从页缓存发送到socket
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, range.start());
+            request.setAttribute(SENDFILE_END_ATTR, range.end() + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = range.start();
+            long remaining = range.length();
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    // If-Range 与当前 ETag/修改时间不一致时忽略 Range，返回完整内容
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return etag != null && ifRange.equals(etag);
+        }
+        try {
+            long ifRangeTime = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return ifRangeTime >= 0 && lastModified / 1000 <= ifRangeTime / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // 解析单段 Range（bytes=start-end / bytes=start- / bytes=-suffix）；
+    // 多段或格式无法识别时返回完整区间，区间不可满足时返回null
+    private static ByteRange parseRange(String header, long fileLength) {
+        ByteRange full = new ByteRange(0, fileLength - 1);
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return full;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return full;
+        }
+        try {
+            String startPart = spec.substring(0, dash).trim();
+            String endPart = spec.substring(dash + 1).trim();
+            if (startPart.isEmpty()) {
+                long suffix = Long.parseLong(endPart);
+                if (suffix <= 0) {
+                    return null;
+                }
+                return new ByteRange(Math.max(fileLength - suffix, 0), fileLength - 1);
+            }
+            long start = Long.parseLong(startPart);
+            long end = endPart.isEmpty() ? fileLength - 1 : Math.min(Long.parseLong(endPart), fileLength - 1);
+            if (start >= fileLength || start > end) {
+                return null;
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return full;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.springboot.login.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// 水位附近已处理的自增ID集合，按连续区间保存（批量写入的ID基本连续），文本形式如 "101-250,260,300-310"。
+// 自增ID按分配顺序而非提交顺序递增，较早分配ID的事务可能在水位推进之后才提交；
+// 增量处理时重新读取水位之前一个窗口内的ID，不在集合中的即为晚提交的数据，只需补充处理这些行
+public final class IdWindow {
+
+    // 区间起点 -> 区间终点（含）
+    private final TreeMap<Long, Long> ranges = new TreeMap<>();
+
+    public static IdWindow parse(String text) {
+        IdWindow window = new IdWindow();
+        if (text == null || text.isEmpty()) {
+            return window;
+        }
+        for (String part : text.split(",")) {
+            int dash = part.indexOf('-');
+            long start = Long.parseLong(dash < 0 ? part : part.substring(0, dash));
+            long end = dash < 0 ? start : Long.parseLong(part.substring(dash + 1));
+            window.ranges.put(start, end);
+        }
+        return window;
+    }
+
+    public boolean contains(long id) {
+        Map.Entry<Long, Long> range = ranges.floorEntry(id);
+        return range != null && range.getValue() >= id;
+    }
+
+    public void add(long id) {
+        if (contains(id)) {
+            return;
+        }
+        Map.Entry<Long, Long> lower = ranges.floorEntry(id);
+        Long upperEnd = ranges.remove(id + 1);
+        if (lower != null && lower.getValue() == id - 1) {
+            ranges.put(lower.getKey(), upperEnd != null ? upperEnd : id);
+        } else {
+            ranges.put(id, upperEnd != null ? upperEnd : id);
+        }
+    }
+
+    // 丢弃不大于 floor 的ID
+    public void retainAbove(long floor) {
+        Map.Entry<Long, Long> first = ranges.firstEntry();
+        if (first == null || first.getKey() > floor) {
+            return;
+        }
+        Map.Entry<Long, Long> crossing = ranges.floorEntry(floor);
+        ranges.headMap(floor, true).clear();
+        if (crossing.getValue() > floor) {
+            ranges.put(floor + 1, crossing.getValue());
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<Long, Long> range : ranges.entrySet()) {
+            if (text.length() > 0) {
+                text.append(',');
+            }
+            text.append(range.getKey());
+            if (!range.getValue().equals(range.getKey())) {
+                text.append('-').append(range.getValue());
+            }
+        }
+        return text.toString();
+    }
+}
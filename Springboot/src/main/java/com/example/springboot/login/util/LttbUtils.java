@@ -0,0 +1,60 @@
+package com.example.springboot.login.util;
+
+// 时间序列降采样（Largest-Triangle-Three-Buckets）：保留首尾两点，其余数据按顺序均分为 threshold-2 个桶，
+// 每个桶选出与上一个选中点、下一个桶平均点构成三角形面积最大的点，尽量保留曲线的峰谷形状
+public final class LttbUtils {
+
+    private LttbUtils() {
+    }
+
+    // 从前 length 个点（x 递增）中选出 threshold 个点，返回选中点的下标（递增）；
+    // 点数不超过 threshold 或 threshold 小于3时返回全部下标
+    public static int[] select(long[] x, double[] y, int length, int threshold) {
+        if (threshold >= length || threshold < 3) {
+            int[] all = new int[length];
+            for (int i = 0; i < length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] sampled = new int[threshold];
+        double every = (double) (length - 2) / (threshold - 2);
+        int a = 0;
+        sampled[0] = 0;
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // 下一个桶的平均点
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, length);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += x[j];
+                avgY += y[j];
+            }
+            avgX /= avgEnd - avgStart;
+            avgY /= avgEnd - avgStart;
+
+            // 当前桶中与上一个选中点、下一个桶平均点构成最大三角形的点
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double ax = x[a];
+            double ay = y[a];
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((ax - avgX) * (y[j] - ay) - (ax - x[j]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled[i + 1] = next;
+            a = next;
+        }
+
+        sampled[threshold - 1] = length - 1;
+        return sampled;
+    }
+}
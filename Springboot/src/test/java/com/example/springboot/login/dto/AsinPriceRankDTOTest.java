@@ -0,0 +1,72 @@
+package com.example.springboot.login.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+// 展开为观测点：seenCount 个点在第一次与最后一次观测之间均匀分布，首尾分别为 crawlTime 和 lastSeenTime
+class AsinPriceRankDTOTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Test
+    void singleObservationIsNotExpanded() {
+        AsinPriceRankDTO row = row(START, null, 1);
+        assertEquals(List.of(row), row.expand().toList());
+        assertSame(row, row.expand().findFirst().orElseThrow());
+    }
+
+    @Test
+    void spreadsPointsEvenly() {
+        List<AsinPriceRankDTO> points = row(START, START.plusMinutes(30), 4).expand().toList();
+
+        assertEquals(List.of(START, START.plusMinutes(10), START.plusMinutes(20), START.plusMinutes(30)),
+                points.stream().map(AsinPriceRankDTO::getCrawlTime).toList());
+        for (AsinPriceRankDTO point : points) {
+            assertNull(point.getLastSeenTime());
+            assertEquals(1, point.getSeenCount());
+            assertEquals(100.0, point.getNonMemberFinalPrice());
+        }
+    }
+
+    @Test
+    void lastPointIsLastSeenTimeWhenSpanDoesNotDivide() {
+        List<LocalDateTime> times = row(START, START.plusSeconds(10), 4).expand()
+                .map(AsinPriceRankDTO::getCrawlTime).toList();
+
+        // 10秒分为3段，每段按纳秒取整，最后一点仍是最后观测时间
+        assertEquals(List.of(START, START.plusNanos(3_333_333_333L), START.plusNanos(6_666_666_666L),
+                START.plusSeconds(10)), times);
+    }
+
+    @Test
+    void pointsWithoutLastSeenTimeStayAtCrawlTime() {
+        List<LocalDateTime> times = row(START, null, 3).expand().map(AsinPriceRankDTO::getCrawlTime).toList();
+        assertEquals(List.of(START, START, START), times);
+    }
+
+    @Test
+    void observationTimeMatchesExpand() {
+        AsinPriceRankDTO row = row(START, START.plusHours(1), 7);
+        List<AsinPriceRankDTO> points = row.expand().toList();
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(points.get(i).getCrawlTime(),
+                    AsinPriceRankDTO.observationTime(START, START.plusHours(1), 7, i));
+        }
+    }
+
+    private static AsinPriceRankDTO row(LocalDateTime crawlTime, LocalDateTime lastSeenTime, int seenCount) {
+        AsinPriceRankDTO row = new AsinPriceRankDTO();
+        row.setAsin("A1");
+        row.setNonMemberFinalPrice(100.0);
+        row.setCrawlTime(crawlTime);
+        row.setLastSeenTime(lastSeenTime);
+        row.setSeenCount(seenCount);
+        return row;
+    }
+}
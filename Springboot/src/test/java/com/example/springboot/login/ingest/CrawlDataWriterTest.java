@@ -0,0 +1,161 @@
+package com.example.springboot.login.ingest;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import com.example.springboot.login.event.CrawlDataChangedEvent;
+import com.example.springboot.login.repository.PriceRollupStateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// 批量写入：评论按数据库实际新增的行数计数，并发写入导致的冲突行不计数、不发布事件、不放入过滤器；
+// 仅记录变化时延长的行记录增量并递增数据版本，已有行不存在时改为新增一行
+class CrawlDataWriterTest {
+
+    private static final Long TASK_ID = 1L;
+
+    private JdbcTemplate jdbcTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private ReviewDedupFilter reviewDedupFilter;
+    private PriceChangeDetector priceChangeDetector;
+    private PriceRollupStateRepository rollupStateRepository;
+    private CrawlDataWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        reviewDedupFilter = mock(ReviewDedupFilter.class);
+        priceChangeDetector = mock(PriceChangeDetector.class);
+        rollupStateRepository = mock(PriceRollupStateRepository.class);
+        writer = new CrawlDataWriter();
+        ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(writer, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(writer, "reviewDedupFilter", reviewDedupFilter);
+        ReflectionTestUtils.setField(writer, "priceChangeDetector", priceChangeDetector);
+        ReflectionTestUtils.setField(writer, "rollupStateRepository", rollupStateRepository);
+        ReflectionTestUtils.setField(writer, "batchSize", 2);
+    }
+
+    @Test
+    void countsRowsInsertedByDatabase() {
+        List<AsinReviewDTO> rows = List.of(review("R1"), review("R2"), review("R3"));
+        when(reviewDedupFilter.filterNew(TASK_ID, rows)).thenReturn(rows);
+        // 第一批两行都新增，第二批的一行已被并发写入
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(2, 0);
+
+        assertEquals(2, writer.insertReviews(TASK_ID, rows));
+
+        verify(reviewDedupFilter).record(TASK_ID, rows.subList(0, 2));
+        verify(reviewDedupFilter).forget(TASK_ID, rows.subList(2, 3));
+        verify(eventPublisher).publishEvent(any(CrawlDataChangedEvent.class));
+    }
+
+    @Test
+    void duplicatesOnlyPublishNothing() {
+        List<AsinReviewDTO> rows = List.of(review("R1"));
+        when(reviewDedupFilter.filterNew(TASK_ID, rows)).thenReturn(rows);
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(0);
+
+        assertEquals(0, writer.insertReviews(TASK_ID, rows));
+
+        verify(reviewDedupFilter, never()).record(eq(TASK_ID), anyList());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordsExtensionsAndReinsertsMissingRows() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        PriceChangeDetector.Extension extended = extension("A1", start, 2);
+        PriceChangeDetector.Extension missing = extension("A2", start, 3);
+        AsinPriceRankDTO changed = price("A3", start.plusHours(1));
+        PriceChangeDetector.Plan plan = new PriceChangeDetector.Plan(List.of(changed),
+                List.of(extended, missing), new HashSet<>());
+        List<AsinPriceRankDTO> rows = List.of(changed, price("A1", start.plusHours(1)),
+                price("A1", start.plusHours(2)), price("A2", start.plusHours(1)),
+                price("A2", start.plusHours(2)), price("A2", start.plusHours(3)));
+        when(priceChangeDetector.isEnabled()).thenReturn(true);
+        when(priceChangeDetector.plan(TASK_ID, rows)).thenReturn(plan);
+        // A2 的已有行已被删除，延长时更新0行
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE asin_price_rank"), anyList(), anyInt(), any()))
+                .thenReturn(new int[][]{{1, 0}});
+
+        assertEquals(6, writer.insertPriceRanks(TASK_ID, rows));
+
+        // 数据版本在延长已有行之前递增（与日汇总维护相同，先锁状态行再锁价格行）
+        InOrder order = inOrder(rollupStateRepository, jdbcTemplate);
+        order.verify(rollupStateRepository).insertIfAbsent(TASK_ID);
+        order.verify(rollupStateRepository).incrementDataVersion(TASK_ID);
+        order.verify(jdbcTemplate).batchUpdate(startsWith("UPDATE asin_price_rank"), anyList(), anyInt(), any());
+        ArgumentCaptor<List<PriceChangeDetector.Extension>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO price_rank_extension"), recorded.capture(),
+                eq(2), any());
+        assertEquals(List.of(extended), recorded.getValue());
+
+        ArgumentCaptor<List<AsinPriceRankDTO>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO asin_price_rank"), inserted.capture(),
+                eq(2), any());
+        assertEquals(List.of(changed, missing.toRow()), inserted.getValue());
+        assertEquals(3, inserted.getValue().get(1).getSeenCount());
+        // 提交后不保存 A2 的状态，下次从数据库重新读取
+        assertEquals(new HashSet<>(List.of("A2")), plan.reload());
+        verify(eventPublisher).publishEvent(any(CrawlDataChangedEvent.class));
+    }
+
+    @Test
+    void changeOnlyBatchWithoutExtensionsKeepsDataVersion() {
+        AsinPriceRankDTO row = price("A1", LocalDateTime.of(2024, 1, 1, 10, 0));
+        when(priceChangeDetector.isEnabled()).thenReturn(true);
+        when(priceChangeDetector.plan(TASK_ID, List.of(row))).thenReturn(
+                new PriceChangeDetector.Plan(new ArrayList<>(List.of(row)), List.of(), new HashSet<>()));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any())).thenReturn(new int[0][]);
+
+        assertEquals(1, writer.insertPriceRanks(TASK_ID, List.of(row)));
+
+        verify(rollupStateRepository, never()).incrementDataVersion(any());
+    }
+
+    private static PriceChangeDetector.Extension extension(String asin, LocalDateTime start, int count) {
+        return new PriceChangeDetector.Extension(asin, start, start.plusHours(1), start.plusHours(count),
+                count, price(asin, start));
+    }
+
+    private static AsinPriceRankDTO price(String asin, LocalDateTime crawlTime) {
+        AsinPriceRankDTO row = new AsinPriceRankDTO();
+        row.setAsin(asin);
+        row.setNonMemberFinalPrice(100.0);
+        row.setCrawlTime(crawlTime);
+        return row;
+    }
+
+    private static AsinReviewDTO review(String reviewId) {
+        AsinReviewDTO row = new AsinReviewDTO();
+        row.setAsin("A1");
+        row.setReviewId(reviewId);
+        row.setCrawlTime(LocalDateTime.of(2024, 1, 1, 0, 0));
+        return row;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.springboot.login.ingest;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// 仅记录变化：一批观测拆分为新增行和延长已有行，行不跨天，乱序数据新增行且不影响状态；
+// 本批状态在事务提交后才保存，回滚或需要重新读取时不保存。数据库中没有已有行（查询不返回结果）
+class PriceChangeDetectorTest {
+
+    private static final Long TASK_ID = 1L;
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private PriceChangeDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        detector = new PriceChangeDetector();
+        ReflectionTestUtils.setField(detector, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(detector, "enabled", true);
+        ReflectionTestUtils.setField(detector, "maxEntries", 100);
+    }
+
+    @Test
+    void splitsBatchIntoRuns() {
+        PriceChangeDetector.Plan plan = detector.plan(TASK_ID, List.of(
+                row(DAY.plusHours(10), 100.0), row(DAY.plusHours(11), 100.0),
+                row(DAY.plusHours(12), 110.0), row(DAY.plusHours(13), 110.0), row(DAY.plusHours(14), 110.0)));
+
+        assertEquals(2, plan.inserts().size());
+        assertRun(plan.inserts().get(0), DAY.plusHours(10), DAY.plusHours(11), 2);
+        assertRun(plan.inserts().get(1), DAY.plusHours(12), DAY.plusHours(14), 3);
+        assertTrue(plan.extensions().isEmpty());
+
+        // 下一批相同的观测延长上一批最后一行，只记一次延长
+        plan = detector.plan(TASK_ID, List.of(row(DAY.plusHours(15), 110.0), row(DAY.plusHours(16), 110.0)));
+        assertTrue(plan.inserts().isEmpty());
+        assertEquals(List.of(new PriceChangeDetector.Extension("A1", DAY.plusHours(12), DAY.plusHours(15),
+                DAY.plusHours(16), 2, plan.extensions().get(0).values())), plan.extensions());
+        // 已有状态只读取一次
+        verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void cutsRunAtDayBoundary() {
+        PriceChangeDetector.Plan plan = detector.plan(TASK_ID, List.of(
+                row(DAY.plusHours(23).plusMinutes(50), 100.0), row(DAY.plusDays(1), 100.0)));
+
+        assertEquals(2, plan.inserts().size());
+        assertRun(plan.inserts().get(0), DAY.plusHours(23).plusMinutes(50), null, 1);
+        assertRun(plan.inserts().get(1), DAY.plusDays(1), null, 1);
+
+        // 跨天后延长的是新一天的行
+        plan = detector.plan(TASK_ID, List.of(row(DAY.plusDays(1).plusHours(1), 100.0)));
+        assertEquals(DAY.plusDays(1), plan.extensions().get(0).start());
+    }
+
+    @Test
+    void outOfOrderRowsAreInsertedWithoutMovingRun() {
+        // 同一批内按爬取时间排序后再合并
+        PriceChangeDetector.Plan plan = detector.plan(TASK_ID, List.of(
+                row(DAY.plusHours(12), 100.0), row(DAY.plusHours(10), 100.0)));
+        assertEquals(1, plan.inserts().size());
+        assertRun(plan.inserts().get(0), DAY.plusHours(10), DAY.plusHours(12), 2);
+
+        // 早于最后观测时间的数据即使取值相同也新增一行
+        plan = detector.plan(TASK_ID, List.of(row(DAY.plusHours(11), 100.0)));
+        assertEquals(1, plan.inserts().size());
+        assertRun(plan.inserts().get(0), DAY.plusHours(11), null, 1);
+        assertTrue(plan.extensions().isEmpty());
+
+        // 状态仍是原来的行
+        plan = detector.plan(TASK_ID, List.of(row(DAY.plusHours(13), 100.0)));
+        assertEquals(DAY.plusHours(10), plan.extensions().get(0).start());
+        assertEquals(DAY.plusHours(13), plan.extensions().get(0).lastSeen());
+    }
+
+    @Test
+    void publishesStateAfterCommit() {
+        inTransaction(detector -> detector.plan(TASK_ID, List.of(row(DAY.plusHours(10), 100.0))),
+                TransactionSynchronization::afterCommit);
+
+        PriceChangeDetector.Plan plan = detector.plan(TASK_ID, List.of(row(DAY.plusHours(11), 100.0)));
+        assertTrue(plan.inserts().isEmpty());
+        assertEquals(DAY.plusHours(10), plan.extensions().get(0).start());
+    }
+
+    @Test
+    void discardsStateOnRollback() {
+        inTransaction(detector -> detector.plan(TASK_ID, List.of(row(DAY.plusHours(10), 100.0))),
+                sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        PriceChangeDetector.Plan plan = detector.plan(TASK_ID, List.of(row(DAY.plusHours(11), 100.0)));
+        assertEquals(1, plan.inserts().size());
+        assertTrue(plan.extensions().isEmpty());
+        // 回滚的批次没有留下状态，第二批重新从数据库读取
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void reloadedAsinIsReadAgain() {
+        inTransaction(detector -> {
+            PriceChangeDetector.Plan plan = detector.plan(TASK_ID, List.of(row(DAY.plusHours(10), 100.0)));
+            // 写入方发现延长的行不存在
+            plan.reload().add("A1");
+        }, TransactionSynchronization::afterCommit);
+
+        detector.plan(TASK_ID, List.of(row(DAY.plusHours(11), 100.0)));
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    // 在事务同步中执行计划，再以 completion 模拟提交或回滚
+    private void inTransaction(Consumer<PriceChangeDetector> work, Consumer<TransactionSynchronization> completion) {
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> synchronizations;
+        try {
+            work.accept(detector);
+            synchronizations = new ArrayList<>(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(1, synchronizations.size());
+        synchronizations.forEach(completion);
+    }
+
+    private static void assertRun(AsinPriceRankDTO row, LocalDateTime crawlTime, LocalDateTime lastSeenTime,
+                                  int seenCount) {
+        assertEquals(crawlTime, row.getCrawlTime());
+        assertEquals(lastSeenTime, row.getLastSeenTime());
+        assertEquals(seenCount, row.getSeenCount());
+    }
+
+    private static AsinPriceRankDTO row(LocalDateTime crawlTime, double price) {
+        AsinPriceRankDTO row = new AsinPriceRankDTO();
+        row.setAsin("A1");
+        row.setNonMemberFinalPrice(price);
+        row.setSubCategoryRank(10);
+        row.setCrawlTime(crawlTime);
+        return row;
+    }
+}
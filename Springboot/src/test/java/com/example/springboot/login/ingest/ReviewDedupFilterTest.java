@@ -0,0 +1,114 @@
+package com.example.springboot.login.ingest;
+
+import com.example.springboot.login.dto.AsinReviewDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// 评论去重：批内重复只保留第一条，数据库中已有的去掉，过滤器判定可能存在时用唯一键查询确认；
+// 数据库由内存中的 (asin, reviewId) 集合模拟
+class ReviewDedupFilterTest {
+
+    private static final Long TASK_ID = 1L;
+
+    private final Set<String> stored = new HashSet<>();
+
+    private JdbcTemplate jdbcTemplate;
+    private ReviewDedupFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(TASK_ID), anyString()))
+                .thenAnswer(invocation -> {
+                    String asin = invocation.getArgument(3);
+                    List<String> ids = new ArrayList<>();
+                    for (String key : stored) {
+                        if (key.startsWith(asin + "|")) {
+                            ids.add(key.substring(asin.length() + 1));
+                        }
+                    }
+                    return ids;
+                });
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            // 查询参数依次为 taskId, asin1, reviewId1, asin2, reviewId2 ...
+            Object[] args = (Object[]) invocation.getRawArguments()[2];
+            for (int i = 1; i < args.length; i += 2) {
+                if (stored.contains(args[i] + "|" + args[i + 1])) {
+                    ResultSet rs = mock(ResultSet.class);
+                    when(rs.getString(1)).thenReturn((String) args[i]);
+                    when(rs.getString(2)).thenReturn((String) args[i + 1]);
+                    handler.processRow(rs);
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        filter = new ReviewDedupFilter();
+        ReflectionTestUtils.setField(filter, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(filter, "maxFilters", 100);
+        ReflectionTestUtils.setField(filter, "minCapacity", 1000);
+        ReflectionTestUtils.setField(filter, "fpp", 0.01);
+    }
+
+    @Test
+    void dropsStoredAndRepeatedReviews() {
+        stored.add("A1|R1");
+        List<AsinReviewDTO> rows = List.of(review("A1", "R1"), review("A1", "R2"), review("A1", "R2"),
+                review("A1", null), review("A1", null), review("A2", "R1"));
+
+        List<AsinReviewDTO> fresh = filter.filterNew(TASK_ID, rows);
+
+        assertEquals(List.of(rows.get(1), rows.get(3), rows.get(4), rows.get(5)), fresh);
+    }
+
+    @Test
+    void recordedReviewsAreConfirmedAgainstDatabase() {
+        filter.filterNew(TASK_ID, List.of(review("A1", "R1")));
+        filter.record(TASK_ID, List.of(review("A1", "R1")));
+
+        // 过滤器判定可能存在，数据库中没有（写入事务已回滚）时仍然写入
+        assertEquals(1, filter.filterNew(TASK_ID, List.of(review("A1", "R1"))).size());
+        stored.add("A1|R1");
+        assertEquals(0, filter.filterNew(TASK_ID, List.of(review("A1", "R1"))).size());
+        // 每个ASIN只加载一次
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(String.class), eq(TASK_ID), eq("A1"));
+    }
+
+    @Test
+    void forgottenFilterIsReloaded() {
+        filter.filterNew(TASK_ID, List.of(review("A1", "R1")));
+        // 其他批次写入了 R1，但本实例的过滤器不知道
+        stored.add("A1|R1");
+        filter.forget(TASK_ID, List.of(review("A1", "R9")));
+
+        assertEquals(0, filter.filterNew(TASK_ID, List.of(review("A1", "R1"))).size());
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(String.class), eq(TASK_ID), eq("A1"));
+    }
+
+    private static AsinReviewDTO review(String asin, String reviewId) {
+        AsinReviewDTO row = new AsinReviewDTO();
+        row.setAsin(asin);
+        row.setReviewId(reviewId);
+        return row;
+    }
+}
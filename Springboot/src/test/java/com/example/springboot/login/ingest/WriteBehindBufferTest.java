@@ -0,0 +1,189 @@
+package com.example.springboot.login.ingest;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.repository.CrawlerTaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// 写缓冲：临时性错误退避重试，非临时性错误直接逐条写入，逐条写入失败的记录转存；
+// 启动补写日志时每批提交后推进水位。数据库写入由 CrawlDataWriter 的模拟代替，事务管理器为空实现
+class WriteBehindBufferTest {
+
+    private static final Long TASK_ID = 1L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path dir;
+
+    // 每次调用 insertPriceRanks 写入的 ASIN
+    private final List<List<String>> calls = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> written = Collections.synchronizedList(new ArrayList<>());
+
+    private CrawlDataWriter crawlDataWriter;
+    private WriteBehindBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        crawlDataWriter = mock(CrawlDataWriter.class);
+        CrawlerTaskRepository crawlerTaskRepository = mock(CrawlerTaskRepository.class);
+        when(crawlerTaskRepository.findExistingIds(any())).thenReturn(List.of(TASK_ID));
+
+        buffer = new WriteBehindBuffer();
+        ReflectionTestUtils.setField(buffer, "crawlDataWriter", crawlDataWriter);
+        ReflectionTestUtils.setField(buffer, "crawlerTaskRepository", crawlerTaskRepository);
+        ReflectionTestUtils.setField(buffer, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(buffer, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(buffer, "capacity", 16);
+        // 攒够3条写入一次，不按时间触发
+        ReflectionTestUtils.setField(buffer, "flushSize", 3);
+        ReflectionTestUtils.setField(buffer, "flushInterval", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(buffer, "publishTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(buffer, "shutdownTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(buffer, "journalDir", dir.resolve("journal").toString());
+        ReflectionTestUtils.setField(buffer, "journalSegmentSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(buffer, "maxRetries", 2);
+        ReflectionTestUtils.setField(buffer, "retryBackoff", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(buffer, "deadLetterDir", dir.resolve("dead-letter").toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.stop();
+    }
+
+    @Test
+    void retriesTransientFailure() throws Exception {
+        failWhen(asins -> calls.size() == 1 ? new QueryTimeoutException("超时") : null);
+        buffer.start();
+        buffer.publish(WriteBehindJournalTest.records("A0", "A1", "A2"));
+        awaitFlushed();
+
+        assertEquals(List.of(List.of("A0", "A1", "A2"), List.of("A0", "A1", "A2")), calls);
+        assertEquals(List.of("A0", "A1", "A2"), written);
+        assertTrue(deadLetters().isEmpty());
+    }
+
+    @Test
+    void isolatesRecordsWithoutRetryOnConstraintViolation() throws Exception {
+        failWhen(asins -> asins.contains("BAD") ? new DataIntegrityViolationException("约束冲突") : null);
+        buffer.start();
+        buffer.publish(WriteBehindJournalTest.records("A0", "BAD", "A2"));
+        awaitFlushed();
+
+        // 整批失败一次后立即逐条写入
+        assertEquals(List.of(List.of("A0", "BAD", "A2"), List.of("A0"), List.of("BAD"), List.of("A2")), calls);
+        assertEquals(List.of("A0", "A2"), written);
+        List<String> deadLetters = deadLetters();
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.get(0).contains("\"BAD\""));
+    }
+
+    @Test
+    void deadLettersAfterRetriesExhausted() throws Exception {
+        failWhen(asins -> new QueryTimeoutException("超时"));
+        buffer.start();
+        buffer.publish(WriteBehindJournalTest.records("A0", "A1", "A2"));
+        awaitFlushed();
+
+        // 首次写入加2次重试，之后逐条写入
+        assertEquals(6, calls.size());
+        assertEquals(3, deadLetters().size());
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    @Test
+    void replayAdvancesWatermarkPerBatch() throws Exception {
+        Path journalDir = dir.resolve("journal");
+        WriteBehindJournal journal = new WriteBehindJournal(journalDir, 1 << 20, objectMapper);
+        journal.recover();
+        journal.reset();
+        journal.append(0, WriteBehindJournalTest.records("A0", "A1", "A2", "A3", "A4", "BAD"));
+        journal.markFlushed(0);
+        journal.close();
+
+        ReflectionTestUtils.setField(buffer, "journalEnabled", true);
+        ReflectionTestUtils.setField(buffer, "flushSize", 2);
+        failWhen(asins -> asins.contains("BAD") ? new DataIntegrityViolationException("约束冲突") : null);
+        assertThrows(DataIntegrityViolationException.class, buffer::start);
+        assertEquals(List.of("A1", "A2", "A3", "A4"), written);
+
+        // 已提交的两批不再补写，下次启动只补写失败的一批
+        List<WriteBehindJournal.Entry> left = new WriteBehindJournal(journalDir, 1 << 20, objectMapper).recover();
+        assertEquals(List.of(5L), left.stream().map(WriteBehindJournal.Entry::seq).toList());
+
+        ((WriteBehindJournal) ReflectionTestUtils.getField(buffer, "journal")).close();
+        written.clear();
+        failWhen(asins -> null);
+        buffer.start();
+        assertEquals(List.of("BAD"), written);
+        assertTrue(new WriteBehindJournal(journalDir, 1 << 20, objectMapper).recover().isEmpty());
+    }
+
+    // 写入的 ASIN 满足条件时抛出异常，否则记为已写入
+    private void failWhen(Function<List<String>, RuntimeException> failure) {
+        when(crawlDataWriter.insertPriceRanks(anyLong(), anyList())).thenAnswer(invocation -> {
+            List<AsinPriceRankDTO> rows = invocation.getArgument(1);
+            List<String> asins = rows.stream().map(AsinPriceRankDTO::getAsin).toList();
+            calls.add(asins);
+            RuntimeException e = failure.apply(asins);
+            if (e != null) {
+                throw e;
+            }
+            written.addAll(asins);
+            return rows.size();
+        });
+    }
+
+    private void awaitFlushed() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (buffer.getPendingCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    private List<String> deadLetters() throws IOException {
+        Path deadLetterDir = dir.resolve("dead-letter");
+        List<String> lines = new ArrayList<>();
+        if (!Files.exists(deadLetterDir)) {
+            return lines;
+        }
+        try (var files = Files.list(deadLetterDir)) {
+            for (Path file : files.toList()) {
+                lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+            }
+        }
+        assertFalse(lines.stream().anyMatch(String::isBlank));
+        return lines;
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.springboot.login.ingest;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// 写缓冲日志：按水位恢复未写入的记录，删除已写入的分段，追加失败时截断写了一半的内容
+class WriteBehindJournalTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recoversEntriesAboveWatermark() throws IOException {
+        WriteBehindJournal journal = open(1 << 20);
+        journal.append(0, records("A0", "A1", "A2"));
+        journal.append(3, records("A3", "A4"));
+        journal.markFlushed(2);
+        journal.close();
+
+        List<WriteBehindJournal.Entry> entries = new WriteBehindJournal(dir, 1 << 20, objectMapper).recover();
+        assertEquals(List.of(3L, 4L), entries.stream().map(WriteBehindJournal.Entry::seq).toList());
+        assertEquals("A3", entries.get(0).record().priceRank().getAsin());
+    }
+
+    @Test
+    void deletesSegmentsOnceFlushed() throws IOException {
+        // 每次追加后分段都已写满
+        WriteBehindJournal journal = open(1);
+        journal.append(0, records("A0"));
+        journal.append(1, records("A1"));
+        journal.append(2, records("A2"));
+        assertEquals(4, segmentCount());
+
+        journal.markFlushed(1);
+        assertEquals(2, segmentCount());
+        journal.close();
+    }
+
+    @Test
+    void ignoresHalfWrittenLine() throws IOException {
+        WriteBehindJournal journal = open(1 << 20);
+        journal.append(0, records("A0"));
+        journal.close();
+        Files.writeString(dir.resolve("journal-000001.log"), "{\"seq\":1,\"taskId\":1,\"pri",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        List<WriteBehindJournal.Entry> entries = new WriteBehindJournal(dir, 1 << 20, objectMapper).recover();
+        assertEquals(List.of(0L), entries.stream().map(WriteBehindJournal.Entry::seq).toList());
+    }
+
+    @Test
+    void truncatesFailedAppend() throws IOException {
+        List<FailingChannel> channels = new ArrayList<>();
+        WriteBehindJournal journal = new WriteBehindJournal(dir, 1 << 20, objectMapper) {
+            @Override
+            FileChannel openChannel(Path file) throws IOException {
+                FailingChannel channel = new FailingChannel(super.openChannel(file));
+                channels.add(channel);
+                return channel;
+            }
+        };
+        journal.recover();
+        journal.reset();
+        journal.append(0, records("A0"));
+        long size = Files.size(dir.resolve("journal-000001.log"));
+
+        channels.get(0).failNextWrite = true;
+        assertThrows(IOException.class, () -> journal.append(1, records("A1", "A2")));
+        assertEquals(size, Files.size(dir.resolve("journal-000001.log")));
+
+        // 失败的记录没有确认，之后的记录从新的序号继续，恢复时不会读到写了一半的行
+        journal.append(3, records("A3"));
+        journal.close();
+        List<WriteBehindJournal.Entry> entries = new WriteBehindJournal(dir, 1 << 20, objectMapper).recover();
+        assertEquals(List.of(0L, 3L), entries.stream().map(WriteBehindJournal.Entry::seq).toList());
+    }
+
+    private WriteBehindJournal open(long segmentSize) throws IOException {
+        WriteBehindJournal journal = new WriteBehindJournal(dir, segmentSize, objectMapper);
+        journal.recover();
+        journal.reset();
+        return journal;
+    }
+
+    private long segmentCount() throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("journal-")).count();
+        }
+    }
+
+    static List<CrawlRecord> records(String... asins) {
+        List<CrawlRecord> records = new ArrayList<>();
+        for (String asin : asins) {
+            AsinPriceRankDTO row = new AsinPriceRankDTO();
+            row.setAsin(asin);
+            records.add(CrawlRecord.of(1L, row));
+        }
+        return records;
+    }
+
+    // 写入一半后抛出异常的通道，模拟磁盘写满
+    private static final class FailingChannel extends FileChannel {
+
+        private final FileChannel delegate;
+        private boolean failNextWrite;
+
+        FailingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (failNextWrite) {
+                failNextWrite = false;
+                ByteBuffer half = src.duplicate();
+                half.limit(src.position() + src.remaining() / 2);
+                int written = delegate.write(half);
+                src.position(src.position() + written);
+                throw new IOException("磁盘已满");
+            }
+            return delegate.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
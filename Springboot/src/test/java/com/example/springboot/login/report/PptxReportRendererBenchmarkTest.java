@@ -0,0 +1,154 @@
+package com.example.springboot.login.report;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 报告生成耗时对比：进程内按汇总页填充 vs 写分析底表后调用 ppt_renew_info.py。
+// 默认不执行，运行方式：mvn test -Dgroups=benchmark -DexcludedGroups=
+// Python 方式需要 Windows + PowerPoint + pywin32，不满足时只测量写底表文件、启动解释器和读取底表的耗时（脚本方式的下限）
+@Tag("benchmark")
+class PptxReportRendererBenchmarkTest {
+
+    private static final int ASIN_COUNT = 50;
+    private static final int SAMPLES_PER_ASIN = 200;
+    private static final int REVIEW_COUNT = 5_000;
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 10;
+
+    private static final String PYTHON = System.getProperty("benchmark.python", "python");
+    private static final Path SCRIPT_DIR = Paths.get(System.getProperty("benchmark.script-dir", ".."));
+
+    @TempDir
+    Path tempDir;
+
+    private Path pptTemplate;
+    private Path excelTemplate;
+    private List<AsinPriceRankDTO> priceRanks;
+    private List<AsinReviewDTO> reviews;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pptTemplate = tempDir.resolve("template.pptx");
+        excelTemplate = tempDir.resolve("template.xlsx");
+        ReportTemplates.writePptx(pptTemplate);
+        try (XSSFWorkbook workbook = ReportTemplates.createWorkbook();
+             OutputStream out = Files.newOutputStream(excelTemplate)) {
+            workbook.write(out);
+        }
+        priceRanks = ReportTemplates.priceRanks(ASIN_COUNT, SAMPLES_PER_ASIN);
+        reviews = ReportTemplates.reviews(REVIEW_COUNT);
+    }
+
+    @Test
+    void javaRenderer() throws Exception {
+        double millis = measure(this::renderInProcess);
+        System.out.printf("java renderer: %.1f ms/报告（%d 条价格数据，%d 条评论）%n",
+                millis, priceRanks.size(), reviews.size());
+    }
+
+    @Test
+    void scriptRenderer() throws Exception {
+        Assumptions.assumeTrue(pythonAvailable(), "未找到 Python: " + PYTHON);
+        boolean powerPoint = run(PYTHON, "-c", "import win32com.client") == 0
+                && Files.exists(SCRIPT_DIR.resolve("ppt_renew_info.py"));
+
+        double millis = measure(() -> renderWithScript(powerPoint));
+        System.out.printf("script renderer%s: %.1f ms/报告（%d 条价格数据，%d 条评论）%n",
+                powerPoint ? "" : "（下限：不含更新PPT）", millis, priceRanks.size(), reviews.size());
+    }
+
+    private void renderInProcess() throws IOException {
+        SummarySheet summary;
+        try (InputStream in = Files.newInputStream(excelTemplate);
+             Workbook workbook = WorkbookFactory.create(in)) {
+            fill(workbook);
+            summary = SummarySheet.read(workbook);
+        }
+        new PptxReportRenderer().render(pptTemplate, summary, new ByteArrayOutputStream());
+    }
+
+    private void renderWithScript(boolean powerPoint) throws IOException, InterruptedException {
+        Path excel = Files.createTempFile(tempDir, "analysis-", ".xlsx");
+        Path ppt = Files.createTempFile(tempDir, "report-", ".pptx");
+        try {
+            Files.copy(pptTemplate, ppt, StandardCopyOption.REPLACE_EXISTING);
+            try (InputStream in = Files.newInputStream(excelTemplate);
+                 Workbook workbook = WorkbookFactory.create(in)) {
+                fill(workbook);
+                try (OutputStream out = Files.newOutputStream(excel)) {
+                    workbook.write(out);
+                }
+            }
+            int exitCode = powerPoint
+                    ? run(PYTHON, "-c", "import sys; sys.path.insert(0, sys.argv[1]); "
+                            + "from ppt_renew_info import update_ppt_from_excel; "
+                            + "update_ppt_from_excel(sys.argv[2], sys.argv[3])",
+                    SCRIPT_DIR.toAbsolutePath().toString(), ppt.toAbsolutePath().toString(),
+                    excel.toAbsolutePath().toString())
+                    : run(PYTHON, "-c", "import sys\ntry:\n    from openpyxl import load_workbook\n"
+                            + "    load_workbook(sys.argv[1], data_only=True)\nexcept ImportError:\n    pass",
+                    excel.toAbsolutePath().toString());
+            if (exitCode != 0) {
+                throw new IllegalStateException("Python 执行失败，退出码: " + exitCode);
+            }
+        } finally {
+            Files.deleteIfExists(excel);
+            Files.deleteIfExists(ppt);
+        }
+    }
+
+    private void fill(Workbook workbook) {
+        AnalysisWorkbook.fillPriceSheet(workbook, priceRanks.iterator(), workbook.createCellStyle());
+        AnalysisWorkbook.fillReviewSheet(workbook, reviews.iterator(), workbook.createCellStyle());
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private static double measure(Task task) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            task.run();
+        }
+        return (double) TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) / 1000 / ITERATIONS;
+    }
+
+    private static boolean pythonAvailable() {
+        try {
+            return run(PYTHON, "--version") == 0;
+        } catch (IOException | InterruptedException e) {
+            return false;
+        }
+    }
+
+    private static int run(String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        return process.waitFor();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.springboot.login.report;
+
+import org.apache.poi.xddf.usermodel.chart.XDDFChartData;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFChart;
+import org.apache.poi.xslf.usermodel.XSLFGraphicFrame;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// 按汇总页填充的结果与 ppt_renew_info.py 的规则一致
+class PptxReportRendererTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path template;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        template = tempDir.resolve("template.pptx");
+        ReportTemplates.writePptx(template);
+    }
+
+    @Test
+    void readsSummarySheetAfterFillingDataSheets() throws IOException {
+        SummarySheet summary = summary(3);
+
+        assertEquals("共3条价格数据", summary.get(1, ReportTemplates.TEXT_SHAPE).get(0).content());
+        assertEquals(3, summary.get(1, ReportTemplates.TABLE_SHAPE).size());
+        assertEquals("B000000000", summary.get(1, ReportTemplates.TABLE_SHAPE).get(1).data()[0]);
+        // 整数不带小数部分
+        assertEquals("100", summary.get(1, ReportTemplates.TABLE_SHAPE).get(1).data()[3]);
+        assertEquals("", summary.get(1, ReportTemplates.CHART_SHAPE).get(0).data()[0]);
+        assertNull(summary.get(2, ReportTemplates.TEXT_SHAPE));
+    }
+
+    @Test
+    void fillsTextTableAndChartFromSummarySheet() throws Exception {
+        try (XMLSlideShow ppt = render(summary(3))) {
+            XSLFTextShape text = (XSLFTextShape) shape(ppt, ReportTemplates.TEXT_SHAPE);
+            assertEquals("共3条价格数据", text.getText());
+
+            XSLFTable table = (XSLFTable) shape(ppt, ReportTemplates.TABLE_SHAPE);
+            assertEquals("ASIN", table.getCell(0, 0).getText());
+            assertEquals("B000000000", table.getCell(1, 0).getText());
+            assertEquals("10", table.getCell(1, 2).getText());
+            assertEquals("B000000001", table.getCell(2, 0).getText());
+            assertEquals("11", table.getCell(2, 2).getText());
+
+            XSLFChart chart = ((XSLFGraphicFrame) shape(ppt, ReportTemplates.CHART_SHAPE)).getChart();
+            XDDFChartData.Series series = chart.getChartSeries().get(0).getSeries(0);
+            assertEquals("B000000000", series.getCategoryData().getPointAt(0));
+            assertEquals("B000000001", series.getCategoryData().getPointAt(1));
+            assertEquals(10.0, series.getValuesData().getPointAt(0).doubleValue());
+            assertEquals(11.0, series.getValuesData().getPointAt(1).doubleValue());
+            // 图表内嵌工作簿同步更新（在PowerPoint中"编辑数据"时可见）
+            XSSFWorkbook embedded = chart.getWorkbook();
+            assertEquals("原价", embedded.getSheetAt(0).getRow(0).getCell(1).getStringCellValue());
+            assertEquals(11.0, embedded.getSheetAt(0).getRow(2).getCell(1).getNumericCellValue());
+        }
+    }
+
+    @Test
+    void writesReferencedBlankCellsAsZero() throws IOException {
+        // 只有一个ASIN时第3行引用空单元格，与Excel计算结果（脚本读取的缓存值）一致为0
+        try (XMLSlideShow ppt = render(summary(1))) {
+            XSLFTable table = (XSLFTable) shape(ppt, ReportTemplates.TABLE_SHAPE);
+            assertEquals(3, table.getNumberOfRows());
+            assertEquals("B000000000", table.getCell(1, 0).getText());
+            assertEquals("0", table.getCell(2, 0).getText());
+        }
+    }
+
+    private SummarySheet summary(int asinCount) throws IOException {
+        try (XSSFWorkbook workbook = ReportTemplates.createWorkbook()) {
+            AnalysisWorkbook.fillPriceSheet(workbook, ReportTemplates.priceRanks(asinCount, 1).iterator(),
+                    workbook.createCellStyle());
+            AnalysisWorkbook.fillReviewSheet(workbook, ReportTemplates.reviews(10).iterator(),
+                    workbook.createCellStyle());
+            return SummarySheet.read(workbook);
+        }
+    }
+
+    private XMLSlideShow render(SummarySheet summary) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PptxReportRenderer().render(template, summary, out);
+        return new XMLSlideShow(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static XSLFShape shape(XMLSlideShow ppt, String name) {
+        XSLFShape found = ppt.getSlides().get(0).getShapes().stream()
+                .filter(shape -> name.equals(shape.getShapeName()))
+                .findFirst()
+                .orElse(null);
+        assertNotNull(found, name);
+        return found;
+    }
+}
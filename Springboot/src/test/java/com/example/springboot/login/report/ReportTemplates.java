@@ -0,0 +1,163 @@
+package com.example.springboot.login.report;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.dto.AsinReviewDTO;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xddf.usermodel.chart.AxisPosition;
+import org.apache.poi.xddf.usermodel.chart.ChartTypes;
+import org.apache.poi.xddf.usermodel.chart.XDDFBarChartData;
+import org.apache.poi.xddf.usermodel.chart.XDDFChartData;
+import org.apache.poi.xddf.usermodel.chart.XDDFDataSourcesFactory;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFChart;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTGraphicalObjectFrame;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTShape;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTSlide;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// 测试用的报告模板与分析底表：第1页包含文本框"概览"、3行4列表格"价格表"和柱形图"价格图"，
+// 底表汇总页的公式引用价格与排名数据页，与实际模板的组织方式相同
+final class ReportTemplates {
+
+    static final String TEXT_SHAPE = "概览";
+    static final String TABLE_SHAPE = "价格表";
+    static final String CHART_SHAPE = "价格图";
+
+    private ReportTemplates() {
+    }
+
+    static void writePptx(Path path) throws IOException {
+        try (XMLSlideShow ppt = new XMLSlideShow()) {
+            XSLFSlide slide = ppt.createSlide();
+
+            XSLFTextBox box = slide.createTextBox();
+            box.setAnchor(new Rectangle(20, 20, 400, 40));
+            box.setText("概览占位");
+            ((CTShape) box.getXmlObject()).getNvSpPr().getCNvPr().setName(TEXT_SHAPE);
+
+            XSLFTable table = slide.createTable(3, 4);
+            table.setAnchor(new Rectangle(20, 80, 400, 90));
+            for (int r = 0; r < 3; r++) {
+                for (int c = 0; c < 4; c++) {
+                    table.getCell(r, c).setText("-");
+                }
+            }
+            ((CTGraphicalObjectFrame) table.getXmlObject()).getNvGraphicFramePr().getCNvPr().setName(TABLE_SHAPE);
+
+            XSLFChart chart = ppt.createChart();
+            XDDFBarChartData data = (XDDFBarChartData) chart.createData(ChartTypes.BAR,
+                    chart.createCategoryAxis(AxisPosition.BOTTOM), chart.createValueAxis(AxisPosition.LEFT));
+            XDDFChartData.Series series = data.addSeries(
+                    XDDFDataSourcesFactory.fromArray(new String[]{"-", "-"},
+                            chart.formatRange(new CellRangeAddress(1, 2, 0, 0)), 0),
+                    XDDFDataSourcesFactory.fromArray(new Double[]{0.0, 0.0},
+                            chart.formatRange(new CellRangeAddress(1, 2, 1, 1)), 1));
+            series.setTitle("-", chart.setSheetTitle("-", 1));
+            chart.plot(data);
+            slide.addChart(chart, new Rectangle(20, 190, 400, 240));
+            // addChart 不会刷新 getShapes() 的缓存，直接修改XML中的形状名称
+            CTGraphicalObjectFrame[] frames = ((CTSlide) slide.getXmlObject()).getCSld().getSpTree().getGraphicFrameArray();
+            frames[frames.length - 1].getNvGraphicFramePr().getCNvPr().setName(CHART_SHAPE);
+
+            try (OutputStream out = Files.newOutputStream(path)) {
+                ppt.write(out);
+            }
+        }
+    }
+
+    // 汇总页：文本框为ASIN数，表格为表头+前两个ASIN的价格，图表为系列名称行+前两个ASIN的原价
+    static XSSFWorkbook createWorkbook() {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        Sheet summary = workbook.createSheet(SummarySheet.SHEET_NAME);
+        Object[] header = {"幻灯片编号", "形状类型", "形状名称", "文本内容", "数据1", "数据2", "数据3", "数据4"};
+        writeRow(summary, 0, header);
+        String price = "'" + AnalysisWorkbook.PRICE_SHEET_NAME + "'!";
+        writeRow(summary, 1, 1, "文本框", TEXT_SHAPE,
+                "=\"共\"&(COUNTA(" + price + "A:A)-1)&\"条价格数据\"", null, null, null, null);
+        writeRow(summary, 2, 1, "表格", TABLE_SHAPE, null, "ASIN", "品牌", "原价", "小类目排名");
+        writeRow(summary, 3, 1, "表格", TABLE_SHAPE, null,
+                "=" + price + "A2", "=" + price + "B2", "=" + price + "C2", "=" + price + "N2");
+        writeRow(summary, 4, 1, "表格", TABLE_SHAPE, null,
+                "=" + price + "A3", "=" + price + "B3", "=" + price + "C3", "=" + price + "N3");
+        writeRow(summary, 5, 1, "柱形图", CHART_SHAPE, null, null, "原价", null, null);
+        writeRow(summary, 6, 1, "柱形图", CHART_SHAPE, null, "=" + price + "A2", "=" + price + "C2", null, null);
+        writeRow(summary, 7, 1, "柱形图", CHART_SHAPE, null, "=" + price + "A3", "=" + price + "C3", null, null);
+        // 不存在的形状、编号为空的行忽略
+        writeRow(summary, 8, 1, "文本框", "不存在的形状", "忽略", null, null, null, null);
+        writeRow(summary, 9, null, "文本框", TEXT_SHAPE, "忽略", null, null, null, null);
+        workbook.createSheet(AnalysisWorkbook.PRICE_SHEET_NAME);
+        workbook.createSheet(AnalysisWorkbook.REVIEW_SHEET_NAME);
+        return workbook;
+    }
+
+    static List<AsinPriceRankDTO> priceRanks(int asinCount, int samplesPerAsin) {
+        List<AsinPriceRankDTO> rows = new ArrayList<>(asinCount * samplesPerAsin);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        long id = 1;
+        for (int i = 0; i < asinCount; i++) {
+            for (int j = 0; j < samplesPerAsin; j++) {
+                AsinPriceRankDTO dto = new AsinPriceRankDTO();
+                dto.setId(id++);
+                dto.setAsin(String.format("B%09d", i));
+                dto.setBrand("品牌" + (i % 5));
+                dto.setOriginalPrice(10.0 + i + j * 0.5);
+                dto.setSubCategory("小类目");
+                dto.setSubCategoryRank(100 + i);
+                dto.setCrawlTime(start.plusHours(j));
+                dto.setTaskId(1L);
+                rows.add(dto);
+            }
+        }
+        return rows;
+    }
+
+    static List<AsinReviewDTO> reviews(int count) {
+        List<AsinReviewDTO> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            AsinReviewDTO dto = new AsinReviewDTO();
+            dto.setId((long) i + 1);
+            dto.setAsin(String.format("B%09d", i % 20));
+            dto.setBrand("品牌" + (i % 5));
+            dto.setReviewerName("用户" + i);
+            dto.setReviewDate("2024-01-01");
+            dto.setReviewContent("评论内容" + i);
+            dto.setCrawlTime(LocalDateTime.of(2024, 1, 2, 0, 0));
+            dto.setTaskId(1L);
+            rows.add(dto);
+        }
+        return rows;
+    }
+
+    private static void writeRow(Sheet sheet, int rowIndex, Object... values) {
+        Row row = sheet.createRow(rowIndex);
+        for (int c = 0; c < values.length; c++) {
+            Object value = values[c];
+            if (value == null) {
+                continue;
+            }
+            Cell cell = row.createCell(c);
+            if (value instanceof Number number) {
+                cell.setCellValue(number.doubleValue());
+            } else if (value.toString().startsWith("=")) {
+                cell.setCellFormula(value.toString().substring(1));
+            } else {
+                cell.setCellValue(value.toString());
+            }
+        }
+    }
+}
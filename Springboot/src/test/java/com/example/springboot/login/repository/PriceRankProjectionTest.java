@@ -0,0 +1,155 @@
+package com.example.springboot.login.repository;
+
+import com.example.springboot.login.dto.AsinPriceRankDTO;
+import com.example.springboot.login.entity.AsinPriceRank;
+import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 按任务读取价格数据：实体查询后转换为DTO 与 直接查询为DTO（构造函数投影）的对比。
+// 投影不创建实体、不加载任务和用户，也不进入持久化上下文；耗时与内存分配的对比为基准测试，
+// 默认不运行，需 mvn test -Dgroups=benchmark -DexcludedGroups=
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class PriceRankProjectionTest {
+
+    private static final int ROW_COUNT = 5000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURE_ROUNDS = 10;
+
+    @Autowired
+    private AsinPriceRankRepository asinPriceRankRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Long taskId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("user001");
+        user.setPassword("password");
+        user.setEmail("user1@example.com");
+        entityManager.persist(user);
+
+        CrawlerTask task = new CrawlerTask();
+        task.setProcessName("价格任务");
+        task.setAsinList("B000000001,B000000002");
+        task.setPlatform("amazon");
+        task.setTimeCycle("daily");
+        task.setCreateTime(LocalDateTime.of(2024, 1, 1, 0, 0));
+        task.setUser(user);
+        entityManager.persist(task);
+        taskId = task.getId();
+
+        LocalDateTime crawlTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            AsinPriceRank rank = new AsinPriceRank();
+            rank.setAsin("B00000000" + (i % 10));
+            rank.setBrand("品牌" + (i % 3));
+            rank.setOriginalPrice(100.0 + i % 50);
+            rank.setMemberFinalPrice(90.0 + i % 40);
+            rank.setNonMemberFinalPrice(95.0 + i % 45);
+            rank.setMainCategory("大类目");
+            rank.setMainCategoryRank(i % 1000);
+            rank.setSubCategory("小类目");
+            rank.setSubCategoryRank(i % 100);
+            rank.setCrawlTime(crawlTime.plusMinutes(i));
+            rank.setTask(task);
+            entityManager.persist(rank);
+            if (i % 1000 == 999) {
+                entityManager.flush();
+                entityManager.clear();
+                task = entityManager.find(CrawlerTask.class, taskId);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void projectionReturnsSameRowsWithoutLoadingEntities() {
+        List<AsinPriceRankDTO> projected = asinPriceRankRepository.findDtoByTaskId(taskId);
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        entityManager.clear();
+
+        statistics.clear();
+        List<AsinPriceRankDTO> converted = loadEntities();
+        // 实体方式每行一个实体，另外加载任务和用户
+        assertTrue(statistics.getEntityLoadCount() >= ROW_COUNT);
+
+        assertEquals(ROW_COUNT, projected.size());
+        assertEquals(converted, projected);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void compareLatencyAndAllocation() {
+        Result entity = measure(this::loadEntities);
+        Result projection = measure(() -> asinPriceRankRepository.findDtoByTaskId(taskId));
+
+        System.out.printf("价格数据 %d 行，每种方式 %d 轮的平均值%n", ROW_COUNT, MEASURE_ROUNDS);
+        System.out.printf("实体+转换DTO: %.2f ms, %.1f MB%n", entity.millis(), entity.megabytes());
+        System.out.printf("DTO投影:      %.2f ms, %.1f MB%n", projection.millis(), projection.megabytes());
+        assertTrue(projection.megabytes() < entity.megabytes());
+    }
+
+    // 与改为投影之前的读取方式相同：查询实体后逐个转换
+    private List<AsinPriceRankDTO> loadEntities() {
+        return asinPriceRankRepository.findByTaskId(taskId).stream()
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .map(AsinPriceRankDTO::fromEntity)
+                .toList();
+    }
+
+    private Result measure(Supplier<List<AsinPriceRankDTO>> query) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            assertEquals(ROW_COUNT, query.get().size());
+            entityManager.clear();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long nanos = 0;
+        long bytes = 0;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            assertEquals(ROW_COUNT, query.get().size());
+            nanos += System.nanoTime() - start;
+            bytes += threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            // 持久化上下文中的实体不计入下一轮
+            entityManager.clear();
+        }
+        return new Result(nanos / 1e6 / MEASURE_ROUNDS, bytes / 1024.0 / 1024.0 / MEASURE_ROUNDS);
+    }
+
+    private record Result(double millis, double megabytes) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.springboot.login.search;
+
+import com.example.springboot.login.entity.AsinReview;
+import com.example.springboot.login.util.IdWindow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// 已索引评论ID的范围查询：只返回本任务、ID大于 fromId 的评论，用于识别晚提交的评论
+class ReviewSearchIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private ReviewSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        index = new ReviewSearchIndex();
+        ReflectionTestUtils.setField(index, "indexDir", dir.toString());
+        index.open();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.close();
+    }
+
+    @Test
+    void idsAboveReturnsIndexedIdsOfTask() throws Exception {
+        for (long id : new long[]{1, 2, 3, 5, 8, 9}) {
+            index.add(review(id), 1L);
+        }
+        index.add(review(4), 2L);
+        index.commit();
+
+        IdWindow ids = index.idsAbove(1L, 2);
+        assertEquals("3,5,8-9", ids.toString());
+        assertEquals(9, index.maxReviewId(1L));
+        assertEquals("", index.idsAbove(3L, 0).toString());
+    }
+
+    @Test
+    void deletedTaskHasNoIds() throws Exception {
+        index.add(review(1), 1L);
+        index.commit();
+        index.deleteByTaskId(1L);
+        index.commit();
+
+        assertEquals("", index.idsAbove(1L, 0).toString());
+        assertEquals(0, index.maxReviewId(1L));
+    }
+
+    private static AsinReview review(long id) {
+        AsinReview review = new AsinReview();
+        review.setId(id);
+        review.setAsin("B000000001");
+        review.setReviewTitle("title " + id);
+        review.setReviewContent("content " + id);
+        return review;
+    }
+}
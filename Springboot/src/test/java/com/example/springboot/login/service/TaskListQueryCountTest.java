@@ -0,0 +1,110 @@
+package com.example.springboot.login.service;
+
+import com.example.springboot.login.dto.CrawlerTaskDTO;
+import com.example.springboot.login.entity.CrawlerTask;
+import com.example.springboot.login.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 任务列表分页的SQL语句数与每页任务数无关：分页查询（连接用户）+ count查询 + 所需信息集合查询
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(CrawlerTaskServiceImpl.class)
+class TaskListQueryCountTest {
+
+    private static final int USER_COUNT = 5;
+    private static final int TASK_COUNT = 120;
+
+    @Autowired
+    private CrawlerTaskService crawlerTaskService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private PriceRollupService priceRollupService;
+
+    @MockBean
+    private TaskAsinService taskAsinService;
+
+    @MockBean
+    private ReviewSearchService reviewSearchService;
+
+    @MockBean
+    private UserService userService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int u = 0; u < USER_COUNT; u++) {
+            User user = new User();
+            user.setUsername("user00" + u);
+            user.setPassword("password");
+            user.setEmail("user" + u + "@example.com");
+            entityManager.persist(user);
+            for (int t = u; t < TASK_COUNT; t += USER_COUNT) {
+                CrawlerTask task = new CrawlerTask();
+                task.setProcessName("任务" + t);
+                task.setAsinList("B000000001,B000000002");
+                task.setRequiredInfo(List.of("价格", "排名", "评论"));
+                task.setPlatform("amazon");
+                task.setTimeCycle("daily");
+                task.setStatus("ACTIVE");
+                task.setCreateTime(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(t));
+                task.setUser(user);
+                entityManager.persist(task);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void pageOfTenUsesConstantStatements() {
+        assertEquals(3, loadPage(10));
+    }
+
+    @Test
+    void pageOfHundredUsesSameStatements() {
+        assertEquals(3, loadPage(100));
+    }
+
+    // 与 CrawlerTaskController.getUserTasks 相同：分页查询后逐个转换为DTO，并读取所需信息与用户名
+    private long loadPage(int size) {
+        Page<CrawlerTask> page = crawlerTaskService.getUserTasksWithFilters(null, null, null, null,
+                PageRequest.of(0, size, Sort.by("createTime").descending()));
+        List<CrawlerTaskDTO> tasks = page.map(CrawlerTaskDTO::fromEntity).getContent();
+        assertEquals(size, tasks.size());
+        for (CrawlerTaskDTO task : tasks) {
+            assertEquals(3, task.getRequiredInfo().size());
+            assertTrue(task.getUsername().startsWith("user00"));
+        }
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.springboot.login.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 布隆过滤器：放入过的一定判定存在，未放入的误判率接近 fpp，超过预计数量后标记为饱和
+class BloomFilterTest {
+
+    @Test
+    void neverMissesPutValues() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("R" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("R" + i));
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearFpp() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("R" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("X" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 200, "误判 " + falsePositives + " 次");
+    }
+
+    @Test
+    void saturatesAfterExpectedInsertions() {
+        BloomFilter filter = new BloomFilter(2, 0.01);
+        filter.put("a");
+        filter.put("b");
+        assertFalse(filter.isSaturated());
+        filter.put("c");
+        assertTrue(filter.isSaturated());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 1));
+    }
+}
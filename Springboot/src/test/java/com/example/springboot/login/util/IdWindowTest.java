@@ -0,0 +1,40 @@
+package com.example.springboot.login.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdWindowTest {
+
+    @Test
+    void mergesAdjacentIdsIntoRanges() {
+        IdWindow window = new IdWindow();
+        for (long id : new long[]{5, 3, 4, 10, 6, 12, 11}) {
+            window.add(id);
+        }
+        assertEquals("3-6,10-12", window.toString());
+        assertTrue(window.contains(4));
+        assertFalse(window.contains(7));
+        assertFalse(window.contains(2));
+    }
+
+    @Test
+    void retainAboveSplitsCrossingRange() {
+        IdWindow window = IdWindow.parse("3-6,10-12,20");
+        window.retainAbove(4);
+        assertEquals("5-6,10-12,20", window.toString());
+        window.retainAbove(12);
+        assertEquals("20", window.toString());
+        window.retainAbove(20);
+        assertEquals("", window.toString());
+    }
+
+    @Test
+    void parsesItsOwnText() {
+        assertEquals("1-5,8", IdWindow.parse("1-5,8").toString());
+        assertEquals("", IdWindow.parse(null).toString());
+        assertFalse(IdWindow.parse("").contains(1));
+    }
+}